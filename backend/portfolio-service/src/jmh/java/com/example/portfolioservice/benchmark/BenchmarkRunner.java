@@ -0,0 +1,41 @@
+package com.example.portfolioservice.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the selected benchmarks once per configured thread count and writes one JSON result file
+ * per run, e.g. {@code target/jmh/results-t4.json}.
+ *
+ * System properties: {@code benchmark.include} (regex), {@code benchmark.threads} (comma separated)
+ * and {@code benchmark.output} (directory).
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("benchmark.include", ".*");
+        Path output = Path.of(System.getProperty("benchmark.output", "target/jmh"));
+        Files.createDirectories(output);
+
+        for (String value : System.getProperty("benchmark.threads", "1").split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder()
+                    .include(BenchmarkRunner.class.getPackageName() + "\\..*" + include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(output.resolve("results-t" + threads + ".json").toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.portfolioservice.benchmark;
+
+import com.example.portfolioservice.PortfolioServiceApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load test comparing platform-thread and virtual-thread request handling.
+ *
+ * For each mode the application is started on a random port and driven by
+ * {@code load.connections} clients, each on its own keep-alive connection, that send the next
+ * request as soon as the previous one completes. Latencies after the warm-up are recorded in an
+ * HdrHistogram; a summary is printed and the full distribution is written to
+ * {@code load.output/<mode>.hgrm}.
+ *
+ * System properties: {@code load.modes} (default {@code platform,virtual}),
+ * {@code load.connections} (10000), {@code load.warmup-seconds} (10),
+ * {@code load.duration-seconds} (30), {@code load.path} ({@code /api/portfolios/1}) and
+ * {@code load.output} ({@code target/load}). Virtual mode needs a Java 21 runtime, and 10k
+ * connections need an open-files limit well above 20000 ({@code ulimit -n}).
+ */
+public final class ConnectionLoadTest {
+
+    private ConnectionLoadTest() {
+    }
+
+    private record Result(String mode, long requests, long errors, double seconds, Histogram latencies) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = Integer.getInteger("load.connections", 10_000);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 10);
+        int durationSeconds = Integer.getInteger("load.duration-seconds", 30);
+        String path = System.getProperty("load.path", "/api/portfolios/1");
+        Path output = Path.of(System.getProperty("load.output", "target/load"));
+        Files.createDirectories(output);
+
+        StringBuilder summary = new StringBuilder(String.format("%-10s %12s %10s %10s %10s %10s %10s %8s%n",
+                "mode", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "requests", "errors"));
+        for (String mode : System.getProperty("load.modes", "platform,virtual").split(",")) {
+            boolean virtual = "virtual".equals(mode.trim());
+            if (virtual && Runtime.version().feature() < 21) {
+                System.out.println("Skipping virtual mode: needs Java 21, running on " + Runtime.version());
+                continue;
+            }
+            Result result = run(mode.trim(), virtual, connections, warmupSeconds, durationSeconds, path);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(output.resolve(result.mode() + ".hgrm")))) {
+                result.latencies().outputPercentileDistribution(out, 1000.0);
+            }
+            Histogram h = result.latencies();
+            summary.append(String.format("%-10s %12.0f %10.2f %10.2f %10.2f %10.2f %10d %8d%n",
+                    result.mode(), result.requests() / result.seconds(),
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getValueAtPercentile(99.9) / 1000.0, h.getMaxValue() / 1000.0,
+                    result.requests(), result.errors()));
+        }
+        System.out.print(summary);
+    }
+
+    private static Result run(String mode, boolean virtual, int connections, int warmupSeconds, int durationSeconds,
+                              String path) throws InterruptedException {
+        // Command-line arguments, unlike builder properties, take precedence over application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PortfolioServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--server.tomcat.max-connections=" + (connections + 1000),
+                        "--server.tomcat.accept-count=" + connections,
+                        "--server.tomcat.keep-alive-timeout=60000",
+                        "--server.tomcat.max-keep-alive-requests=-1",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--portfolio.ledger.dir=target/load/ledger-" + mode + "-${random.uuid}",
+                        "--portfolio.history.dir=target/load/ticks-" + mode + "-${random.uuid}",
+                        "--logging.level.com.example=WARN");
+        ExecutorService callbacks = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .executor(callbacks)
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+
+            Recorder recorder = new Recorder(3);
+            LongAdder requests = new LongAdder();
+            LongAdder errors = new LongAdder();
+            long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            CountDownLatch done = new CountDownLatch(connections);
+            for (int i = 0; i < connections; i++) {
+                send(client, request, callbacks, recorder, requests, errors, measureFrom, measureUntil, done);
+            }
+            done.await();
+            return new Result(mode, requests.sum(), errors.sum(), durationSeconds, recorder.getIntervalHistogram());
+        } finally {
+            callbacks.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static void send(HttpClient client, HttpRequest request, ExecutorService callbacks, Recorder recorder,
+                             LongAdder requests, LongAdder errors, long measureFrom, long measureUntil,
+                             CountDownLatch done) {
+        long started = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenCompleteAsync((response, error) -> {
+            long finished = System.nanoTime();
+            if (started >= measureFrom && finished <= measureUntil) {
+                requests.increment();
+                if (error != null || response.statusCode() != 200) {
+                    errors.increment();
+                } else {
+                    recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(finished - started));
+                }
+            }
+            if (finished < measureUntil) {
+                send(client, request, callbacks, recorder, requests, errors, measureFrom, measureUntil, done);
+            } else {
+                done.countDown();
+            }
+        }, callbacks);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.portfolioservice.benchmark;
+
+import com.example.portfolioservice.service.MarketDataService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MarketDataBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int symbolCount;
+
+    private MarketDataService marketDataService;
+    private String[] symbols;
+    private int[] symbolIds;
+
+    @Setup
+    public void setUp() {
+        marketDataService = new MarketDataService();
+        symbols = new String[symbolCount];
+        symbolIds = new int[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = "SYM" + i;
+            marketDataService.updatePrice(symbols[i], 100.0 + i % 100);
+            symbolIds[i] = marketDataService.symbolId(symbols[i]);
+        }
+    }
+
+    @Benchmark
+    public Double getCurrentPriceBySymbol() {
+        return marketDataService.getCurrentPrice(symbols[ThreadLocalRandom.current().nextInt(symbolCount)]);
+    }
+
+    @Benchmark
+    public double getCurrentPriceById() {
+        return marketDataService.getCurrentPrice(symbolIds[ThreadLocalRandom.current().nextInt(symbolCount)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Double contendedRead() {
+        return marketDataService.getCurrentPrice(symbols[ThreadLocalRandom.current().nextInt(symbolCount)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        marketDataService.updatePrice(symbols[random.nextInt(symbolCount)], 100.0 + random.nextDouble());
+    }
+}
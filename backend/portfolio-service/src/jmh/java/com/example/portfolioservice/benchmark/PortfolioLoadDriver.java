@@ -0,0 +1,213 @@
+package com.example.portfolioservice.benchmark;
+
+import com.example.portfolioservice.PortfolioServiceApplication;
+import com.example.portfolioservice.service.PortfolioDataGenerator;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load driver for the portfolio API at production-like data size.
+ *
+ * The application is started on a random port with {@link PortfolioDataGenerator} loading
+ * {@code load.users x load.portfolios-per-user x load.holdings-per-portfolio} holdings. Requests
+ * are then sent at {@code load.rate} per second, each one picked from a weighted mix of
+ * PortfolioController operations on a random generated portfolio, without waiting for earlier
+ * responses. Latency is measured from the time a request was scheduled to be sent, so a stalled
+ * server shows up in the percentiles instead of lowering the request rate. Per-operation
+ * HdrHistograms are summarized on stdout and written to {@code load.output/<operation>.hgrm}.
+ *
+ * System properties: {@code load.users} (10000), {@code load.portfolios-per-user} (5),
+ * {@code load.holdings-per-portfolio} (20), {@code load.symbols} (1000), {@code load.seed} (42),
+ * {@code load.rate} (2000), {@code load.warmup-seconds} (10), {@code load.duration-seconds} (30),
+ * {@code load.mix} ({@code get=40,holdings=20,list=15,summary=15,buy=5,sell=5}) and
+ * {@code load.output} ({@code target/load}).
+ */
+public final class PortfolioLoadDriver {
+
+    private PortfolioLoadDriver() {
+    }
+
+    private enum Operation {
+        GET, HOLDINGS, LIST, SUMMARY, BUY, SELL
+    }
+
+    private record Target(long portfolioId, String userId, String[] symbols) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("load.users", 10_000);
+        int portfoliosPerUser = Integer.getInteger("load.portfolios-per-user", 5);
+        int holdingsPerPortfolio = Integer.getInteger("load.holdings-per-portfolio", 20);
+        int symbols = Integer.getInteger("load.symbols", 1000);
+        long seed = Long.getLong("load.seed", 42L);
+        int rate = Integer.getInteger("load.rate", 2000);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 10);
+        int durationSeconds = Integer.getInteger("load.duration-seconds", 30);
+        Operation[] mix = mix(System.getProperty("load.mix", "get=40,holdings=20,list=15,summary=15,buy=5,sell=5"));
+        Path output = Path.of(System.getProperty("load.output", "target/load"));
+        Files.createDirectories(output);
+
+        // Command-line arguments, unlike builder properties, take precedence over application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PortfolioServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load-driver;DB_CLOSE_DELAY=-1",
+                        "--portfolio.ledger.dir=target/load/ledger-${random.uuid}",
+                        "--portfolio.history.dir=target/load/ticks-${random.uuid}",
+                        "--portfolio.data.users=" + users,
+                        "--portfolio.data.portfolios-per-user=" + portfoliosPerUser,
+                        "--portfolio.data.holdings-per-portfolio=" + holdingsPerPortfolio,
+                        "--portfolio.data.symbol-count=" + symbols,
+                        "--portfolio.data.seed=" + seed,
+                        "--logging.level.com.example=WARN");
+        ExecutorService callbacks = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Target> targets = targets(context.getBean(JdbcTemplate.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .executor(callbacks)
+                    .build();
+            System.out.printf("Driving %d portfolios at %d req/s%n", targets.size(), rate);
+
+            Map<Operation, Recorder> recorders = new HashMap<>();
+            Map<Operation, LongAdder> errors = new HashMap<>();
+            for (Operation operation : Operation.values()) {
+                recorders.put(operation, new Recorder(3));
+                errors.put(operation, new LongAdder());
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            String base = "http://localhost:" + port + "/api/portfolios";
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            long started = System.nanoTime();
+            long measureFrom = started + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            Phaser inFlight = new Phaser(1);
+            for (long scheduled = started; scheduled < measureUntil; scheduled += intervalNanos) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = mix[random.nextInt(mix.length)];
+                Target target = targets.get(random.nextInt(targets.size()));
+                String symbol = target.symbols()[random.nextInt(target.symbols().length)];
+                boolean measured = scheduled >= measureFrom;
+                long intended = scheduled;
+                inFlight.register();
+                client.sendAsync(request(base, operation, target, symbol), HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            if (measured) {
+                                if (error != null || response.statusCode() >= 400) {
+                                    errors.get(operation).increment();
+                                } else {
+                                    recorders.get(operation).recordValue(
+                                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+                                }
+                            }
+                            inFlight.arriveAndDeregister();
+                        });
+            }
+            inFlight.arriveAndAwaitAdvance();
+
+            Histogram all = new Histogram(3);
+            long totalErrors = 0;
+            StringBuilder summary = new StringBuilder(String.format("%-10s %10s %10s %10s %10s %10s %10s %8s%n",
+                    "operation", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "requests", "errors"));
+            for (Operation operation : Operation.values()) {
+                Histogram h = recorders.get(operation).getIntervalHistogram();
+                long failed = errors.get(operation).sum();
+                if (h.getTotalCount() + failed == 0) {
+                    continue;
+                }
+                all.add(h);
+                totalErrors += failed;
+                try (PrintStream out = new PrintStream(Files.newOutputStream(
+                        output.resolve(operation.name().toLowerCase() + ".hgrm")))) {
+                    h.outputPercentileDistribution(out, 1000.0);
+                }
+                summary.append(row(operation.name().toLowerCase(), h, failed, durationSeconds));
+            }
+            summary.append(row("all", all, totalErrors, durationSeconds));
+            System.out.print(summary);
+        } finally {
+            callbacks.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static String row(String name, Histogram h, long errors, int durationSeconds) {
+        return String.format("%-10s %10.0f %10.2f %10.2f %10.2f %10.2f %10d %8d%n",
+                name, (h.getTotalCount() + errors) / (double) durationSeconds,
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                h.getValueAtPercentile(99.9) / 1000.0, h.getMaxValue() / 1000.0, h.getTotalCount(), errors);
+    }
+
+    private static Operation[] mix(String weights) {
+        List<Operation> mix = new ArrayList<>();
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) {
+                mix.add(operation);
+            }
+        }
+        return mix.toArray(new Operation[0]);
+    }
+
+    private static List<Target> targets(JdbcTemplate jdbcTemplate) {
+        Map<Long, List<String>> holdings = new HashMap<>();
+        jdbcTemplate.query("SELECT portfolio_id, symbol FROM stock_holdings", rs -> {
+            holdings.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getString(2));
+        });
+        List<Target> targets = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, user_id FROM portfolios ORDER BY id", rs -> {
+            List<String> symbols = holdings.get(rs.getLong(1));
+            if (symbols != null) {
+                targets.add(new Target(rs.getLong(1), rs.getString(2), symbols.toArray(new String[0])));
+            }
+        });
+        return targets;
+    }
+
+    private static HttpRequest request(String base, Operation operation, Target target, String symbol) {
+        HttpRequest.Builder request = switch (operation) {
+            case GET -> HttpRequest.newBuilder(URI.create(base + "/" + target.portfolioId())).GET();
+            case HOLDINGS -> HttpRequest.newBuilder(URI.create(base + "/" + target.portfolioId() + "/holdings")).GET();
+            case LIST -> HttpRequest.newBuilder(URI.create(base + "?userId=" + target.userId())).GET();
+            case SUMMARY -> HttpRequest.newBuilder(URI.create(base + "/summary?userId=" + target.userId())).GET();
+            // Buys and sells of one share on a generated holding keep its quantity near where it started
+            case BUY -> HttpRequest.newBuilder(URI.create(base + "/" + target.portfolioId() + "/stocks"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"symbol\":\"" + symbol + "\",\"quantity\":1,\"price\":100.0}"));
+            case SELL -> HttpRequest.newBuilder(URI.create(base + "/" + target.portfolioId() + "/stocks/" + symbol
+                    + "/reduce?quantity=1")).PUT(HttpRequest.BodyPublishers.noBody());
+        };
+        return request.timeout(Duration.ofSeconds(60)).build();
+    }
+}
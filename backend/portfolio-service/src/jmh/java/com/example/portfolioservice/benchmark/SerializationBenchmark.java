@@ -0,0 +1,60 @@
+package com.example.portfolioservice.benchmark;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    int holdings;
+
+    private ObjectMapper objectMapper;
+    private Portfolio portfolio;
+
+    @Setup
+    public void setUp() {
+        // Same defaults Spring MVC uses for response bodies
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        portfolio = new Portfolio();
+        portfolio.setId(1L);
+        portfolio.setName("benchmark");
+        portfolio.setUserId("default-user");
+        double total = 0.0;
+        for (int i = 0; i < holdings; i++) {
+            StockHolding holding = new StockHolding();
+            holding.setId((long) i);
+            holding.setSymbol("SYM" + i);
+            holding.setQuantity(10 + i % 50);
+            holding.setAveragePrice(95.0 + i % 10);
+            holding.setCurrentValue(holding.getQuantity() * 100.0);
+            holding.setPortfolio(portfolio);
+            portfolio.getHoldings().add(holding);
+            total += holding.getCurrentValue();
+        }
+        portfolio.setTotalValue(total);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(portfolio);
+    }
+
+    @Benchmark
+    public void writeToStream() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), portfolio);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.portfolioservice.benchmark;
+
+import com.example.portfolioservice.PortfolioServiceApplication;
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.service.PortfolioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * addStock/reduceStockQuantity against the embedded H2 database. Each benchmark thread trades
+ * against its own portfolio.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TradingBenchmark {
+
+    // Large enough that neither buying nor selling one share per call runs out during a run
+    private static final int INITIAL_QUANTITY = 1_000_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        ConfigurableApplicationContext context;
+        PortfolioService portfolioService;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(PortfolioServiceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    // Command-line arguments, unlike builder properties, take precedence over application.properties
+                    .run(
+                            "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                            "--spring.jpa.show-sql=false",
+                            "--portfolio.ledger.dir=target/benchmark/ledger-${random.uuid}",
+                            "--portfolio.history.dir=target/benchmark/ticks-${random.uuid}",
+                            "--logging.level.com.example=WARN");
+            portfolioService = context.getBean(PortfolioService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadPortfolio {
+        @Param({"10", "100", "1000"})
+        int holdings;
+
+        Long portfolioId;
+        String[] symbols;
+
+        @Setup(Level.Trial)
+        public void create(Application application) {
+            Portfolio portfolio = new Portfolio();
+            portfolio.setName("benchmark-" + Thread.currentThread().getId());
+            portfolioId = application.portfolioService.createPortfolio(portfolio).getId();
+            symbols = new String[holdings];
+            for (int i = 0; i < holdings; i++) {
+                symbols[i] = "SYM" + i;
+                application.portfolioService.addStock(portfolioId, symbols[i], INITIAL_QUANTITY, 100.0);
+            }
+        }
+
+        String randomSymbol() {
+            return symbols[ThreadLocalRandom.current().nextInt(symbols.length)];
+        }
+    }
+
+    @Benchmark
+    public StockHolding addStock(Application application, ThreadPortfolio portfolio) {
+        return application.portfolioService.addStock(portfolio.portfolioId, portfolio.randomSymbol(), 1, 101.0);
+    }
+
+    @Benchmark
+    public StockHolding reduceStockQuantity(Application application, ThreadPortfolio portfolio) {
+        return application.portfolioService.reduceStockQuantity(portfolio.portfolioId, portfolio.randomSymbol(), 1);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.portfolioservice.benchmark;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.service.MarketDataService;
+import com.example.portfolioservice.service.PortfolioService;
+import com.example.portfolioservice.service.PortfolioValuationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValuationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int holdings;
+
+    private MarketDataService marketDataService;
+    private PortfolioValuationEngine valuationEngine;
+    private Portfolio portfolio;
+    private String[] symbols;
+
+    @Setup
+    public void setUp() {
+        marketDataService = new MarketDataService();
+        valuationEngine = new PortfolioValuationEngine(marketDataService);
+        portfolio = new Portfolio();
+        portfolio.setId(1L);
+        portfolio.setName("benchmark");
+        symbols = new String[holdings];
+        for (int i = 0; i < holdings; i++) {
+            symbols[i] = "SYM" + i;
+            marketDataService.updatePrice(symbols[i], 100.0 + i % 100);
+            StockHolding holding = new StockHolding();
+            holding.setId((long) i);
+            holding.setSymbol(symbols[i]);
+            holding.setQuantity(10 + i % 50);
+            holding.setAveragePrice(95.0);
+            holding.setPortfolio(portfolio);
+            portfolio.getHoldings().add(holding);
+        }
+        valuationEngine.apply(portfolio);
+    }
+
+    @Benchmark
+    public double calculateNewAveragePrice() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return PortfolioService.averagePrice(random.nextInt(1, 1000), 150.0, random.nextInt(1, 100), 155.0);
+    }
+
+    @Benchmark
+    public Portfolio precomputedValuation() {
+        valuationEngine.apply(portfolio);
+        return portfolio;
+    }
+
+    // Baseline: what every read did before valuations were maintained incrementally
+    @Benchmark
+    public double fullRevaluation() {
+        double total = 0.0;
+        for (StockHolding holding : portfolio.getHoldings()) {
+            total += holding.getQuantity() * marketDataService.getCurrentPrice(holding.getSymbol());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void priceTick() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        marketDataService.updatePrice(symbols[random.nextInt(holdings)], 100.0 + random.nextDouble());
+    }
+}
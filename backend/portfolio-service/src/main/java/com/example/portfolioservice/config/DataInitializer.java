@@ -4,13 +4,19 @@ import com.example.portfolioservice.model.Portfolio;
 import com.example.portfolioservice.model.StockHolding;
 import com.example.portfolioservice.repository.PortfolioRepository;
 import com.example.portfolioservice.service.MarketDataService;
+import com.example.portfolioservice.service.PortfolioDataGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 
 @Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(prefix = "portfolio.data", name = "initialize", havingValue = "true", matchIfMissing = true)
 public class DataInitializer implements CommandLineRunner {
 
     @Autowired
@@ -19,8 +25,22 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private MarketDataService marketDataService;
 
+    @Autowired
+    private PortfolioDataGenerator portfolioDataGenerator;
+
     @Override
     public void run(String... args) {
+        // Portfolios restored from the trade ledger or a durable database replace the sample
+        if (portfolioRepository.count() > 0) {
+            return;
+        }
+
+        // Load tests replace the sample with generated users, portfolios and holdings
+        if (portfolioDataGenerator.isEnabled()) {
+            portfolioDataGenerator.generate();
+            return;
+        }
+
         // Create a sample portfolio
         Portfolio portfolio = new Portfolio();
         portfolio.setName("My First Portfolio");
@@ -0,0 +1,29 @@
+package com.example.portfolioservice.config;
+
+import com.example.portfolioservice.service.TradeLedgerService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings portfolios and holdings in the database in line with the trade ledger before the
+ * sample data is created.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "portfolio.ledger", name = "restore-on-startup", havingValue = "true", matchIfMissing = true)
+public class LedgerRecovery implements ApplicationRunner {
+    private final TradeLedgerService tradeLedgerService;
+
+    public LedgerRecovery(TradeLedgerService tradeLedgerService) {
+        this.tradeLedgerService = tradeLedgerService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        tradeLedgerService.restoreProjections();
+    }
+}
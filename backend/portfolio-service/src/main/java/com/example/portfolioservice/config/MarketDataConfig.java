@@ -0,0 +1,42 @@
+package com.example.portfolioservice.config;
+
+import com.example.portfolioservice.service.HttpMarketDataProvider;
+import com.example.portfolioservice.service.SimulatedMarketDataProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Selects the market data provider. Without one, prices for unknown symbols are generated
+ * randomly; the simulator generates them from its seed instead.
+ */
+@Configuration
+public class MarketDataConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "market-data", name = "provider", havingValue = "http")
+    public HttpMarketDataProvider httpMarketDataProvider(
+            @Value("${market-data.http.base-url}") URI baseUrl,
+            @Value("${market-data.http.api-key:}") String apiKey,
+            @Value("${market-data.http.connect-timeout-ms:1000}") long connectTimeoutMillis,
+            @Value("${market-data.http.request-timeout-ms:2000}") long requestTimeoutMillis,
+            @Value("${market-data.http.max-requests-per-second:10}") double maxRequestsPerSecond,
+            @Value("${market-data.http.threads:4}") int threads,
+            TaskExecutors taskExecutors,
+            ObjectMapper objectMapper) {
+        return new HttpMarketDataProvider(baseUrl, apiKey, Duration.ofMillis(connectTimeoutMillis),
+                Duration.ofMillis(requestTimeoutMillis), maxRequestsPerSecond,
+                taskExecutors.newExecutor("market-data-http", threads), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "market-data", name = "provider", havingValue = "simulator")
+    public SimulatedMarketDataProvider simulatedMarketDataProvider(@Value("${market-data.simulator.seed:42}") long seed) {
+        return new SimulatedMarketDataProvider(seed);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.portfolioservice.config;
+
+import com.example.portfolioservice.metrics.MarketDataMetrics;
+import com.example.portfolioservice.metrics.QueryCountInspector;
+import com.example.portfolioservice.metrics.QueryCountInterceptor;
+import com.example.portfolioservice.metrics.QuoteCacheMetrics;
+import com.example.portfolioservice.service.MarketDataService;
+import com.example.portfolioservice.service.PriceHistoryService;
+import com.example.portfolioservice.service.QuoteService;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Application metrics. With portfolio.metrics.enabled=false none of these beans exist, so no
+ * timing proxies, statement inspector or interceptor sit on the request path.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "portfolio.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfig {
+
+    // Times every method of classes annotated with @Timed
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MarketDataMetrics marketDataMetrics(MarketDataService marketDataService,
+                                               @Value("${portfolio.metrics.staleness-max-symbols:1000}") int maxSymbols) {
+        return new MarketDataMetrics(marketDataService, maxSymbols);
+    }
+
+    @Bean
+    public QuoteCacheMetrics quoteCacheMetrics(QuoteService quoteService) {
+        return new QuoteCacheMetrics(quoteService.getCache());
+    }
+
+    @Bean
+    public MeterBinder priceHistoryMetrics(PriceHistoryService priceHistoryService) {
+        return registry -> FunctionCounter.builder("market.history.rejected", priceHistoryService,
+                        PriceHistoryService::getRejectedTicks)
+                .description("Ticks not recorded because they were older than the last tick of their symbol")
+                .register(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+
+    @Bean
+    public WebMvcConfigurer queryCountInterceptorConfigurer(MeterRegistry registry) {
+        QueryCountInterceptor interceptor = new QueryCountInterceptor(registry);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                interceptors.addInterceptor(interceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.portfolioservice.config;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.repository.PortfolioRepository;
+import com.example.portfolioservice.service.PortfolioLeaderboard;
+import com.example.portfolioservice.service.PortfolioValuationEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Loads the most recently created portfolios into the valuation engine, and with it their
+ * symbols into the price store, and all portfolios into the leaderboard before the application
+ * reports ready. Runners finish before the readiness state turns to ACCEPTING_TRAFFIC, so the
+ * first requests after a deploy find warm caches and compiled query plans.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class StartupWarmup implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private final PortfolioRepository portfolioRepository;
+    private final PortfolioValuationEngine valuationEngine;
+    private final PortfolioLeaderboard portfolioLeaderboard;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPortfolios;
+
+    public StartupWarmup(PortfolioRepository portfolioRepository,
+                         PortfolioValuationEngine valuationEngine,
+                         PortfolioLeaderboard portfolioLeaderboard,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${portfolio.warmup.max-portfolios:1000}") int maxPortfolios) {
+        this.portfolioRepository = portfolioRepository;
+        this.valuationEngine = valuationEngine;
+        this.portfolioLeaderboard = portfolioLeaderboard;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPortfolios = maxPortfolios;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUpValuations();
+        portfolioLeaderboard.load();
+    }
+
+    private void warmUpValuations() {
+        if (maxPortfolios <= 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<Long> ids = portfolioRepository.findRecentIds(PageRequest.of(0, maxPortfolios));
+        int holdings = 0;
+        String userId = null;
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE));
+            List<Portfolio> portfolios = transactionTemplate.execute(status -> {
+                List<Portfolio> loaded = portfolioRepository.findWithHoldingsByIdIn(chunk);
+                loaded.forEach(valuationEngine::apply);
+                return loaded;
+            });
+            for (Portfolio portfolio : portfolios) {
+                holdings += portfolio.getHoldings().size();
+                userId = portfolio.getUserId();
+            }
+        }
+        if (userId != null) {
+            // Compile the listing queries once
+            portfolioRepository.findWithHoldingsByUserId(userId);
+            portfolioRepository.findSummariesByUserId(userId, PageRequest.of(0, 20));
+        }
+        log.info("Warmed up {} portfolios with {} holdings in {} ms", ids.size(), holdings,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+}
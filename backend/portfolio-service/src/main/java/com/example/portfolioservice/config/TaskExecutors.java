@@ -0,0 +1,83 @@
+package com.example.portfolioservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors for the application's own background work (market data calls,
+ * valuation streaming).
+ *
+ * With spring.threads.virtual.enabled=true every task gets its own virtual thread, the same
+ * switch that moves Tomcat request handling onto virtual threads. The project compiles for
+ * Java 17, so virtual threads are looked up reflectively; on a JVM older than 21 the setting
+ * falls back to fixed pools of platform threads.
+ */
+@Component
+public class TaskExecutors {
+    private static final Logger log = LoggerFactory.getLogger(TaskExecutors.class);
+
+    private final VirtualThreads virtualThreads;
+
+    public TaskExecutors(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads ? lookupVirtualThreads() : null;
+    }
+
+    public boolean isVirtual() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * Returns an executor running each task on a new virtual thread in virtual mode, or a fixed
+     * pool of {@code platformThreads} daemon threads otherwise.
+     */
+    public ExecutorService newExecutor(String name, int platformThreads) {
+        if (virtualThreads != null) {
+            try {
+                return virtualThreads.newExecutor(name + "-");
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create virtual thread executor " + name, e);
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads, daemonThreads(name));
+    }
+
+    public static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static VirtualThreads lookupVirtualThreads() {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            return new VirtualThreads(
+                    Thread.class.getMethod("ofVirtual"),
+                    builder.getMethod("name", String.class, long.class),
+                    builder.getMethod("factory"),
+                    Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class));
+        } catch (ReflectiveOperationException e) {
+            log.warn("spring.threads.virtual.enabled is set but this JVM ({}) has no virtual threads; "
+                    + "using platform threads", Runtime.version());
+            return null;
+        }
+    }
+
+    // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())
+    private record VirtualThreads(Method ofVirtual, Method name, Method factory, Method newThreadPerTaskExecutor) {
+        ExecutorService newExecutor(String prefix) throws ReflectiveOperationException {
+            Object builder = name.invoke(ofVirtual.invoke(null), prefix, 0L);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory.invoke(builder));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.portfolioservice.controller;
+
+import com.example.portfolioservice.model.PriceAlert;
+import com.example.portfolioservice.service.PriceAlertService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/alerts")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:4201"})
+@Tag(name = "Alert Controller", description = "APIs for price and portfolio value alerts")
+public class AlertController {
+    private final PriceAlertService priceAlertService;
+
+    public AlertController(PriceAlertService priceAlertService) {
+        this.priceAlertService = priceAlertService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Register an alert",
+            description = "Fires once when the price of a symbol, or the total value of a portfolio, crosses the threshold in the given direction (ABOVE or BELOW)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Alert registered"),
+        @ApiResponse(responseCode = "400", description = "Invalid input"),
+        @ApiResponse(responseCode = "404", description = "Portfolio not found")
+    })
+    public ResponseEntity<PriceAlert> registerAlert(@RequestBody PriceAlert alert) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(priceAlertService.register(alert));
+    }
+
+    @Operation(summary = "Get active alerts of a user")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Alerts retrieved successfully")
+    })
+    @GetMapping
+    public ResponseEntity<List<PriceAlert>> getAlerts(
+            @Parameter(description = "ID of the user")
+            @RequestParam String userId) {
+        return ResponseEntity.ok(priceAlertService.getAlerts(userId));
+    }
+
+    @Operation(summary = "Cancel an alert")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Alert cancelled"),
+        @ApiResponse(responseCode = "404", description = "Alert not found or already fired")
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelAlert(
+            @Parameter(description = "ID of the alert")
+            @PathVariable Long id) {
+        priceAlertService.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Stream fired alerts", description = "Pushes the user's alerts as Server-Sent Events when they fire")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream opened")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlerts(
+            @Parameter(description = "ID of the user")
+            @RequestParam String userId) {
+        return priceAlertService.subscribe(userId);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.portfolioservice.controller;
+
+import com.example.portfolioservice.model.LeaderboardEntry;
+import com.example.portfolioservice.model.PortfolioRank;
+import com.example.portfolioservice.service.PortfolioLeaderboard;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:4201"})
+@Tag(name = "Leaderboard Controller", description = "APIs for ranking portfolios by value and return")
+public class LeaderboardController {
+    private static final int MAX_LIMIT = 1000;
+
+    private final PortfolioLeaderboard portfolioLeaderboard;
+
+    public LeaderboardController(PortfolioLeaderboard portfolioLeaderboard) {
+        this.portfolioLeaderboard = portfolioLeaderboard;
+    }
+
+    @Operation(summary = "Get top portfolios",
+            description = "Returns portfolios ranked by total value or by unrealised return, across all users or for one user")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ranking retrieved successfully")
+    })
+    @GetMapping
+    public ResponseEntity<List<LeaderboardEntry>> getTop(
+            @Parameter(description = "Ranking metric: value or return")
+            @RequestParam(defaultValue = "value") String by,
+            @Parameter(description = "Only rank the portfolios of this user")
+            @RequestParam(required = false) String userId,
+            @Parameter(description = "Zero-based rank to start from")
+            @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "Number of portfolios to return, at most 1000")
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(portfolioLeaderboard.top(PortfolioLeaderboard.Metric.of(by), userId,
+                Math.max(0, offset), Math.max(0, Math.min(limit, MAX_LIMIT))));
+    }
+
+    @Operation(summary = "Get the rank of a portfolio",
+            description = "Returns the global and per-user rank of the portfolio by total value and by unrealised return")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rank retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Portfolio not found")
+    })
+    @GetMapping("/portfolios/{portfolioId}")
+    public ResponseEntity<PortfolioRank> getRank(
+            @Parameter(description = "ID of the portfolio")
+            @PathVariable Long portfolioId) {
+        return ResponseEntity.ok(portfolioLeaderboard.rank(portfolioId));
+    }
+}
@@ -2,17 +2,37 @@ package com.example.portfolioservice.controller;
 
 import com.example.portfolioservice.model.AddStockRequest;
 import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.PortfolioRisk;
+import com.example.portfolioservice.model.PortfolioSummary;
 import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.model.TradeImportResult;
+import com.example.portfolioservice.service.PortfolioJsonWriter;
 import com.example.portfolioservice.service.PortfolioService;
+import com.example.portfolioservice.service.PortfolioValuationEngine;
+import com.example.portfolioservice.service.RiskService;
+import com.example.portfolioservice.service.TradeImportService;
+import com.example.portfolioservice.service.UploadFormat;
+import com.example.portfolioservice.service.ValuationStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -21,9 +41,24 @@ import java.util.List;
 @Tag(name = "Portfolio Controller", description = "APIs for managing stock portfolios")
 public class PortfolioController {
     private final PortfolioService portfolioService;
+    private final ValuationStreamService valuationStreamService;
+    private final TradeImportService tradeImportService;
+    private final RiskService riskService;
+    private final PortfolioJsonWriter portfolioJsonWriter;
+    private final int streamThreshold;
 
-    public PortfolioController(PortfolioService portfolioService) {
+    public PortfolioController(PortfolioService portfolioService,
+                               ValuationStreamService valuationStreamService,
+                               TradeImportService tradeImportService,
+                               RiskService riskService,
+                               PortfolioJsonWriter portfolioJsonWriter,
+                               @Value("${portfolio.http.stream-threshold:1000}") int streamThreshold) {
         this.portfolioService = portfolioService;
+        this.valuationStreamService = valuationStreamService;
+        this.tradeImportService = tradeImportService;
+        this.riskService = riskService;
+        this.portfolioJsonWriter = portfolioJsonWriter;
+        this.streamThreshold = streamThreshold;
     }
 
     @Operation(summary = "Get all portfolios for a user", description = "Retrieves all portfolios for the specified user")
@@ -37,6 +72,19 @@ public class PortfolioController {
         return ResponseEntity.ok(portfolioService.getAllPortfolios(userId));
     }
 
+    @Operation(summary = "Get portfolio summaries for a user",
+            description = "Pages through id, name, totalValue and holdingCount of the user's portfolios without loading holdings. Sortable by id, name, totalValue and holdingCount.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Summaries retrieved successfully")
+    })
+    @GetMapping("/summary")
+    public ResponseEntity<Page<PortfolioSummary>> getPortfolioSummaries(
+            @Parameter(description = "ID of the user")
+            @RequestParam String userId,
+            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+        return ResponseEntity.ok(portfolioService.getPortfolioSummaries(userId, pageable));
+    }
+
     @PostMapping
     @Operation(summary = "Create a new portfolio")
     @ApiResponses(value = {
@@ -48,18 +96,77 @@ public class PortfolioController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdPortfolio);
     }
 
-    @Operation(summary = "Get portfolio by ID", description = "Retrieves a portfolio by its ID")
+    @Operation(summary = "Bulk import trades",
+            description = "Replays an NDJSON ({\"portfolioId\",\"symbol\",\"quantity\",\"price\"}) or CSV (portfolioId,symbol,quantity[,price]) trade stream across many portfolios. Negative quantities reduce a holding.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished, see per-row errors and throughput")
+    })
+    @PostMapping(value = "/trades/import", consumes = {UploadFormat.NDJSON_VALUE, UploadFormat.CSV_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<TradeImportResult> importTrades(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(tradeImportService.importTrades(body, UploadFormat.fromContentType(contentType)));
+    }
+
+    @Operation(summary = "Get portfolio by ID",
+            description = "Retrieves a portfolio by its ID. The ETag covers the holdings and the prices of their symbols; very large portfolios are streamed, gzip-compressed if accepted.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Portfolio found"),
+        @ApiResponse(responseCode = "304", description = "Portfolio unchanged since the ETag in If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Portfolio not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Portfolio> getPortfolio(
+    public ResponseEntity<?> getPortfolio(
             @Parameter(description = "ID of the portfolio")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
+        // Large portfolios are written from one snapshot, so the tag names exactly the body sent
+        PortfolioValuationEngine.ValuationSnapshot snapshot = largeSnapshot(id);
+        if (snapshot != null) {
+            if (request.checkNotModified(snapshot.tag())) {
+                return null;
+            }
+            boolean gzip = acceptsGzip(request);
+            return streamed(gzip, portfolioJsonWriter.portfolio(id, snapshot, gzip));
+        }
+        String tag = portfolioService.getValuationTag(id);
+        if (tag == null) {
+            return ResponseEntity.ok(portfolioService.getPortfolio(id));
+        }
+        // Tag read before the body, so the body is never older than the tag it is sent with
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
         return ResponseEntity.ok(portfolioService.getPortfolio(id));
     }
 
+    @Operation(summary = "Stream portfolio valuation", description = "Pushes valuation deltas (changed holdings and the new total value) as Server-Sent Events")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream opened, the first event carries the full current valuation"),
+        @ApiResponse(responseCode = "404", description = "Portfolio not found")
+    })
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamValuation(
+            @Parameter(description = "ID of the portfolio")
+            @PathVariable Long id) {
+        return valuationStreamService.subscribe(portfolioService.getPortfolio(id));
+    }
+
+    @Operation(summary = "Get portfolio risk",
+            description = "Returns volatility and 95%/99% historical and parametric Value-at-Risk per return interval, computed live or taken from the last nightly batch")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Risk computed successfully"),
+        @ApiResponse(responseCode = "404", description = "Portfolio not found or not in the last batch")
+    })
+    @GetMapping("/{id}/risk")
+    public ResponseEntity<PortfolioRisk> getPortfolioRisk(
+            @Parameter(description = "ID of the portfolio")
+            @PathVariable Long id,
+            @Parameter(description = "live to compute now, batch for the result of the last batch run")
+            @RequestParam(defaultValue = "live") String source) {
+        return ResponseEntity.ok("batch".equalsIgnoreCase(source) ? riskService.getBatchRisk(id) : riskService.getRisk(id));
+    }
+
     @Operation(summary = "Add stock to portfolio", description = "Adds a new stock to an existing portfolio")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Stock added successfully"),
@@ -96,15 +203,33 @@ public class PortfolioController {
         return ResponseEntity.ok(portfolioService.getPortfolio(portfolioId));
     }
 
-    @Operation(summary = "Get portfolio holdings", description = "Retrieves all stock holdings in a portfolio")
+    @Operation(summary = "Get portfolio holdings",
+            description = "Retrieves all stock holdings in a portfolio, with the same ETag and streaming behaviour as the portfolio itself")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Holdings retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Holdings unchanged since the ETag in If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Portfolio not found")
     })
     @GetMapping("/{portfolioId}/holdings")
-    public ResponseEntity<List<StockHolding>> getPortfolioHoldings(
+    public ResponseEntity<?> getPortfolioHoldings(
             @Parameter(description = "ID of the portfolio")
-            @PathVariable Long portfolioId) {
+            @PathVariable Long portfolioId,
+            WebRequest request) {
+        PortfolioValuationEngine.ValuationSnapshot snapshot = largeSnapshot(portfolioId);
+        if (snapshot != null) {
+            if (request.checkNotModified(snapshot.tag())) {
+                return null;
+            }
+            boolean gzip = acceptsGzip(request);
+            return streamed(gzip, portfolioJsonWriter.holdings(snapshot, gzip));
+        }
+        String tag = portfolioService.getValuationTag(portfolioId);
+        if (tag == null) {
+            return ResponseEntity.ok(portfolioService.getPortfolioHoldings(portfolioId));
+        }
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
         return ResponseEntity.ok(portfolioService.getPortfolioHoldings(portfolioId));
     }
 
@@ -124,4 +249,25 @@ public class PortfolioController {
             @RequestParam Integer quantity) {
         return ResponseEntity.ok(portfolioService.reduceStockQuantity(portfolioId, symbol, quantity));
     }
+
+    private PortfolioValuationEngine.ValuationSnapshot largeSnapshot(Long portfolioId) {
+        return portfolioService.getHoldingCount(portfolioId) >= streamThreshold
+                ? portfolioService.getValuationSnapshot(portfolioId)
+                : null;
+    }
+
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static ResponseEntity<StreamingResponseBody> streamed(boolean gzip, StreamingResponseBody body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
 }
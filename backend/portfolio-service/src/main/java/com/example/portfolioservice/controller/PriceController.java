@@ -0,0 +1,69 @@
+package com.example.portfolioservice.controller;
+
+import com.example.portfolioservice.model.PriceBatchResult;
+import com.example.portfolioservice.model.PriceHistory;
+import com.example.portfolioservice.service.PriceHistoryService;
+import com.example.portfolioservice.service.PriceIngestionService;
+import com.example.portfolioservice.service.UploadFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/prices")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:4201"})
+@Tag(name = "Price Controller", description = "APIs for ingesting market prices and querying price history")
+public class PriceController {
+    private static final long DEFAULT_HISTORY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final PriceIngestionService priceIngestionService;
+    private final PriceHistoryService priceHistoryService;
+
+    public PriceController(PriceIngestionService priceIngestionService, PriceHistoryService priceHistoryService) {
+        this.priceIngestionService = priceIngestionService;
+        this.priceHistoryService = priceHistoryService;
+    }
+
+    @Operation(summary = "Ingest a batch of price ticks",
+            description = "Accepts an NDJSON ({\"symbol\",\"price\",\"timestamp\"}) or CSV (symbol,price[,timestamp]) tick stream and applies it as one batch")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch applied, see accepted/rejected counts")
+    })
+    @PostMapping(value = "/batch", consumes = {UploadFormat.NDJSON_VALUE, UploadFormat.CSV_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<PriceBatchResult> ingestBatch(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(priceIngestionService.ingest(body, UploadFormat.fromContentType(contentType)));
+    }
+
+    @Operation(summary = "Get price history",
+            description = "Returns the recorded ticks of a symbol in a time window, or OHLC bars when an interval (e.g. 1m, 5m, 1h) is given")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "History returned, empty if the symbol has no ticks in the window")
+    })
+    @GetMapping("/{symbol}/history")
+    public ResponseEntity<PriceHistory> getHistory(
+            @Parameter(description = "Stock symbol")
+            @PathVariable String symbol,
+            @Parameter(description = "Start of the window in epoch milliseconds, defaults to one day before 'to'")
+            @RequestParam(required = false) Long from,
+            @Parameter(description = "End of the window in epoch milliseconds, defaults to now")
+            @RequestParam(required = false) Long to,
+            @Parameter(description = "Bar interval such as 1m or PT5M; raw ticks if omitted")
+            @RequestParam(required = false) String interval) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_HISTORY_MILLIS;
+        long intervalMillis = interval != null ? DurationStyle.detectAndParse(interval).toMillis() : 0L;
+        return ResponseEntity.ok(priceHistoryService.getHistory(symbol, start, end, intervalMillis));
+    }
+}
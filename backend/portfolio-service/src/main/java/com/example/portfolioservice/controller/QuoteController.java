@@ -0,0 +1,39 @@
+package com.example.portfolioservice.controller;
+
+import com.example.portfolioservice.model.StockQuote;
+import com.example.portfolioservice.service.QuoteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/quotes")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:4201"})
+@Tag(name = "Quote Controller", description = "APIs for current stock quotes")
+public class QuoteController {
+    private final QuoteService quoteService;
+
+    public QuoteController(QuoteService quoteService) {
+        this.quoteService = quoteService;
+    }
+
+    @Operation(summary = "Get quotes for many symbols",
+            description = "Returns current price, open, high, low, previous close and change of each symbol in one response. "
+                    + "At most portfolio.quotes.max-new-symbols symbols not seen before are looked up per request; "
+                    + "the rest are left out")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Quotes retrieved successfully, in request order")
+    })
+    @GetMapping
+    public ResponseEntity<List<StockQuote>> getQuotes(
+            @Parameter(description = "Comma-separated stock symbols, e.g. AAPL,MSFT")
+            @RequestParam List<String> symbols) {
+        return ResponseEntity.ok(quoteService.getQuotes(symbols));
+    }
+}
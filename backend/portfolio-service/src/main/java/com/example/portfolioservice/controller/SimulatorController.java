@@ -0,0 +1,64 @@
+package com.example.portfolioservice.controller;
+
+import com.example.portfolioservice.model.SimulatorStatus;
+import com.example.portfolioservice.service.MarketSimulator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/simulator")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:4201"})
+@ConditionalOnProperty(prefix = "market-data", name = "provider", havingValue = "simulator")
+@Tag(name = "Simulator Controller", description = "APIs for controlling the synthetic market simulator")
+public class SimulatorController {
+    private final MarketSimulator marketSimulator;
+
+    public SimulatorController(MarketSimulator marketSimulator) {
+        this.marketSimulator = marketSimulator;
+    }
+
+    @Operation(summary = "Get simulator status", description = "Returns whether the simulator runs, its seed, and target and achieved tick rates")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Status retrieved successfully")
+    })
+    @GetMapping
+    public ResponseEntity<SimulatorStatus> getStatus() {
+        return ResponseEntity.ok(marketSimulator.status());
+    }
+
+    @Operation(summary = "Start the simulator", description = "Continues the price paths from where they stopped")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Simulator running")
+    })
+    @PostMapping("/start")
+    public ResponseEntity<SimulatorStatus> start() {
+        marketSimulator.start();
+        return ResponseEntity.ok(marketSimulator.status());
+    }
+
+    @Operation(summary = "Stop the simulator")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Simulator stopped")
+    })
+    @PostMapping("/stop")
+    public ResponseEntity<SimulatorStatus> stop() {
+        marketSimulator.stop();
+        return ResponseEntity.ok(marketSimulator.status());
+    }
+
+    @Operation(summary = "Reset the simulator", description = "Restarts every price path from its initial price and the seed; the simulator must be stopped")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Simulator reset"),
+        @ApiResponse(responseCode = "500", description = "Simulator is running")
+    })
+    @PostMapping("/reset")
+    public ResponseEntity<SimulatorStatus> reset() {
+        marketSimulator.reset();
+        return ResponseEntity.ok(marketSimulator.status());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.portfolioservice.controller;
+
+import com.example.portfolioservice.model.SymbolSearchResult;
+import com.example.portfolioservice.service.SymbolSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/symbols")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:4201"})
+@Tag(name = "Symbol Controller", description = "APIs for looking up stock symbols")
+public class SymbolController {
+    private static final int MAX_LIMIT = 50;
+
+    private final SymbolSearchService symbolSearchService;
+
+    public SymbolController(SymbolSearchService symbolSearchService) {
+        this.symbolSearchService = symbolSearchService;
+    }
+
+    @Operation(summary = "Search symbols",
+            description = "Finds symbols by exact symbol, symbol prefix, company name word prefix, substring and, failing those, close misspellings, ranked in that order")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matches retrieved successfully")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<SymbolSearchResult>> search(
+            @Parameter(description = "Symbol or company name, complete or partial")
+            @RequestParam String q,
+            @Parameter(description = "Number of matches to return, at most 50")
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(symbolSearchService.search(q, Math.max(0, Math.min(limit, MAX_LIMIT))));
+    }
+}
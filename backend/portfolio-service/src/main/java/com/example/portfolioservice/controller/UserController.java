@@ -0,0 +1,35 @@
+package com.example.portfolioservice.controller;
+
+import com.example.portfolioservice.model.UserExposure;
+import com.example.portfolioservice.service.UserExposureService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:4201"})
+@Tag(name = "User Controller", description = "APIs for aggregates across all portfolios of a user")
+public class UserController {
+    private final UserExposureService userExposureService;
+
+    public UserController(UserExposureService userExposureService) {
+        this.userExposureService = userExposureService;
+    }
+
+    @Operation(summary = "Get a user's exposure",
+            description = "Returns quantity, cost basis and market value per symbol summed over all portfolios of the user, served from memory")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exposure retrieved successfully")
+    })
+    @GetMapping("/{userId}/exposure")
+    public ResponseEntity<UserExposure> getExposure(
+            @Parameter(description = "ID of the user")
+            @PathVariable String userId) {
+        return ResponseEntity.ok(userExposureService.getExposure(userId));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.portfolioservice.metrics;
+
+import com.example.portfolioservice.service.MarketDataClient;
+import com.example.portfolioservice.service.MarketDataService;
+import com.example.portfolioservice.service.PriceStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exposes the price cache counters kept by {@link MarketDataService} and the age of the latest
+ * price per symbol. The counters are read on scrape; staleness is sampled on a fixed delay and
+ * limited to a bounded number of symbols to keep tag cardinality in check.
+ */
+public class MarketDataMetrics implements MeterBinder {
+    private final MarketDataService marketDataService;
+    private final int maxStalenessSymbols;
+    private MultiGauge staleness;
+    private volatile double maxStalenessSeconds;
+
+    public MarketDataMetrics(MarketDataService marketDataService, int maxStalenessSymbols) {
+        this.marketDataService = marketDataService;
+        this.maxStalenessSymbols = maxStalenessSymbols;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("market.price.cache", marketDataService, MarketDataService::getCacheHits)
+                .tag("result", "hit")
+                .description("Price lookups served from the price store")
+                .register(registry);
+        FunctionCounter.builder("market.price.cache", marketDataService, MarketDataService::getCacheMisses)
+                .tag("result", "miss")
+                .description("Price lookups for symbols not in the price store")
+                .register(registry);
+        FunctionCounter.builder("market.price.fallback", marketDataService, MarketDataService::getRandomFallbacks)
+                .description("Prices generated randomly because no real price was available")
+                .register(registry);
+        MarketDataClient client = marketDataService.getMarketDataClient();
+        if (client != null) {
+            FunctionCounter.builder("market.provider.calls", client, MarketDataClient::getProviderCalls)
+                    .description("Batched calls to the market data provider")
+                    .register(registry);
+            FunctionCounter.builder("market.provider.coalesced", client, MarketDataClient::getCoalescedLookups)
+                    .description("Lookups that joined an in-flight provider call")
+                    .register(registry);
+        }
+        Gauge.builder("market.price.symbols", marketDataService, m -> m.getPriceStore().size())
+                .description("Symbols known to the price store")
+                .register(registry);
+        Gauge.builder("market.price.staleness.max", this, m -> m.maxStalenessSeconds)
+                .baseUnit("seconds")
+                .description("Age of the oldest latest price")
+                .register(registry);
+        staleness = MultiGauge.builder("market.price.staleness")
+                .baseUnit("seconds")
+                .description("Age of the latest price per symbol")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.metrics.staleness-refresh-ms:10000}")
+    public void refreshStaleness() {
+        if (staleness == null) {
+            return;
+        }
+        PriceStore priceStore = marketDataService.getPriceStore();
+        long now = System.currentTimeMillis();
+        int symbols = priceStore.size();
+        double max = 0.0;
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(Math.min(symbols, maxStalenessSymbols));
+        for (int id = 0; id < symbols; id++) {
+            double age = Math.max(0L, now - priceStore.timestamp(id)) / 1000.0;
+            max = Math.max(max, age);
+            if (id < maxStalenessSymbols) {
+                rows.add(MultiGauge.Row.of(Tags.of("symbol", priceStore.symbolOf(id)), age));
+            }
+        }
+        maxStalenessSeconds = max;
+        staleness.register(rows, true);
+    }
+}
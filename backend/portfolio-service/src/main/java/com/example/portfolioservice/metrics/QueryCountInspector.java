@@ -0,0 +1,30 @@
+package com.example.portfolioservice.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. The count is reset and
+ * recorded per request by {@link QueryCountInterceptor}.
+ *
+ * Hibernate statistics would give the same number, but they are global to the session factory,
+ * so concurrent requests would count each other's statements. An inspector runs on the thread
+ * that prepares the statement instead. It counts prepared SQL, not executions: a JDBC batch counts
+ * once however many rows it writes, and SQL run through {@code JdbcTemplate} is not counted.
+ */
+public class QueryCountInspector implements StatementInspector {
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+}
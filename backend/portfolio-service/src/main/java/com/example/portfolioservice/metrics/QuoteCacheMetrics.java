@@ -0,0 +1,39 @@
+package com.example.portfolioservice.metrics;
+
+import com.example.portfolioservice.service.QuoteCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exposes the hit, miss and eviction counters, size and hit ratio of the {@link QuoteCache}.
+ */
+public class QuoteCacheMetrics implements MeterBinder {
+    private final QuoteCache cache;
+
+    public QuoteCacheMetrics(QuoteCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("quote.cache.requests", cache, QuoteCache::getHits)
+                .tag("result", "hit")
+                .description("Quote lookups served from a fresh cache entry")
+                .register(registry);
+        FunctionCounter.builder("quote.cache.requests", cache, QuoteCache::getMisses)
+                .tag("result", "miss")
+                .description("Quote lookups that created or refreshed an entry")
+                .register(registry);
+        FunctionCounter.builder("quote.cache.evictions", cache, QuoteCache::getEvictions)
+                .description("Entries evicted to stay within the cache size")
+                .register(registry);
+        Gauge.builder("quote.cache.size", cache, QuoteCache::size)
+                .description("Symbols in the quote cache")
+                .register(registry);
+        Gauge.builder("quote.cache.hit.ratio", cache, QuoteCache::getHitRatio)
+                .description("Share of quote lookups served from a fresh cache entry")
+                .register(registry);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.portfolioservice.model;
+
+public enum AlertDirection {
+    ABOVE,
+    BELOW
+}
@@ -0,0 +1,21 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertEvent {
+    private Long alertId;
+    private String userId;
+    private String symbol;
+    private Long portfolioId;
+    private AlertDirection direction;
+    private double threshold;
+    private double value;
+    private long timestamp;
+}
@@ -0,0 +1,16 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldingValue {
+    private String symbol;
+    private Integer quantity;
+    private Double currentValue;
+}
@@ -0,0 +1,20 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    private int rank;
+    private Long portfolioId;
+    private String userId;
+    private String name;
+    private double totalValue;
+    private double costBasis;
+    private double unrealizedReturn;
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,7 +14,9 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "portfolios")
+@Table(name = "portfolios", indexes = {
+    @Index(name = "idx_portfolios_user_id", columnList = "user_id")
+})
 public class Portfolio {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,4 +34,11 @@ public class Portfolio {
 
     @Column(nullable = false)
     private Double totalValue = 0.0;
+
+    // Number of trade ledger events committed for this portfolio, maintained in SQL by the
+    // TradeLedgerService so it commits together with the trade
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long ledgerVersion;
 } 
\ No newline at end of file
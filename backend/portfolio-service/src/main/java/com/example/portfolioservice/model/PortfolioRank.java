@@ -0,0 +1,22 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PortfolioRank {
+    private Long portfolioId;
+    private String userId;
+    private double totalValue;
+    private double costBasis;
+    private double unrealizedReturn;
+    private int valueRank;
+    private int returnRank;
+    private int portfolios;
+    private int userValueRank;
+    private int userReturnRank;
+    private int userPortfolios;
+}
@@ -0,0 +1,27 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PortfolioRisk {
+    private Long portfolioId;
+    private String source;
+    private Long computedAt;
+    private Long intervalMillis;
+    private int observations;
+    private double totalValue;
+    private double volatility;
+    private double annualizedVolatility;
+    private double historicalVar95;
+    private double historicalVar99;
+    private double parametricVar95;
+    private double parametricVar99;
+    private List<String> symbolsWithoutHistory = new ArrayList<>();
+}
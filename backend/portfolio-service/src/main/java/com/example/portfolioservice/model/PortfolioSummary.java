@@ -0,0 +1,17 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioSummary {
+    private Long id;
+    private String name;
+    private Double totalValue;
+    private Long holdingCount;
+}
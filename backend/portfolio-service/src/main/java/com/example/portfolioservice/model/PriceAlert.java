@@ -0,0 +1,18 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PriceAlert {
+    private Long id;
+    private String userId;
+    private String symbol;
+    private Long portfolioId;
+    private AlertDirection direction;
+    private Double threshold;
+    private Long createdAt;
+}
@@ -0,0 +1,19 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBar {
+    private Long timestamp;
+    private Double open;
+    private Double high;
+    private Double low;
+    private Double close;
+    private Integer ticks;
+}
@@ -0,0 +1,17 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PriceBatchResult {
+    private int accepted;
+    private int rejected;
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PriceHistory {
+    private String symbol;
+    private Long from;
+    private Long to;
+    private Long intervalMillis;
+    private boolean truncated;
+    private List<PriceTick> ticks = new ArrayList<>();
+    private List<PriceBar> bars = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulatorStatus {
+    private boolean running;
+    private long seed;
+    private int symbols;
+    private int targetTicksPerSecond;
+    private long ticks;
+    private double ticksPerSecond;
+    private long lagResets;
+}
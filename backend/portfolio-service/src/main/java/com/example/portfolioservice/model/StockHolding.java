@@ -12,10 +12,13 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Entity
 @Table(name = "stock_holdings", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"portfolio_id", "symbol"})
+}, indexes = {
+    @Index(name = "idx_stock_holdings_portfolio_id", columnList = "portfolio_id")
 })
 public class StockHolding {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_holdings_seq")
+    @SequenceGenerator(name = "stock_holdings_seq", sequenceName = "stock_holdings_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
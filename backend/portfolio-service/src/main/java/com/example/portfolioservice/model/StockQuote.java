@@ -0,0 +1,21 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class StockQuote {
+    private String symbol;
+    private double currentPrice;
+    private double openPrice;
+    private double highPrice;
+    private double lowPrice;
+    // Null until the symbol has a tick from before the current day
+    private Double previousClose;
+    private Double change;
+    private Double changePercent;
+    private long timestamp;
+}
@@ -0,0 +1,18 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SymbolExposure {
+    private String symbol;
+    private long quantity;
+    private int portfolios;
+    private double costBasis;
+    private double marketValue;
+}
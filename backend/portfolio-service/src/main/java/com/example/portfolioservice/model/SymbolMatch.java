@@ -0,0 +1,12 @@
+package com.example.portfolioservice.model;
+
+/**
+ * How a search result matched the query, from the strongest to the weakest match.
+ */
+public enum SymbolMatch {
+    EXACT,
+    PREFIX,
+    NAME_PREFIX,
+    SUBSTRING,
+    FUZZY
+}
@@ -0,0 +1,18 @@
+package com.example.portfolioservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SymbolSearchResult {
+    private String symbol;
+    private String name;
+    private String type;
+    private String exchange;
+    private SymbolMatch match;
+}
@@ -0,0 +1,24 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class TradeImportResult {
+    private int rowsRead;
+    private int rowsAccepted;
+    private int rowsRejected;
+    private int portfoliosAffected;
+    private int holdingsCreated;
+    private int holdingsUpdated;
+    private int holdingsRemoved;
+    private long elapsedMillis;
+    private double tradesPerSecond;
+    private List<String> errors = new ArrayList<>();
+}
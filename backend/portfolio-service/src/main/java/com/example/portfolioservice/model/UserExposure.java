@@ -0,0 +1,20 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserExposure {
+    private String userId;
+    private int portfolios;
+    private double costBasis;
+    private double marketValue;
+    private Long timestamp;
+    private List<SymbolExposure> symbols = new ArrayList<>();
+}
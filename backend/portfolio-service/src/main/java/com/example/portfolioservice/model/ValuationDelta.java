@@ -0,0 +1,19 @@
+package com.example.portfolioservice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ValuationDelta {
+    private Long portfolioId;
+    private Double totalValue;
+    private List<HoldingValue> holdings = new ArrayList<>();
+    private long droppedEvents;
+    private long timestamp;
+}
@@ -1,12 +1,35 @@
 package com.example.portfolioservice.repository;
 
 import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.PortfolioSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
     List<Portfolio> findByUserId(String userId);
-} 
\ No newline at end of file
+
+    @EntityGraph(attributePaths = "holdings")
+    @Query("select p from Portfolio p where p.userId = :userId")
+    List<Portfolio> findWithHoldingsByUserId(@Param("userId") String userId);
+
+    @EntityGraph(attributePaths = "holdings")
+    @Query("select p from Portfolio p where p.id in :ids")
+    List<Portfolio> findWithHoldingsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id from Portfolio p order by p.id desc")
+    List<Long> findRecentIds(Pageable pageable);
+
+    @Query(value = "select new com.example.portfolioservice.model.PortfolioSummary(p.id, p.name, p.totalValue, count(h)) "
+            + "from Portfolio p left join p.holdings h where p.userId = :userId group by p.id, p.name, p.totalValue",
+            countQuery = "select count(p) from Portfolio p where p.userId = :userId")
+    Page<PortfolioSummary> findSummariesByUserId(@Param("userId") String userId, Pageable pageable);
+}
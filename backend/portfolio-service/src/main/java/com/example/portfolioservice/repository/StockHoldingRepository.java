@@ -2,8 +2,11 @@ package com.example.portfolioservice.repository;
 
 import com.example.portfolioservice.model.StockHolding;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +15,7 @@ public interface StockHoldingRepository extends JpaRepository<StockHolding, Long
     List<StockHolding> findByPortfolioId(Long portfolioId);
     void deleteByPortfolioIdAndSymbol(Long portfolioId, String symbol);
     Optional<StockHolding> findByPortfolioIdAndSymbol(Long portfolioId, String symbol);
+
+    @Query("select distinct h.symbol from StockHolding h where h.portfolio.id in :portfolioIds")
+    List<String> findSymbolsByPortfolioIdIn(@Param("portfolioIds") Collection<Long> portfolioIds);
 } 
\ No newline at end of file
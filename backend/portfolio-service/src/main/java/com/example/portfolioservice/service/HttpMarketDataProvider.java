@@ -0,0 +1,107 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Quote;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches quotes from an HTTP endpoint answering
+ * {@code GET {base-url}/quotes?symbols=A,B,C} with a JSON array of
+ * {@code {"symbol": "A", "price": 1.0, "timestamp": 1700000000000}} objects.
+ *
+ * Requests go through one shared {@link HttpClient}, which keeps connections alive and reuses
+ * them, and are spaced by a {@link RateLimiter}. A 429 response pauses the limiter for the
+ * duration given in Retry-After.
+ */
+public class HttpMarketDataProvider implements MarketDataProvider {
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper;
+    private final URI baseUri;
+    private final String apiKey;
+    private final Duration requestTimeout;
+    private final RateLimiter rateLimiter;
+
+    public HttpMarketDataProvider(URI baseUri, String apiKey, Duration connectTimeout, Duration requestTimeout,
+                                  double maxRequestsPerSecond, ExecutorService executor, ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.apiKey = apiKey;
+        this.requestTimeout = requestTimeout;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = new RateLimiter(maxRequestsPerSecond);
+        this.executor = executor;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Quote>> fetchQuotes(List<String> symbols) {
+        String query = URLEncoder.encode(String.join(",", symbols), StandardCharsets.UTF_8);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUri + "/quotes?symbols=" + query))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET();
+        if (apiKey != null && !apiKey.isBlank()) {
+            builder.header("X-API-Key", apiKey);
+        }
+        HttpRequest request = builder.build();
+
+        long delay = rateLimiter.reserve();
+        CompletableFuture<Void> permit = delay > 0
+                ? CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor))
+                : CompletableFuture.completedFuture(null);
+        return permit
+                .thenCompose(ignored -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()))
+                .thenApply(this::parse);
+    }
+
+    private Map<String, Quote> parse(HttpResponse<byte[]> response) {
+        if (response.statusCode() == 429) {
+            long seconds = response.headers().firstValueAsLong("Retry-After").orElse(DEFAULT_RETRY_AFTER_SECONDS);
+            rateLimiter.pause(TimeUnit.SECONDS.toNanos(seconds));
+            throw new RuntimeException("Market data provider rate limit exceeded");
+        }
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("Market data provider returned status " + response.statusCode());
+        }
+        try {
+            JsonNode root = objectMapper.readTree(response.body());
+            Map<String, Quote> quotes = new HashMap<>();
+            long now = System.currentTimeMillis();
+            for (JsonNode node : root) {
+                String symbol = node.path("symbol").asText(null);
+                double price = node.path("price").asDouble(Double.NaN);
+                if (symbol != null && price > 0 && !Double.isInfinite(price)) {
+                    quotes.put(symbol, new Quote(symbol, price, node.path("timestamp").asLong(now)));
+                }
+            }
+            return quotes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid market data response", e);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
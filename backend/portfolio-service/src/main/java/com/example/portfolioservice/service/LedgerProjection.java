@@ -0,0 +1,178 @@
+package com.example.portfolioservice.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Portfolios and positions as they follow from the trade ledger. Not thread-safe; the ledger
+ * applies events and takes snapshots under its own lock.
+ */
+public class LedgerProjection {
+    private final Map<Long, PortfolioState> portfolios = new HashMap<>();
+    private long events;
+
+    public static final class PortfolioState {
+        String name;
+        String userId;
+        long events;
+        final Map<String, Position> positions = new LinkedHashMap<>();
+
+        public String getName() {
+            return name;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public Map<String, Position> getPositions() {
+            return positions;
+        }
+
+        /**
+         * Events of this portfolio in the ledger; matches the portfolio's ledger version in the
+         * database when neither side lost a committed trade.
+         */
+        public long getEvents() {
+            return events;
+        }
+    }
+
+    public static final class Position {
+        int quantity;
+        double averagePrice;
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getAveragePrice() {
+            return averagePrice;
+        }
+    }
+
+    public void apply(TradeEvent event) {
+        events++;
+        PortfolioState portfolio = portfolios.computeIfAbsent(event.portfolioId(), id -> new PortfolioState());
+        portfolio.events++;
+        switch (event.type()) {
+            case PORTFOLIO_CREATED -> {
+                portfolio.name = event.name();
+                portfolio.userId = event.userId();
+            }
+            case BUY -> {
+                Position position = portfolio.positions.computeIfAbsent(event.symbol(), s -> new Position());
+                position.averagePrice = PortfolioService.averagePrice(position.quantity, position.averagePrice,
+                        event.quantity(), event.price());
+                position.quantity += event.quantity();
+            }
+            case SELL -> {
+                Position position = portfolio.positions.get(event.symbol());
+                if (position != null) {
+                    position.quantity -= event.quantity();
+                    if (position.quantity <= 0) {
+                        portfolio.positions.remove(event.symbol());
+                    }
+                }
+            }
+            case REMOVE -> portfolio.positions.remove(event.symbol());
+        }
+    }
+
+    public Map<Long, PortfolioState> getPortfolios() {
+        return portfolios;
+    }
+
+    public PortfolioState portfolio(long portfolioId) {
+        return portfolios.get(portfolioId);
+    }
+
+    /**
+     * Events applied since this projection was created, including those restored from a snapshot.
+     */
+    public long eventCount() {
+        return events;
+    }
+
+    /**
+     * Deep copy, for readers that must not hold the ledger lock while they work.
+     */
+    public LedgerProjection copy() {
+        LedgerProjection copy = new LedgerProjection();
+        copy.events = events;
+        portfolios.forEach((id, portfolio) -> {
+            PortfolioState state = new PortfolioState();
+            state.name = portfolio.name;
+            state.userId = portfolio.userId;
+            state.events = portfolio.events;
+            portfolio.positions.forEach((symbol, position) -> {
+                Position p = new Position();
+                p.quantity = position.quantity;
+                p.averagePrice = position.averagePrice;
+                state.positions.put(symbol, p);
+            });
+            copy.portfolios.put(id, state);
+        });
+        return copy;
+    }
+
+    void clear() {
+        portfolios.clear();
+        events = 0;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(events);
+        out.writeInt(portfolios.size());
+        for (Map.Entry<Long, PortfolioState> entry : portfolios.entrySet()) {
+            PortfolioState portfolio = entry.getValue();
+            out.writeLong(entry.getKey());
+            writeNullable(out, portfolio.name);
+            writeNullable(out, portfolio.userId);
+            out.writeLong(portfolio.events);
+            out.writeInt(portfolio.positions.size());
+            for (Map.Entry<String, Position> position : portfolio.positions.entrySet()) {
+                out.writeUTF(position.getKey());
+                out.writeInt(position.getValue().quantity);
+                out.writeDouble(position.getValue().averagePrice);
+            }
+        }
+    }
+
+    void read(DataInputStream in) throws IOException {
+        portfolios.clear();
+        events = in.readLong();
+        int portfolioCount = in.readInt();
+        for (int i = 0; i < portfolioCount; i++) {
+            PortfolioState portfolio = new PortfolioState();
+            long id = in.readLong();
+            portfolio.name = readNullable(in);
+            portfolio.userId = readNullable(in);
+            portfolio.events = in.readLong();
+            int positionCount = in.readInt();
+            for (int j = 0; j < positionCount; j++) {
+                String symbol = in.readUTF();
+                Position position = new Position();
+                position.quantity = in.readInt();
+                position.averagePrice = in.readDouble();
+                portfolio.positions.put(symbol, position);
+            }
+            portfolios.put(id, portfolio);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Quote;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Front for a {@link MarketDataProvider} that coalesces and batches lookups.
+ *
+ * Concurrent lookups of the same symbol share one in-flight future (single-flight). Symbols
+ * requested within the batch window are sent to the provider in one call, or earlier once the
+ * batch is full. Every provider call is bounded by the lookup timeout.
+ */
+public class MarketDataClient {
+    private final MarketDataProvider provider;
+    private final long batchWindowMillis;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, CompletableFuture<Quote>> inFlight = new ConcurrentHashMap<>();
+    private final Object batchLock = new Object();
+    private Set<String> pending = new LinkedHashSet<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private final LongAdder providerCalls = new LongAdder();
+    private final LongAdder coalescedLookups = new LongAdder();
+
+    public MarketDataClient(MarketDataProvider provider, Duration batchWindow, int maxBatchSize, Duration timeout) {
+        this.provider = provider;
+        this.batchWindowMillis = batchWindow.toMillis();
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "market-data-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Quote> quote(String symbol) {
+        CompletableFuture<Quote> created = new CompletableFuture<>();
+        CompletableFuture<Quote> existing = inFlight.putIfAbsent(symbol, created);
+        if (existing != null) {
+            coalescedLookups.increment();
+            return existing;
+        }
+        enqueue(symbol);
+        return created;
+    }
+
+    private void enqueue(String symbol) {
+        List<String> batch = null;
+        synchronized (batchLock) {
+            pending.add(symbol);
+            if (pending.size() >= maxBatchSize || batchWindowMillis <= 0) {
+                batch = takePending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    private void flush() {
+        List<String> batch;
+        synchronized (batchLock) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<String> takePending() {
+        List<String> batch = new ArrayList<>(pending);
+        pending = new LinkedHashSet<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<String> symbols) {
+        providerCalls.increment();
+        CompletableFuture<Map<String, Quote>> call;
+        try {
+            call = provider.fetchQuotes(symbols);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((quotes, error) -> {
+            for (String symbol : symbols) {
+                CompletableFuture<Quote> future = inFlight.get(symbol);
+                if (future == null) {
+                    continue;
+                }
+                Quote quote = quotes != null ? quotes.get(symbol) : null;
+                if (quote != null) {
+                    future.complete(quote);
+                } else {
+                    future.completeExceptionally(error != null ? error : new RuntimeException("No quote for " + symbol));
+                }
+                inFlight.remove(symbol, future);
+            }
+        });
+    }
+
+    public long getProviderCalls() {
+        return providerCalls.sum();
+    }
+
+    public long getCoalescedLookups() {
+        return coalescedLookups.sum();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
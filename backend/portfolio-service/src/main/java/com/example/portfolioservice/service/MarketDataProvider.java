@@ -0,0 +1,20 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Quote;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of quotes for symbols the service has no price for yet. Implementations are called
+ * with batches of distinct symbols and must not block the calling thread.
+ */
+public interface MarketDataProvider {
+
+    /**
+     * Fetches quotes for the given symbols. Symbols the provider does not know are left out of
+     * the returned map.
+     */
+    CompletableFuture<Map<String, Quote>> fetchQuotes(List<String> symbols);
+}
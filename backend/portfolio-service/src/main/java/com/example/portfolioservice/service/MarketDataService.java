@@ -1,38 +1,229 @@
 package com.example.portfolioservice.service;
 
+import com.example.portfolioservice.model.Quote;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.HashMap;
-import java.util.Map;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class MarketDataService {
-    private final Map<String, Double> stockPrices = new HashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(MarketDataService.class);
+
+    private final PriceStore priceStore = new PriceStore();
+    private final List<PriceListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder randomFallbacks = new LongAdder();
+    private final MarketDataClient marketDataClient;
+    private final long lookupTimeoutMillis;
 
     public MarketDataService() {
+        this(null, 0L);
+    }
+
+    @Autowired
+    public MarketDataService(ObjectProvider<MarketDataProvider> provider,
+                             @Value("${market-data.batch-window-ms:5}") long batchWindowMillis,
+                             @Value("${market-data.max-batch-size:50}") int maxBatchSize,
+                             @Value("${market-data.lookup-timeout-ms:2000}") long lookupTimeoutMillis) {
+        this(client(provider.getIfAvailable(), batchWindowMillis, maxBatchSize, lookupTimeoutMillis), lookupTimeoutMillis);
+    }
+
+    public MarketDataService(MarketDataClient marketDataClient, long lookupTimeoutMillis) {
+        this.marketDataClient = marketDataClient;
+        this.lookupTimeoutMillis = lookupTimeoutMillis;
         // Initialize with some sample prices
-        stockPrices.put("AAPL", 175.50);
-        stockPrices.put("GOOGL", 145.20);
-        stockPrices.put("MSFT", 425.30);
-        stockPrices.put("AMZN", 180.75);
-        stockPrices.put("META", 485.25);
-        stockPrices.put("TSLA", 175.80);
-        stockPrices.put("NVDA", 925.40);
-        stockPrices.put("JPM", 180.25);
-        stockPrices.put("V", 280.50);
-        stockPrices.put("WMT", 60.15);
+        long now = System.currentTimeMillis();
+        priceStore.register("AAPL", 175.50, now);
+        priceStore.register("GOOGL", 145.20, now);
+        priceStore.register("MSFT", 425.30, now);
+        priceStore.register("AMZN", 180.75, now);
+        priceStore.register("META", 485.25, now);
+        priceStore.register("TSLA", 175.80, now);
+        priceStore.register("NVDA", 925.40, now);
+        priceStore.register("JPM", 180.25, now);
+        priceStore.register("V", 280.50, now);
+        priceStore.register("WMT", 60.15, now);
+    }
+
+    /**
+     * Brings a symbol from an upload or request into the form prices are keyed by.
+     */
+    public static String normalizeSymbol(String symbol) {
+        return symbol.trim().toUpperCase(Locale.ROOT);
     }
 
     public Double getCurrentPrice(String symbol) {
-        Double price = stockPrices.get(symbol);
-        if (price == null) {
-            // For unknown stocks, generate a random price between 10 and 1000
-            price = 10.0 + Math.random() * 990.0;
-            stockPrices.put(symbol, price);
+        return getCurrentPrice(symbolId(symbol));
+    }
+
+    public double getCurrentPrice(int symbolId) {
+        return priceStore.price(symbolId);
+    }
+
+    /**
+     * Resolves the dense id of a symbol. Unknown symbols are registered with a price from the
+     * market data provider, or with a generated one if there is none or it fails.
+     */
+    public int symbolId(String symbol) {
+        int id = priceStore.idOf(symbol);
+        if (id >= 0) {
+            cacheHits.increment();
+            return id;
+        }
+        cacheMisses.increment();
+        return register(symbol, fetchQuote(symbol));
+    }
+
+    /**
+     * Resolves the ids of many symbols like {@link #symbolId(String)}. The unknown ones are
+     * requested from the market data provider together, so they share batched provider calls
+     * and one lookup timeout instead of waiting one after another.
+     */
+    public int[] symbolIds(List<String> symbols) {
+        int[] ids = new int[symbols.size()];
+        List<CompletableFuture<Quote>> lookups = new ArrayList<>(symbols.size());
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = priceStore.idOf(symbols.get(i));
+            if (ids[i] >= 0) {
+                cacheHits.increment();
+                lookups.add(null);
+            } else {
+                cacheMisses.increment();
+                lookups.add(marketDataClient != null ? marketDataClient.quote(symbols.get(i)) : null);
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lookupTimeoutMillis);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] < 0) {
+                CompletableFuture<Quote> lookup = lookups.get(i);
+                Quote quote = lookup != null ? await(symbols.get(i), lookup, deadline - System.nanoTime()) : null;
+                ids[i] = register(symbols.get(i), quote);
+            }
+        }
+        return ids;
+    }
+
+    private int register(String symbol, Quote quote) {
+        if (quote != null) {
+            return priceStore.register(symbol, quote.getPrice(), quote.getTimestamp());
+        }
+        // For unknown stocks, generate a random price between 10 and 1000
+        randomFallbacks.increment();
+        double price = 10.0 + ThreadLocalRandom.current().nextDouble() * 990.0;
+        return priceStore.register(symbol, price, System.currentTimeMillis());
+    }
+
+    private static MarketDataClient client(MarketDataProvider provider, long batchWindowMillis, int maxBatchSize,
+                                           long lookupTimeoutMillis) {
+        if (provider == null) {
+            return null;
+        }
+        return new MarketDataClient(provider, Duration.ofMillis(batchWindowMillis), maxBatchSize,
+                Duration.ofMillis(lookupTimeoutMillis));
+    }
+
+    private Quote fetchQuote(String symbol) {
+        if (marketDataClient == null) {
+            return null;
+        }
+        return await(symbol, marketDataClient.quote(symbol), TimeUnit.MILLISECONDS.toNanos(lookupTimeoutMillis));
+    }
+
+    private Quote await(String symbol, CompletableFuture<Quote> lookup, long timeoutNanos) {
+        try {
+            return lookup.get(Math.max(0L, timeoutNanos), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("No quote for {} from market data provider: {}", symbol, e.toString());
         }
-        return price;
+        return null;
     }
 
     public void updatePrice(String symbol, Double price) {
-        stockPrices.put(symbol, price);
+        long timestamp = System.currentTimeMillis();
+        double previous = priceStore.put(symbol, price, timestamp);
+        if (previous != price) {
+            int id = priceStore.idOf(symbol);
+            for (PriceListener listener : listeners) {
+                listener.onPriceUpdate(id, previous, price, timestamp);
+            }
+        }
+    }
+
+    /**
+     * Applies all ticks of the batch and notifies listeners once for the whole batch.
+     */
+    public void updatePrices(PriceTickBatch batch) {
+        int count = batch.size();
+        int[] symbolIds = new int[count];
+        double[] previousPrices = new double[count];
+        double[] prices = new double[count];
+        long[] timestamps = new long[count];
+        int changed = 0;
+        for (int i = 0; i < count; i++) {
+            double price = batch.price(i);
+            double previous = priceStore.put(batch.symbol(i), price, batch.timestamp(i));
+            if (previous != price) {
+                symbolIds[changed] = priceStore.idOf(batch.symbol(i));
+                previousPrices[changed] = previous;
+                prices[changed] = price;
+                timestamps[changed] = batch.timestamp(i);
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            for (PriceListener listener : listeners) {
+                listener.onPriceBatch(symbolIds, previousPrices, prices, timestamps, changed);
+            }
+        }
+    }
+
+    public void addPriceListener(PriceListener listener) {
+        listeners.add(listener);
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public long getRandomFallbacks() {
+        return randomFallbacks.sum();
+    }
+
+    public PriceStore getPriceStore() {
+        return priceStore;
+    }
+
+    public MarketDataClient getMarketDataClient() {
+        return marketDataClient;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (marketDataClient != null) {
+            marketDataClient.shutdown();
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,249 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.config.TaskExecutors;
+import com.example.portfolioservice.model.SimulatorStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates geometric Brownian motion price paths for a fixed symbol universe and feeds them to
+ * {@link MarketDataService#updatePrices} in batches, like any other price source. Each tick moves
+ * one symbol, picked uniformly, by one time step; symbol choice and shocks come from a single
+ * random stream seeded by {@code market-data.simulator.seed}, so the sequence of ticks is the
+ * same on every run with the same settings. Only the pacing depends on the machine.
+ */
+@Service
+@ConditionalOnProperty(prefix = "market-data", name = "provider", havingValue = "simulator")
+public class MarketSimulator {
+    private static final Logger log = LoggerFactory.getLogger(MarketSimulator.class);
+    private static final double TRADING_SECONDS_PER_YEAR = 252 * 6.5 * 3600;
+    private static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MarketDataService marketDataService;
+    private final long seed;
+    private final String[] symbols;
+    private final double[] initialPrices;
+    private final int ticksPerSecond;
+    private final int batchSize;
+    private final long maxTicks;
+    private final boolean autostart;
+    private final double driftStep;
+    private final double shockScale;
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong lagResets = new AtomicLong();
+    private double[] prices;
+    private SplittableRandom random;
+    private volatile Thread generator;
+    private volatile long startedAt;
+    private long ticksAtStart;
+
+    public MarketSimulator(MarketDataService marketDataService,
+                           SimulatedMarketDataProvider provider,
+                           @Value("${market-data.simulator.seed:42}") long seed,
+                           @Value("${market-data.simulator.symbols:}") List<String> symbols,
+                           @Value("${market-data.simulator.symbol-count:100}") int symbolCount,
+                           @Value("${market-data.simulator.ticks-per-second:1000}") int ticksPerSecond,
+                           @Value("${market-data.simulator.batch-size:1000}") int batchSize,
+                           @Value("${market-data.simulator.drift:0.05}") double drift,
+                           @Value("${market-data.simulator.volatility:0.2}") double volatility,
+                           @Value("${market-data.simulator.step-seconds:1}") double stepSeconds,
+                           @Value("${market-data.simulator.max-ticks:0}") long maxTicks,
+                           @Value("${market-data.simulator.autostart:true}") boolean autostart) {
+        if (ticksPerSecond <= 0 || batchSize <= 0 || stepSeconds <= 0 || volatility < 0) {
+            throw new IllegalArgumentException("Simulator rate, batch size and step must be positive");
+        }
+        this.marketDataService = marketDataService;
+        this.seed = seed;
+        this.symbols = universe(symbols, symbolCount);
+        this.ticksPerSecond = ticksPerSecond;
+        // Small batches at low rates keep ticks spread out, at least 100 batches per second
+        this.batchSize = Math.max(1, Math.min(batchSize, ticksPerSecond / 100));
+        this.maxTicks = maxTicks;
+        this.autostart = autostart;
+        double dt = stepSeconds / TRADING_SECONDS_PER_YEAR;
+        this.driftStep = (drift - volatility * volatility / 2) * dt;
+        this.shockScale = volatility * Math.sqrt(dt);
+
+        // Symbols the store already prices continue from there, new ones start from the seed
+        PriceStore priceStore = marketDataService.getPriceStore();
+        this.initialPrices = new double[this.symbols.length];
+        for (int i = 0; i < this.symbols.length; i++) {
+            int id = priceStore.idOf(this.symbols[i]);
+            initialPrices[i] = id >= 0 ? priceStore.price(id) : provider.initialPrice(this.symbols[i]);
+        }
+        reset();
+    }
+
+    private static String[] universe(List<String> symbols, int symbolCount) {
+        Set<String> universe = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            if (!symbol.isBlank()) {
+                universe.add(symbol.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        for (int i = 0; universe.size() < symbolCount; i++) {
+            universe.add(String.format("SIM%05d", i));
+        }
+        if (universe.isEmpty()) {
+            throw new IllegalArgumentException("Simulator needs at least one symbol");
+        }
+        return universe.toArray(new String[0]);
+    }
+
+    /**
+     * Puts every symbol back to its initial price and restarts the random stream from the seed.
+     */
+    public synchronized void reset() {
+        if (generator != null) {
+            throw new IllegalStateException("Simulator is running");
+        }
+        prices = initialPrices.clone();
+        random = new SplittableRandom(seed);
+        ticks.set(0);
+        lagResets.set(0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void autostart() {
+        if (autostart) {
+            start();
+        }
+    }
+
+    public synchronized void start() {
+        if (generator != null) {
+            return;
+        }
+        Thread thread = TaskExecutors.daemonThreads("market-simulator").newThread(this::run);
+        generator = thread;
+        startedAt = System.nanoTime();
+        ticksAtStart = ticks.get();
+        thread.start();
+        log.info("Market simulator started: {} symbols at {} ticks/s, seed {}", symbols.length, ticksPerSecond, seed);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            thread = generator;
+            generator = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.info("Market simulator stopped after {} ticks", ticks.get());
+        }
+    }
+
+    public SimulatorStatus status() {
+        boolean running = generator != null;
+        long total = ticks.get();
+        double rate = 0.0;
+        if (running) {
+            double elapsed = (System.nanoTime() - startedAt) / 1e9;
+            rate = elapsed > 0 ? (total - ticksAtStart) / elapsed : 0.0;
+        }
+        return new SimulatorStatus(running, seed, symbols.length, ticksPerSecond, total, rate, lagResets.get());
+    }
+
+    /**
+     * Generates and applies {@code count} ticks on the calling thread, without pacing.
+     */
+    public synchronized void generate(long count) {
+        PriceTickBatch batch = new PriceTickBatch(batchSize);
+        while (count > 0) {
+            int size = (int) Math.min(count, batchSize);
+            publish(batch, size);
+            count -= size;
+        }
+    }
+
+    private void run() {
+        PriceTickBatch batch = new PriceTickBatch(batchSize);
+        long batchNanos = TimeUnit.SECONDS.toNanos(1) * batchSize / ticksPerSecond;
+        long deadline = System.nanoTime();
+        try {
+            while (generator == Thread.currentThread()) {
+                int size = batchSize;
+                if (maxTicks > 0) {
+                    long remaining = maxTicks - ticks.get();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    size = (int) Math.min(size, remaining);
+                }
+                synchronized (this) {
+                    publish(batch, size);
+                }
+                deadline += batchNanos;
+                long wait = deadline - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (wait < -MAX_LAG_NANOS) {
+                    // Too far behind to catch up, continue at the target rate from now on
+                    lagResets.incrementAndGet();
+                    deadline = System.nanoTime();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Market simulator failed", e);
+        } finally {
+            synchronized (this) {
+                if (generator == Thread.currentThread()) {
+                    generator = null;
+                }
+            }
+        }
+    }
+
+    private void publish(PriceTickBatch batch, int size) {
+        batch.clear();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            int symbol = random.nextInt(symbols.length);
+            double price = prices[symbol] * Math.exp(driftStep + shockScale * gaussian());
+            prices[symbol] = price;
+            batch.add(symbols[symbol], price, now);
+        }
+        marketDataService.updatePrices(batch);
+        ticks.addAndGet(size);
+    }
+
+    private double gaussian() {
+        // Marsaglia polar method: SplittableRandom has no nextGaussian on Java 17
+        double u;
+        double v;
+        double s;
+        do {
+            u = 2 * random.nextDouble() - 1;
+            v = 2 * random.nextDouble() - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    public String[] getSymbols() {
+        return symbols.clone();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.portfolioservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk-loads {@code users x portfolios-per-user x holdings-per-portfolio} generated holdings with
+ * JDBC batches, bypassing the entity layer and the trade ledger. Symbols are drawn from a universe
+ * of the priced symbols padded with {@code SIM00000}, {@code SIM00001}, ... (the names the market
+ * simulator uses) with Zipf-distributed popularity, so a few symbols appear in most portfolios and
+ * the tail in very few. The data depends only on the settings and the seed.
+ */
+@Service
+public class PortfolioDataGenerator {
+    private static final Logger log = LoggerFactory.getLogger(PortfolioDataGenerator.class);
+
+    private static final String INSERT_PORTFOLIO =
+            "INSERT INTO portfolios (id, name, user_id, total_value) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_HOLDING =
+            "INSERT INTO stock_holdings (id, portfolio_id, symbol, quantity, average_price, current_value) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+    // allocationSize of the stock_holdings_seq generator
+    private static final int HOLDING_ID_BLOCK = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MarketDataService marketDataService;
+    private final int users;
+    private final int portfoliosPerUser;
+    private final int holdingsPerPortfolio;
+    private final int symbolCount;
+    private final double symbolSkew;
+    private final long seed;
+    private final int batchSize;
+
+    public PortfolioDataGenerator(JdbcTemplate jdbcTemplate,
+                                  MarketDataService marketDataService,
+                                  @Value("${portfolio.data.users:0}") int users,
+                                  @Value("${portfolio.data.portfolios-per-user:5}") int portfoliosPerUser,
+                                  @Value("${portfolio.data.holdings-per-portfolio:20}") int holdingsPerPortfolio,
+                                  @Value("${portfolio.data.symbol-count:1000}") int symbolCount,
+                                  @Value("${portfolio.data.symbol-skew:1.1}") double symbolSkew,
+                                  @Value("${portfolio.data.seed:42}") long seed,
+                                  @Value("${portfolio.data.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.marketDataService = marketDataService;
+        this.users = users;
+        this.portfoliosPerUser = portfoliosPerUser;
+        this.holdingsPerPortfolio = holdingsPerPortfolio;
+        this.symbolCount = symbolCount;
+        this.symbolSkew = symbolSkew;
+        this.seed = seed;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isEnabled() {
+        return users > 0;
+    }
+
+    public static String userId(int user) {
+        return String.format("user-%06d", user);
+    }
+
+    /**
+     * Inserts the generated portfolios after the existing ones and returns the number of holdings.
+     */
+    public long generate() {
+        long started = System.nanoTime();
+        String[] symbols = universe();
+        if (holdingsPerPortfolio > symbols.length) {
+            throw new RuntimeException("Cannot hold " + holdingsPerPortfolio + " distinct symbols out of " + symbols.length);
+        }
+        double[] prices = new double[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            prices[i] = marketDataService.getCurrentPrice(marketDataService.symbolId(symbols[i]));
+        }
+
+        SymbolPicker picker = new SymbolPicker(symbols.length, symbolSkew);
+        SplittableRandom random = new SplittableRandom(seed);
+        long portfolioId = nextId("SELECT MAX(id) FROM portfolios");
+        long holdingId = nextId("SELECT MAX(id) FROM stock_holdings");
+        long firstPortfolioId = portfolioId;
+        List<Object[]> portfolioRows = new ArrayList<>(batchSize);
+        List<Object[]> holdingRows = new ArrayList<>(batchSize);
+        int[] picks = new int[holdingsPerPortfolio];
+        for (int user = 0; user < users; user++) {
+            String userId = userId(user);
+            for (int p = 0; p < portfoliosPerUser; p++) {
+                picker.pick(random, picks);
+                double totalValue = 0.0;
+                for (int symbol : picks) {
+                    int quantity = 10 + random.nextInt(991);
+                    double averagePrice = Math.round(prices[symbol] * (0.6 + 0.8 * random.nextDouble()) * 100.0) / 100.0;
+                    double currentValue = quantity * prices[symbol];
+                    totalValue += currentValue;
+                    holdingRows.add(new Object[]{holdingId++, portfolioId, symbols[symbol], quantity, averagePrice, currentValue});
+                }
+                portfolioRows.add(new Object[]{portfolioId++, "Portfolio " + (p + 1), userId, totalValue});
+                if (holdingRows.size() >= batchSize || portfolioRows.size() >= batchSize) {
+                    // Holdings reference their portfolios, which are written first
+                    flush(INSERT_PORTFOLIO, portfolioRows);
+                    flush(INSERT_HOLDING, holdingRows);
+                }
+            }
+        }
+        flush(INSERT_PORTFOLIO, portfolioRows);
+        flush(INSERT_HOLDING, holdingRows);
+
+        // Explicit ids bypass the identity column and the holding id sequence, move both past them
+        jdbcTemplate.execute("ALTER TABLE portfolios ALTER COLUMN id RESTART WITH " + portfolioId);
+        jdbcTemplate.execute("ALTER SEQUENCE stock_holdings_seq RESTART WITH " + (holdingId + HOLDING_ID_BLOCK));
+        long holdings = (portfolioId - firstPortfolioId) * holdingsPerPortfolio;
+        log.info("Generated {} users, {} portfolios and {} holdings over {} symbols in {} ms", users,
+                portfolioId - firstPortfolioId, holdings, symbols.length, (System.nanoTime() - started) / 1_000_000);
+        return holdings;
+    }
+
+    private long nextId(String maxIdQuery) {
+        Long maxId = jdbcTemplate.queryForObject(maxIdQuery, Long.class);
+        return maxId != null ? maxId + 1 : 1L;
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    private String[] universe() {
+        PriceStore priceStore = marketDataService.getPriceStore();
+        List<String> symbols = new ArrayList<>();
+        for (int id = 0; id < priceStore.size() && symbols.size() < symbolCount; id++) {
+            symbols.add(priceStore.symbolOf(id));
+        }
+        for (int i = 0; symbols.size() < symbolCount; i++) {
+            String symbol = String.format("SIM%05d", i);
+            if (priceStore.idOf(symbol) < 0) {
+                symbols.add(symbol);
+            }
+        }
+        return symbols.toArray(new String[0]);
+    }
+
+    /**
+     * Draws distinct symbol ranks with probability proportional to {@code 1 / (rank + 1)^skew}.
+     */
+    static class SymbolPicker {
+        private final double[] cumulative;
+        private final boolean[] taken;
+
+        SymbolPicker(int symbols, double skew) {
+            cumulative = new double[symbols];
+            taken = new boolean[symbols];
+            double sum = 0.0;
+            for (int rank = 0; rank < symbols; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, skew);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < symbols; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+
+        /**
+         * Fills {@code picks} with distinct ranks. Repeats are redrawn a bounded number of times,
+         * after which the most popular symbols not picked yet fill the rest.
+         */
+        void pick(SplittableRandom random, int[] picks) {
+            int count = 0;
+            for (int attempt = 0; attempt < 4 * picks.length && count < picks.length; attempt++) {
+                int rank = sample(random);
+                if (!taken[rank]) {
+                    taken[rank] = true;
+                    picks[count++] = rank;
+                }
+            }
+            for (int rank = 0; count < picks.length; rank++) {
+                if (!taken[rank]) {
+                    taken[rank] = true;
+                    picks[count++] = rank;
+                }
+            }
+            for (int rank : picks) {
+                taken[rank] = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.portfolioservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes portfolios with very large holding lists straight from a valuation snapshot to the
+ * response with Jackson's streaming generator, optionally gzip-compressed, instead of loading the
+ * entity graph and serializing it into memory first. The JSON has the same shape as the entities,
+ * and the snapshot's tag names exactly what is written.
+ */
+@Service
+public class PortfolioJsonWriter {
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory;
+
+    public PortfolioJsonWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    private interface Body {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    public StreamingResponseBody portfolio(Long portfolioId, PortfolioValuationEngine.ValuationSnapshot snapshot,
+                                           boolean gzip) {
+        return body(gzip, json -> writePortfolio(portfolioId, snapshot, json));
+    }
+
+    public StreamingResponseBody holdings(PortfolioValuationEngine.ValuationSnapshot snapshot, boolean gzip) {
+        return body(gzip, json -> {
+            json.writeStartArray();
+            writeHoldings(snapshot, json);
+            json.writeEndArray();
+        });
+    }
+
+    private StreamingResponseBody body(boolean gzip, Body body) {
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            try (JsonGenerator json = jsonFactory.createGenerator(target)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                body.write(json);
+            }
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+    }
+
+    private void writePortfolio(Long portfolioId, PortfolioValuationEngine.ValuationSnapshot snapshot,
+                                JsonGenerator json) throws IOException {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT name, user_id FROM portfolios WHERE id = ?", portfolioId);
+        json.writeStartObject();
+        json.writeNumberField("id", portfolioId);
+        json.writeStringField("name", (String) row.get("name"));
+        json.writeStringField("userId", (String) row.get("user_id"));
+        json.writeFieldName("holdings");
+        json.writeStartArray();
+        writeHoldings(snapshot, json);
+        json.writeEndArray();
+        json.writeNumberField("totalValue", snapshot.totalValue());
+        json.writeEndObject();
+    }
+
+    private void writeHoldings(PortfolioValuationEngine.ValuationSnapshot snapshot, JsonGenerator json) throws IOException {
+        for (int i = 0; i < snapshot.size(); i++) {
+            json.writeStartObject();
+            json.writeNumberField("id", snapshot.holdingId(i));
+            json.writeStringField("symbol", snapshot.symbol(i));
+            json.writeNumberField("quantity", snapshot.quantity(i));
+            json.writeNumberField("averagePrice", snapshot.averagePrice(i));
+            json.writeNumberField("currentValue", snapshot.currentValue(i));
+            json.writeEndObject();
+        }
+    }
+}
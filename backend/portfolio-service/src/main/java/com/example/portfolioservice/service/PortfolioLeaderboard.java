@@ -0,0 +1,385 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.LeaderboardEntry;
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.PortfolioRank;
+import com.example.portfolioservice.model.StockHolding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Ranks all portfolios by total value and by unrealised return, globally and per user.
+ *
+ * Price ticks and committed trades update the value and cost basis of the affected portfolios
+ * and mark them dirty; they never touch the rankings. Dirty portfolios are re-ranked in
+ * order-statistic trees right before a query and on a short schedule, so a portfolio that ticks
+ * many times between two queries is re-ranked once and queries always see current values.
+ */
+@Service
+public class PortfolioLeaderboard implements PriceListener {
+    private static final Logger log = LoggerFactory.getLogger(PortfolioLeaderboard.class);
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final double[] NO_DOUBLES = new double[0];
+
+    private static final String SELECT_HOLDINGS = "SELECT p.id, p.user_id, p.name, h.symbol, h.quantity, h.average_price "
+            + "FROM portfolios p LEFT JOIN stock_holdings h ON h.portfolio_id = p.id ORDER BY p.id";
+
+    public enum Metric {
+        VALUE, RETURN;
+
+        public static Metric of(String name) {
+            for (Metric metric : values()) {
+                if (metric.name().equalsIgnoreCase(name)) {
+                    return metric;
+                }
+            }
+            throw new RuntimeException("Unknown leaderboard metric: " + name);
+        }
+    }
+
+    private final MarketDataService marketDataService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final SymbolIndex<Entry> index = new SymbolIndex<>(NO_ENTRIES);
+    private final Queue<Entry> dirty = new ConcurrentLinkedQueue<>();
+    private final Object loadLock = new Object();
+    private final Object rankLock = new Object();
+    private final RankTree byValue = new RankTree();
+    private final RankTree byReturn = new RankTree();
+    private final Map<String, RankTree> userByValue = new HashMap<>();
+    private final Map<String, RankTree> userByReturn = new HashMap<>();
+    private volatile boolean loaded;
+
+    public PortfolioLeaderboard(MarketDataService marketDataService, JdbcTemplate jdbcTemplate) {
+        this.marketDataService = marketDataService;
+        this.jdbcTemplate = jdbcTemplate;
+        marketDataService.addPriceListener(this);
+    }
+
+    static final class Entry {
+        final long portfolioId;
+        // Guarded by the entry
+        String userId;
+        String name;
+        int[] symbolIds = NO_INTS;
+        int[] quantities = NO_INTS;
+        double[] values = NO_DOUBLES;
+        double costBasis;
+        double totalValue;
+        boolean live;
+        boolean dirty;
+        // Guarded by rankLock
+        boolean ranked;
+        String rankedUserId;
+        double rankedValue;
+        double rankedCost;
+        double rankedReturn;
+
+        Entry(long portfolioId) {
+            this.portfolioId = portfolioId;
+        }
+    }
+
+    private record PositionSnapshot(int symbolId, int quantity, double averagePrice) {
+    }
+
+    /**
+     * Replaces the holdings of the portfolio after they were modified. Inside a transaction the
+     * change is applied only once the transaction commits.
+     */
+    public void refresh(Portfolio portfolio) {
+        Long portfolioId = portfolio.getId();
+        String userId = portfolio.getUserId();
+        String name = portfolio.getName();
+        List<PositionSnapshot> positions = new ArrayList<>(portfolio.getHoldings().size());
+        for (StockHolding holding : portfolio.getHoldings()) {
+            positions.add(snapshot(holding.getSymbol(), holding.getQuantity(), holding.getAveragePrice()));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replace(entries.computeIfAbsent(portfolioId, Entry::new), userId, name, positions);
+                }
+            });
+        } else {
+            replace(entries.computeIfAbsent(portfolioId, Entry::new), userId, name, positions);
+        }
+    }
+
+    /**
+     * Loads every portfolio from the database once. Portfolios that were already replaced by a
+     * committed change keep that state, which is at least as recent as what the query read.
+     */
+    public void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            long started = System.nanoTime();
+            List<Entry> loadedEntries = new ArrayList<>();
+            List<PositionSnapshot> positions = new ArrayList<>();
+            String[] owner = new String[2];
+            jdbcTemplate.query(SELECT_HOLDINGS, rs -> {
+                long portfolioId = rs.getLong(1);
+                Entry last = loadedEntries.isEmpty() ? null : loadedEntries.get(loadedEntries.size() - 1);
+                if (last == null || last.portfolioId != portfolioId) {
+                    if (last != null) {
+                        fill(last, owner[0], owner[1], positions);
+                    }
+                    loadedEntries.add(new Entry(portfolioId));
+                    owner[0] = rs.getString(2);
+                    owner[1] = rs.getString(3);
+                    positions.clear();
+                }
+                String symbol = rs.getString(4);
+                if (symbol != null && rs.getInt(5) > 0) {
+                    positions.add(snapshot(symbol, rs.getInt(5), rs.getDouble(6)));
+                }
+            });
+            if (!loadedEntries.isEmpty()) {
+                fill(loadedEntries.get(loadedEntries.size() - 1), owner[0], owner[1], positions);
+            }
+            publish(loadedEntries);
+            loaded = true;
+            log.info("Leaderboard loaded {} portfolios in {} ms", loadedEntries.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // Indexes the loaded entries one symbol at a time, since adding them one by one would copy
+    // each symbol's array once per portfolio, then prices them and makes them visible.
+    private void publish(List<Entry> loadedEntries) {
+        Map<Integer, List<Entry>> bySymbol = new HashMap<>();
+        for (Entry entry : loadedEntries) {
+            for (int symbolId : entry.symbolIds) {
+                bySymbol.computeIfAbsent(symbolId, id -> new ArrayList<>()).add(entry);
+            }
+        }
+        bySymbol.forEach(index::addAll);
+        for (Entry entry : loadedEntries) {
+            synchronized (entry) {
+                if (entries.putIfAbsent(entry.portfolioId, entry) != null) {
+                    // Replaced by a committed change while loading
+                    for (int symbolId : entry.symbolIds) {
+                        index.remove(symbolId, entry);
+                    }
+                    continue;
+                }
+                entry.live = true;
+                price(entry);
+                markDirty(entry);
+            }
+        }
+    }
+
+    private void replace(Entry entry, String userId, String name, List<PositionSnapshot> positions) {
+        synchronized (entry) {
+            for (int symbolId : entry.symbolIds) {
+                index.remove(symbolId, entry);
+            }
+            fill(entry, userId, name, positions);
+            // Indexed before pricing: a tick arriving from here on revalues the position after us
+            for (int symbolId : entry.symbolIds) {
+                index.add(symbolId, entry);
+            }
+            entry.live = true;
+            price(entry);
+            markDirty(entry);
+        }
+    }
+
+    // Resolving a symbol may wait on the market data provider, so it never happens under an entry lock
+    private PositionSnapshot snapshot(String symbol, int quantity, double averagePrice) {
+        return new PositionSnapshot(marketDataService.symbolId(symbol), quantity, averagePrice);
+    }
+
+    private void fill(Entry entry, String userId, String name, List<PositionSnapshot> positions) {
+        int count = 0;
+        int[] symbolIds = new int[positions.size()];
+        int[] quantities = new int[positions.size()];
+        double costBasis = 0.0;
+        for (PositionSnapshot position : positions) {
+            if (position.quantity() > 0) {
+                symbolIds[count] = position.symbolId();
+                quantities[count++] = position.quantity();
+                costBasis += position.quantity() * position.averagePrice();
+            }
+        }
+        entry.userId = userId;
+        entry.name = name;
+        entry.symbolIds = Arrays.copyOf(symbolIds, count);
+        entry.quantities = Arrays.copyOf(quantities, count);
+        entry.values = new double[count];
+        entry.costBasis = costBasis;
+    }
+
+    private void price(Entry entry) {
+        double totalValue = 0.0;
+        for (int i = 0; i < entry.symbolIds.length; i++) {
+            entry.values[i] = entry.quantities[i] * marketDataService.getCurrentPrice(entry.symbolIds[i]);
+            totalValue += entry.values[i];
+        }
+        entry.totalValue = totalValue;
+    }
+
+    @Override
+    public void onPriceUpdate(int symbolId, double previousPrice, double price, long timestamp) {
+        Entry[] affected = index.get(symbolId);
+        if (affected == null) {
+            return;
+        }
+        for (Entry entry : affected) {
+            synchronized (entry) {
+                if (!entry.live) {
+                    continue;
+                }
+                int[] symbolIds = entry.symbolIds;
+                for (int i = 0; i < symbolIds.length; i++) {
+                    if (symbolIds[i] == symbolId) {
+                        // Latest price rather than the tick's, so concurrent ticks converge
+                        double value = entry.quantities[i] * marketDataService.getCurrentPrice(symbolId);
+                        if (value != entry.values[i]) {
+                            entry.totalValue += value - entry.values[i];
+                            entry.values[i] = value;
+                            markDirty(entry);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Called with the entry locked
+    private void markDirty(Entry entry) {
+        if (!entry.dirty) {
+            entry.dirty = true;
+            dirty.add(entry);
+        }
+    }
+
+    /**
+     * Re-ranks the portfolios changed since the last call.
+     */
+    @Scheduled(fixedDelayString = "${portfolio.leaderboard.rank-interval-ms:1000}")
+    public void rerank() {
+        synchronized (rankLock) {
+            drain();
+        }
+    }
+
+    // Polls at most as many entries as exist, so a steady stream of ticks cannot keep it going
+    private void drain() {
+        int budget = entries.size();
+        Entry entry;
+        while (budget-- > 0 && (entry = dirty.poll()) != null) {
+            String userId;
+            double totalValue;
+            double costBasis;
+            synchronized (entry) {
+                entry.dirty = false;
+                userId = entry.userId;
+                totalValue = entry.totalValue;
+                costBasis = entry.costBasis;
+            }
+            if (entry.ranked) {
+                byValue.remove(entry.rankedValue, entry.portfolioId);
+                byReturn.remove(entry.rankedReturn, entry.portfolioId);
+                userTree(userByValue, entry.rankedUserId).remove(entry.rankedValue, entry.portfolioId);
+                userTree(userByReturn, entry.rankedUserId).remove(entry.rankedReturn, entry.portfolioId);
+            }
+            double unrealizedReturn = costBasis > 0 ? totalValue / costBasis - 1.0 : 0.0;
+            byValue.insert(totalValue, entry.portfolioId);
+            byReturn.insert(unrealizedReturn, entry.portfolioId);
+            userTree(userByValue, userId).insert(totalValue, entry.portfolioId);
+            userTree(userByReturn, userId).insert(unrealizedReturn, entry.portfolioId);
+            entry.ranked = true;
+            entry.rankedUserId = userId;
+            entry.rankedValue = totalValue;
+            entry.rankedCost = costBasis;
+            entry.rankedReturn = unrealizedReturn;
+        }
+    }
+
+    private static RankTree userTree(Map<String, RankTree> trees, String userId) {
+        return trees.computeIfAbsent(userId != null ? userId : "", id -> new RankTree());
+    }
+
+    /**
+     * Returns up to {@code limit} portfolios from rank {@code offset} on, across all users or
+     * among the portfolios of {@code userId} when it is given.
+     */
+    public List<LeaderboardEntry> top(Metric metric, String userId, int offset, int limit) {
+        load();
+        List<LeaderboardEntry> result = new ArrayList<>();
+        synchronized (rankLock) {
+            drain();
+            RankTree tree = tree(metric, userId);
+            if (tree != null) {
+                tree.visit(offset, limit, (rank, score, id) -> {
+                    Entry entry = entries.get(id);
+                    result.add(new LeaderboardEntry(rank + 1, id, entry.rankedUserId, entry.name,
+                            entry.rankedValue, entry.rankedCost, entry.rankedReturn));
+                });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the global and per-user ranks of the portfolio by value and by return.
+     */
+    public PortfolioRank rank(Long portfolioId) {
+        load();
+        Entry entry = entries.get(portfolioId);
+        if (entry == null) {
+            throw new RuntimeException("Portfolio not found");
+        }
+        PortfolioRank rank = new PortfolioRank();
+        rank.setPortfolioId(portfolioId);
+        synchronized (rankLock) {
+            drain();
+            if (!entry.ranked) {
+                throw new RuntimeException("Portfolio not ranked yet");
+            }
+            RankTree userValues = userTree(userByValue, entry.rankedUserId);
+            rank.setUserId(entry.rankedUserId);
+            rank.setTotalValue(entry.rankedValue);
+            rank.setCostBasis(entry.rankedCost);
+            rank.setUnrealizedReturn(entry.rankedReturn);
+            rank.setValueRank(byValue.rank(entry.rankedValue, portfolioId) + 1);
+            rank.setReturnRank(byReturn.rank(entry.rankedReturn, portfolioId) + 1);
+            rank.setPortfolios(byValue.size());
+            rank.setUserValueRank(userValues.rank(entry.rankedValue, portfolioId) + 1);
+            rank.setUserReturnRank(userTree(userByReturn, entry.rankedUserId).rank(entry.rankedReturn, portfolioId) + 1);
+            rank.setUserPortfolios(userValues.size());
+        }
+        return rank;
+    }
+
+    private RankTree tree(Metric metric, String userId) {
+        if (userId == null) {
+            return metric == Metric.VALUE ? byValue : byReturn;
+        }
+        return (metric == Metric.VALUE ? userByValue : userByReturn).get(userId);
+    }
+}
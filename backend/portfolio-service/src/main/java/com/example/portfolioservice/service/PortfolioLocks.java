@@ -0,0 +1,87 @@
+package com.example.portfolioservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that serialize trades against the same portfolio.
+ *
+ * A portfolio id maps to one of a fixed number of reentrant locks. The lock is taken inside the
+ * trading transaction and released only after it commits or rolls back, so the next trade on
+ * the portfolio reads the committed holdings. Trades on unrelated portfolios contend only when
+ * their ids share a stripe.
+ */
+@Component
+public class PortfolioLocks {
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    public PortfolioLocks(@Value("${portfolio.trading.lock-stripes:1024}") int stripes,
+                          @Value("${portfolio.trading.lock-timeout-ms:5000}") long timeoutMillis) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Locks the portfolio until the current transaction completes.
+     */
+    public void lockForTransaction(Long portfolioId) {
+        lock(stripe(portfolioId), portfolioId);
+    }
+
+    /**
+     * Locks several portfolios until the current transaction completes. Their stripes are taken
+     * in stripe order, so transactions locking overlapping sets of portfolios cannot deadlock.
+     */
+    public void lockAllForTransaction(Collection<Long> portfolioIds) {
+        TreeMap<Integer, Long> byStripe = new TreeMap<>();
+        for (Long portfolioId : portfolioIds) {
+            byStripe.putIfAbsent(stripeIndex(portfolioId), portfolioId);
+        }
+        byStripe.forEach((index, portfolioId) -> lock(stripes[index], portfolioId));
+    }
+
+    private void lock(ReentrantLock lock, Long portfolioId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Portfolio locks require an active transaction");
+        }
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Timed out waiting for portfolio " + portfolioId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for portfolio " + portfolioId);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    private ReentrantLock stripe(Long portfolioId) {
+        return stripes[stripeIndex(portfolioId)];
+    }
+
+    private int stripeIndex(Long portfolioId) {
+        long hash = portfolioId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (stripes.length - 1);
+    }
+}
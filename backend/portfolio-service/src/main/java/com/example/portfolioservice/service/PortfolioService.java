@@ -1,42 +1,99 @@
 package com.example.portfolioservice.service;
 
 import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.PortfolioSummary;
 import com.example.portfolioservice.model.StockHolding;
 import com.example.portfolioservice.repository.PortfolioRepository;
 import com.example.portfolioservice.repository.StockHoldingRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Timed("portfolio.service")
 public class PortfolioService {
+    private static final Set<String> SUMMARY_SORT_PROPERTIES = Set.of("id", "name", "totalValue");
+
     private final PortfolioRepository portfolioRepository;
     private final StockHoldingRepository stockHoldingRepository;
     private final MarketDataService marketDataService;
+    private final PortfolioValuationEngine valuationEngine;
+    private final UserExposureService userExposureService;
+    private final PortfolioLeaderboard portfolioLeaderboard;
+    private final PortfolioLocks portfolioLocks;
+    private final TradeLedgerService tradeLedgerService;
 
     public PortfolioService(PortfolioRepository portfolioRepository,
                           StockHoldingRepository stockHoldingRepository,
-                          MarketDataService marketDataService) {
+                          MarketDataService marketDataService,
+                          PortfolioValuationEngine valuationEngine,
+                          UserExposureService userExposureService,
+                          PortfolioLeaderboard portfolioLeaderboard,
+                          PortfolioLocks portfolioLocks,
+                          TradeLedgerService tradeLedgerService) {
         this.portfolioRepository = portfolioRepository;
         this.stockHoldingRepository = stockHoldingRepository;
         this.marketDataService = marketDataService;
+        this.valuationEngine = valuationEngine;
+        this.userExposureService = userExposureService;
+        this.portfolioLeaderboard = portfolioLeaderboard;
+        this.portfolioLocks = portfolioLocks;
+        this.tradeLedgerService = tradeLedgerService;
     }
 
     @Transactional(readOnly = true)
     public List<Portfolio> getAllPortfolios(String userId) {
-        List<Portfolio> portfolios = portfolioRepository.findByUserId(userId);
+        // Holdings are fetched in the same query instead of one lazy load per portfolio
+        List<Portfolio> portfolios = portfolioRepository.findWithHoldingsByUserId(userId);
         portfolios.forEach(this::updateHoldingsCurrentValues);
         return portfolios;
     }
 
+    @Transactional(readOnly = true)
+    public Page<PortfolioSummary> getPortfolioSummaries(String userId, Pageable pageable) {
+        Page<PortfolioSummary> summaries = portfolioRepository.findSummariesByUserId(userId, summarySort(pageable));
+        for (PortfolioSummary summary : summaries) {
+            // Tracked portfolios are more recent in memory than in the database
+            if (valuationEngine.isTracked(summary.getId())) {
+                summary.setTotalValue(valuationEngine.totalValue(summary.getId()));
+            }
+        }
+        return summaries;
+    }
+
+    private Pageable summarySort(Pageable pageable) {
+        Sort sort = Sort.unsorted();
+        for (Sort.Order order : pageable.getSort()) {
+            if ("holdingCount".equals(order.getProperty())) {
+                sort = sort.and(JpaSort.unsafe(order.getDirection(), "count(h)"));
+            } else if (SUMMARY_SORT_PROPERTIES.contains(order.getProperty())) {
+                sort = sort.and(Sort.by(order.getDirection(), order.getProperty()));
+            } else {
+                throw new RuntimeException("Cannot sort portfolio summaries by " + order.getProperty());
+            }
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
     @Transactional
     public Portfolio createPortfolio(Portfolio portfolio) {
         portfolio.setTotalValue(0.0);
         portfolio.setUserId("default-user"); // For now, we'll use a default user
-        return portfolioRepository.save(portfolio);
+        Portfolio saved = portfolioRepository.save(portfolio);
+        userExposureService.refresh(saved);
+        portfolioLeaderboard.refresh(saved);
+        tradeLedgerService.record(TradeEvent.portfolioCreated(saved.getId(), saved.getName(), saved.getUserId()));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -47,12 +104,34 @@ public class PortfolioService {
         return portfolio;
     }
 
+    /**
+     * Returns the entity tag of the portfolio's current valuation, or null until the portfolio has
+     * been loaded into the valuation engine.
+     */
+    public String getValuationTag(Long portfolioId) {
+        return valuationEngine.valuationTag(portfolioId);
+    }
+
+    /**
+     * Returns the portfolio's current valuation together with the tag naming it, or null until
+     * the portfolio has been loaded into the valuation engine.
+     */
+    public PortfolioValuationEngine.ValuationSnapshot getValuationSnapshot(Long portfolioId) {
+        return valuationEngine.valuationSnapshot(portfolioId);
+    }
+
+    public int getHoldingCount(Long portfolioId) {
+        return valuationEngine.holdingCount(portfolioId);
+    }
+
     @Transactional
     public StockHolding addStock(Long portfolioId, String symbol, Integer quantity, Double price) {
         if (quantity <= 0 || price <= 0) {
             throw new RuntimeException("Quantity and price must be positive");
         }
 
+        // Trades on the same portfolio run one at a time until commit
+        portfolioLocks.lockForTransaction(portfolioId);
         Portfolio portfolio = getPortfolio(portfolioId);
         
         // Check if stock already exists in portfolio
@@ -86,17 +165,27 @@ public class PortfolioService {
         
         // Update portfolio total value
         updatePortfolioTotalValue(portfolio);
+        valuationEngine.refresh(portfolio);
+        userExposureService.refresh(portfolio);
+        portfolioLeaderboard.refresh(portfolio);
+        tradeLedgerService.record(TradeEvent.buy(portfolioId, symbol, quantity, price));
         
         return holding;
     }
 
     private double calculateNewAveragePrice(StockHolding existing, Integer newQuantity, Double newPrice) {
-        double totalValue = (existing.getQuantity() * existing.getAveragePrice()) + (newQuantity * newPrice);
-        return totalValue / (existing.getQuantity() + newQuantity);
+        return averagePrice(existing.getQuantity(), existing.getAveragePrice(), newQuantity, newPrice);
+    }
+
+    public static double averagePrice(int existingQuantity, double existingAveragePrice, int newQuantity, double newPrice) {
+        double totalValue = (existingQuantity * existingAveragePrice) + (newQuantity * newPrice);
+        return totalValue / (existingQuantity + newQuantity);
     }
 
     @Transactional
     public void removeStock(Long portfolioId, String symbol) {
+        portfolioLocks.lockForTransaction(portfolioId);
+
         // First check if the stock exists
         Optional<StockHolding> holding = stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, symbol);
         if (holding.isEmpty()) {
@@ -124,21 +213,22 @@ public class PortfolioService {
         }
         
         portfolioRepository.save(portfolio);
+        valuationEngine.refresh(portfolio);
+        userExposureService.refresh(portfolio);
+        portfolioLeaderboard.refresh(portfolio);
+        tradeLedgerService.record(TradeEvent.remove(portfolioId, symbol));
     }
 
     @Transactional(readOnly = true)
     public List<StockHolding> getPortfolioHoldings(Long portfolioId) {
         Portfolio portfolio = getPortfolio(portfolioId);
-        updateHoldingsCurrentValues(portfolio);
         return portfolio.getHoldings();
     }
 
     private void updateHoldingsCurrentValues(Portfolio portfolio) {
-        for (StockHolding holding : portfolio.getHoldings()) {
-            Double currentPrice = marketDataService.getCurrentPrice(holding.getSymbol());
-            holding.setCurrentValue(holding.getQuantity() * currentPrice);
-        }
-        updatePortfolioTotalValue(portfolio);
+        // Values are maintained incrementally by the valuation engine as prices change and
+        // are flushed to the database in the background, so reads never write
+        valuationEngine.apply(portfolio);
     }
 
     private void updatePortfolioTotalValue(Portfolio portfolio) {
@@ -154,6 +244,7 @@ public class PortfolioService {
         if (quantityToReduce <= 0) {
             throw new RuntimeException("Quantity to reduce must be positive");
         }
+        portfolioLocks.lockForTransaction(portfolioId);
 
         // First check if the stock exists
         Optional<StockHolding> holdingOpt = stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, symbol);
@@ -187,6 +278,10 @@ public class PortfolioService {
 
         // Update portfolio total value
         updatePortfolioTotalValue(portfolio);
+        valuationEngine.refresh(portfolio);
+        userExposureService.refresh(portfolio);
+        portfolioLeaderboard.refresh(portfolio);
+        tradeLedgerService.record(TradeEvent.sell(portfolioId, symbol, quantityToReduce));
 
         return holding;
     }
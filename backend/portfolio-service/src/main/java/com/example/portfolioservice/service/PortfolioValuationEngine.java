@@ -0,0 +1,439 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.HoldingValue;
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps current holding values and portfolio totals in memory.
+ *
+ * A reverse index from symbol id to holdings lets a price tick revalue only the holdings of that
+ * symbol and adjust the owning portfolio totals by the change in value. Reads copy the
+ * precomputed values onto the entities instead of repricing every holding.
+ */
+@Component
+public class PortfolioValuationEngine implements PriceListener {
+    private static final HoldingValuation[] NO_HOLDINGS = new HoldingValuation[0];
+    private static final Comparator<HoldingValuation> HOLDING_ORDER =
+            Comparator.comparing((HoldingValuation h) -> h.holdingId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final MarketDataService marketDataService;
+    private final Map<Long, PortfolioValuation> portfolios = new ConcurrentHashMap<>();
+    private final Set<PortfolioValuation> dirty = ConcurrentHashMap.newKeySet();
+    private final List<ValuationListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object indexLock = new Object();
+    private final SymbolIndex<HoldingValuation> index = new SymbolIndex<>(NO_HOLDINGS);
+    private final AtomicLong generations = new AtomicLong();
+    private final AtomicLong changeSequence = new AtomicLong();
+    // Keeps tags issued before a restart from matching the counters of this run
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public PortfolioValuationEngine(MarketDataService marketDataService) {
+        this.marketDataService = marketDataService;
+        marketDataService.addPriceListener(this);
+    }
+
+    static final class PortfolioValuation {
+        final Long portfolioId;
+        final long generation;
+        final Map<String, HoldingValuation> holdings = new HashMap<>();
+        volatile double totalValue;
+        long version;
+
+        PortfolioValuation(Long portfolioId, long generation) {
+            this.portfolioId = portfolioId;
+            this.generation = generation;
+        }
+    }
+
+    static final class HoldingValuation {
+        final PortfolioValuation portfolio;
+        final Long holdingId;
+        final String symbol;
+        final int symbolId;
+        final int quantity;
+        final double averagePrice;
+        double currentValue;
+
+        HoldingValuation(PortfolioValuation portfolio, Long holdingId, String symbol, int symbolId,
+                         int quantity, double averagePrice) {
+            this.portfolio = portfolio;
+            this.holdingId = holdingId;
+            this.symbol = symbol;
+            this.symbolId = symbolId;
+            this.quantity = quantity;
+            this.averagePrice = averagePrice;
+        }
+    }
+
+    /**
+     * Receives values that changed since the last drain, see {@link #drainDirty}.
+     */
+    public interface DirtyValuationVisitor {
+        void portfolio(Long portfolioId, double totalValue);
+
+        void holding(Long holdingId, double currentValue);
+    }
+
+    /**
+     * A copy of a tracked portfolio's holdings and total taken under its lock, in holding id order,
+     * together with the tag naming exactly this state.
+     */
+    public static final class ValuationSnapshot {
+        private final String tag;
+        private final double totalValue;
+        private final HoldingValuation[] holdings;
+        private final double[] currentValues;
+
+        private ValuationSnapshot(String tag, double totalValue, HoldingValuation[] holdings,
+                                  double[] currentValues) {
+            this.tag = tag;
+            this.totalValue = totalValue;
+            this.holdings = holdings;
+            this.currentValues = currentValues;
+        }
+
+        public String tag() {
+            return tag;
+        }
+
+        public double totalValue() {
+            return totalValue;
+        }
+
+        public int size() {
+            return holdings.length;
+        }
+
+        public Long holdingId(int i) {
+            return holdings[i].holdingId;
+        }
+
+        public String symbol(int i) {
+            return holdings[i].symbol;
+        }
+
+        public int quantity(int i) {
+            return holdings[i].quantity;
+        }
+
+        public double averagePrice(int i) {
+            return holdings[i].averagePrice;
+        }
+
+        public double currentValue(int i) {
+            return currentValues[i];
+        }
+    }
+
+    private record HoldingSnapshot(Long holdingId, String symbol, int quantity, double averagePrice) {
+    }
+
+    /**
+     * Copies the precomputed holding values and total onto the entity, loading the portfolio into
+     * the engine first if it is not tracked yet.
+     */
+    public void apply(Portfolio portfolio) {
+        PortfolioValuation valuation = portfolios.get(portfolio.getId());
+        if (valuation == null) {
+            valuation = load(portfolio.getId(), snapshot(portfolio), false);
+        }
+        synchronized (valuation) {
+            for (StockHolding holding : portfolio.getHoldings()) {
+                HoldingValuation value = valuation.holdings.get(holding.getSymbol());
+                if (value != null) {
+                    holding.setCurrentValue(value.currentValue);
+                }
+            }
+            portfolio.setTotalValue(valuation.totalValue);
+        }
+    }
+
+    /**
+     * Replaces the tracked state of a portfolio after its holdings were modified. Inside a
+     * transaction the new state is published only once the transaction commits.
+     */
+    public void refresh(Portfolio portfolio) {
+        Long portfolioId = portfolio.getId();
+        List<HoldingSnapshot> holdings = snapshot(portfolio);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    load(portfolioId, holdings, true);
+                }
+            });
+        } else {
+            load(portfolioId, holdings, true);
+        }
+    }
+
+    public void addValuationListener(ValuationListener listener) {
+        listeners.add(listener);
+    }
+
+    public boolean isTracked(Long portfolioId) {
+        return portfolios.containsKey(portfolioId);
+    }
+
+    /**
+     * Returns a weak entity tag for the current state of a tracked portfolio, or null if it is not
+     * tracked. The tag changes whenever the holdings are replaced or any of them is revalued.
+     */
+    public String valuationTag(Long portfolioId) {
+        PortfolioValuation valuation = portfolios.get(portfolioId);
+        if (valuation == null) {
+            return null;
+        }
+        synchronized (valuation) {
+            return tag(valuation);
+        }
+    }
+
+    /**
+     * Returns the current state of a tracked portfolio together with its tag, or null if it is not
+     * tracked.
+     */
+    public ValuationSnapshot valuationSnapshot(Long portfolioId) {
+        PortfolioValuation valuation = portfolios.get(portfolioId);
+        if (valuation == null) {
+            return null;
+        }
+        // The holdings of a valuation never change once it is published, only their values do
+        HoldingValuation[] holdings = valuation.holdings.values().toArray(NO_HOLDINGS);
+        Arrays.sort(holdings, HOLDING_ORDER);
+        double[] currentValues = new double[holdings.length];
+        synchronized (valuation) {
+            for (int i = 0; i < holdings.length; i++) {
+                currentValues[i] = holdings[i].currentValue;
+            }
+            return new ValuationSnapshot(tag(valuation), valuation.totalValue, holdings, currentValues);
+        }
+    }
+
+    private String tag(PortfolioValuation valuation) {
+        return "W/\"" + epoch + "-" + valuation.generation + "-" + valuation.version + "\"";
+    }
+
+    public int holdingCount(Long portfolioId) {
+        PortfolioValuation valuation = portfolios.get(portfolioId);
+        if (valuation == null) {
+            return 0;
+        }
+        synchronized (valuation) {
+            return valuation.holdings.size();
+        }
+    }
+
+    public double totalValue(Long portfolioId) {
+        PortfolioValuation valuation = portfolios.get(portfolioId);
+        return valuation != null ? valuation.totalValue : 0.0;
+    }
+
+    /**
+     * Hands every portfolio revalued since the previous call to the visitor, together with its
+     * holdings. Portfolios revalued while draining are kept for the next call.
+     */
+    public int drainDirty(DirtyValuationVisitor visitor) {
+        int drained = 0;
+        Iterator<PortfolioValuation> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            PortfolioValuation valuation = iterator.next();
+            iterator.remove();
+            if (portfolios.get(valuation.portfolioId) != valuation) {
+                continue;
+            }
+            synchronized (valuation) {
+                for (HoldingValuation holding : valuation.holdings.values()) {
+                    if (holding.holdingId != null) {
+                        visitor.holding(holding.holdingId, holding.currentValue);
+                    }
+                }
+                visitor.portfolio(valuation.portfolioId, valuation.totalValue);
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Queues tracked portfolios for the next drain again, for values that could not be written.
+     */
+    public void markDirty(Collection<Long> portfolioIds) {
+        for (Long portfolioId : portfolioIds) {
+            PortfolioValuation valuation = portfolios.get(portfolioId);
+            if (valuation != null) {
+                dirty.add(valuation);
+            }
+        }
+    }
+
+    @Override
+    public void onPriceUpdate(int symbolId, double previousPrice, double price, long timestamp) {
+        HoldingValuation[] holdings = index.get(symbolId);
+        if (holdings == null) {
+            return;
+        }
+        for (HoldingValuation holding : holdings) {
+            PortfolioValuation valuation = holding.portfolio;
+            ValuationChange change = null;
+            synchronized (valuation) {
+                if (revalue(holding) && !listeners.isEmpty()) {
+                    change = new ValuationChange(valuation.portfolioId, changeSequence.incrementAndGet(), valuation.totalValue,
+                            List.of(holdingValue(holding)));
+                }
+            }
+            publish(change);
+        }
+    }
+
+    @Override
+    public void onPriceBatch(int[] symbolIds, double[] previousPrices, double[] prices, long[] timestamps, int count) {
+        BitSet changedSymbols = new BitSet();
+        Set<PortfolioValuation> affected = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            int symbolId = symbolIds[i];
+            if (changedSymbols.get(symbolId)) {
+                continue;
+            }
+            HoldingValuation[] holdings = index.get(symbolId);
+            if (holdings != null) {
+                changedSymbols.set(symbolId);
+                for (HoldingValuation holding : holdings) {
+                    affected.add(holding.portfolio);
+                }
+            }
+        }
+        // Each affected portfolio is locked and revalued once, however many of its symbols ticked
+        boolean publishing = !listeners.isEmpty();
+        for (PortfolioValuation valuation : affected) {
+            List<HoldingValue> changed = publishing ? new ArrayList<>() : null;
+            ValuationChange change = null;
+            synchronized (valuation) {
+                for (HoldingValuation holding : valuation.holdings.values()) {
+                    if (changedSymbols.get(holding.symbolId) && revalue(holding) && publishing) {
+                        changed.add(holdingValue(holding));
+                    }
+                }
+                if (publishing && !changed.isEmpty()) {
+                    change = new ValuationChange(valuation.portfolioId, changeSequence.incrementAndGet(), valuation.totalValue, changed);
+                }
+            }
+            publish(change);
+        }
+    }
+
+    // Reads the latest price rather than the one carried by the tick, so concurrent ticks for the
+    // same symbol always converge on the value of the most recent price.
+    private boolean revalue(HoldingValuation holding) {
+        double newValue = holding.quantity * marketDataService.getCurrentPrice(holding.symbolId);
+        double delta = newValue - holding.currentValue;
+        if (delta == 0.0) {
+            return false;
+        }
+        holding.currentValue = newValue;
+        holding.portfolio.totalValue += delta;
+        holding.portfolio.version++;
+        dirty.add(holding.portfolio);
+        return true;
+    }
+
+    private HoldingValue holdingValue(HoldingValuation holding) {
+        return new HoldingValue(holding.symbol, holding.quantity, holding.currentValue);
+    }
+
+    private void publish(ValuationChange change) {
+        if (change != null) {
+            for (ValuationListener listener : listeners) {
+                listener.onValuationChange(change);
+            }
+        }
+    }
+
+    private List<HoldingSnapshot> snapshot(Portfolio portfolio) {
+        List<HoldingSnapshot> holdings = new ArrayList<>(portfolio.getHoldings().size());
+        for (StockHolding holding : portfolio.getHoldings()) {
+            holdings.add(new HoldingSnapshot(holding.getId(), holding.getSymbol(),
+                    holding.getQuantity(), holding.getAveragePrice()));
+        }
+        return holdings;
+    }
+
+    private PortfolioValuation load(Long portfolioId, List<HoldingSnapshot> holdings, boolean replace) {
+        PortfolioValuation valuation = new PortfolioValuation(portfolioId, generations.incrementAndGet());
+        List<HoldingValue> changed = null;
+        ValuationChange change = null;
+        // Resolving an unknown symbol may wait on the market data provider, so it happens before
+        // the valuation is locked or visible to ticks
+        for (HoldingSnapshot holding : holdings) {
+            int symbolId = marketDataService.symbolId(holding.symbol());
+            valuation.holdings.put(holding.symbol(), new HoldingValuation(valuation, holding.holdingId(),
+                    holding.symbol(), symbolId, holding.quantity(), holding.averagePrice()));
+        }
+        synchronized (valuation) {
+            synchronized (indexLock) {
+                PortfolioValuation previous = replace
+                        ? portfolios.put(portfolioId, valuation)
+                        : portfolios.putIfAbsent(portfolioId, valuation);
+                if (!replace && previous != null) {
+                    return previous;
+                }
+                if (previous != null) {
+                    for (HoldingValuation holding : previous.holdings.values()) {
+                        index.remove(holding.symbolId, holding);
+                    }
+                    if (!listeners.isEmpty()) {
+                        changed = removedHoldings(previous, valuation);
+                    }
+                }
+                for (HoldingValuation holding : valuation.holdings.values()) {
+                    index.add(holding.symbolId, holding);
+                }
+            }
+            // Indexed before pricing: a tick arriving from here on revalues the holding after us
+            double total = 0.0;
+            for (HoldingValuation holding : valuation.holdings.values()) {
+                holding.currentValue = holding.quantity * marketDataService.getCurrentPrice(holding.symbolId);
+                total += holding.currentValue;
+            }
+            valuation.totalValue = total;
+            dirty.add(valuation);
+            if (changed != null) {
+                for (HoldingValuation holding : valuation.holdings.values()) {
+                    changed.add(holdingValue(holding));
+                }
+                change = new ValuationChange(portfolioId, changeSequence.incrementAndGet(), total, changed);
+            }
+        }
+        publish(change);
+        return valuation;
+    }
+
+    private List<HoldingValue> removedHoldings(PortfolioValuation previous, PortfolioValuation valuation) {
+        List<HoldingValue> removed = new ArrayList<>();
+        for (String symbol : previous.holdings.keySet()) {
+            if (!valuation.holdings.containsKey(symbol)) {
+                removed.add(new HoldingValue(symbol, 0, 0.0));
+            }
+        }
+        return removed;
+    }
+}
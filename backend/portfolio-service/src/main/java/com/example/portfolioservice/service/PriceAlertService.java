@@ -0,0 +1,255 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.config.TaskExecutors;
+import com.example.portfolioservice.model.AlertDirection;
+import com.example.portfolioservice.model.AlertEvent;
+import com.example.portfolioservice.model.PriceAlert;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One-shot alerts on a symbol price or a portfolio total value crossing a threshold.
+ *
+ * Thresholds live in a {@link ThresholdBook} per symbol and per portfolio, so a tick only looks
+ * at the book of its own symbol and splits the crossed alerts off its tree. Fired alerts are
+ * handed to a bounded queue and pushed to the user's Server-Sent Event streams by a delivery
+ * thread; when the queue is full new events are dropped and counted rather than slowing ticks.
+ */
+@Service
+public class PriceAlertService implements PriceListener, ValuationListener {
+    private static final Logger log = LoggerFactory.getLogger(PriceAlertService.class);
+    private static final String DEFAULT_USER = "default-user";
+
+    private final MarketDataService marketDataService;
+    private final PortfolioService portfolioService;
+    private final PortfolioValuationEngine valuationEngine;
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, PriceAlert> alerts = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> userAlerts = new ConcurrentHashMap<>();
+    private final Map<Long, ThresholdBook> portfolioBooks = new ConcurrentHashMap<>();
+    private final Object booksLock = new Object();
+    private volatile ThresholdBook[] symbolBooks = new ThresholdBook[0];
+    private final BlockingQueue<AlertEvent> queue;
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+    private final ExecutorService delivery;
+
+    public PriceAlertService(MarketDataService marketDataService,
+                             PortfolioService portfolioService,
+                             PortfolioValuationEngine valuationEngine,
+                             @Value("${portfolio.alerts.queue-capacity:10000}") int queueCapacity,
+                             @Value("${portfolio.alerts.stream-timeout-ms:1800000}") long timeoutMillis) {
+        this.marketDataService = marketDataService;
+        this.portfolioService = portfolioService;
+        this.valuationEngine = valuationEngine;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.timeoutMillis = timeoutMillis;
+        this.delivery = Executors.newSingleThreadExecutor(TaskExecutors.daemonThreads("price-alert-delivery"));
+        delivery.execute(this::deliver);
+        marketDataService.addPriceListener(this);
+        valuationEngine.addValuationListener(this);
+    }
+
+    public PriceAlert register(PriceAlert request) {
+        boolean bySymbol = request.getSymbol() != null && !request.getSymbol().isBlank();
+        if (bySymbol == (request.getPortfolioId() != null)) {
+            throw new RuntimeException("Exactly one of symbol and portfolioId is required");
+        }
+        if (request.getDirection() == null) {
+            throw new RuntimeException("Direction is required");
+        }
+        if (request.getThreshold() == null || !(request.getThreshold() > 0) || request.getThreshold().isInfinite()) {
+            throw new RuntimeException("Threshold must be positive");
+        }
+        PriceAlert alert = new PriceAlert();
+        alert.setId(nextId.incrementAndGet());
+        alert.setUserId(request.getUserId() != null && !request.getUserId().isBlank() ? request.getUserId() : DEFAULT_USER);
+        alert.setDirection(request.getDirection());
+        alert.setThreshold(request.getThreshold());
+        alert.setCreatedAt(System.currentTimeMillis());
+
+        ThresholdBook book;
+        if (bySymbol) {
+            alert.setSymbol(request.getSymbol().trim());
+            int symbolId = marketDataService.symbolId(alert.getSymbol());
+            book = symbolBook(symbolId);
+            book.setLastValue(marketDataService.getCurrentPrice(symbolId));
+        } else {
+            // Loading the portfolio makes the valuation engine track it and report its changes
+            Long portfolioId = portfolioService.getPortfolio(request.getPortfolioId()).getId();
+            alert.setPortfolioId(portfolioId);
+            book = portfolioBooks.computeIfAbsent(portfolioId, id -> new ThresholdBook());
+            book.setLastValue(valuationEngine.totalValue(portfolioId));
+        }
+        alerts.put(alert.getId(), alert);
+        userAlerts.computeIfAbsent(alert.getUserId(), id -> ConcurrentHashMap.newKeySet()).add(alert.getId());
+        book.add(alert.getDirection() == AlertDirection.ABOVE, alert.getThreshold(), alert.getId());
+        return alert;
+    }
+
+    public void cancel(Long alertId) {
+        PriceAlert alert = alerts.remove(alertId);
+        if (alert == null) {
+            throw new RuntimeException("Alert not found");
+        }
+        ThresholdBook book = alert.getSymbol() != null
+                ? symbolBook(marketDataService.symbolId(alert.getSymbol()))
+                : portfolioBooks.get(alert.getPortfolioId());
+        book.remove(alert.getDirection() == AlertDirection.ABOVE, alert.getThreshold(), alertId);
+        forget(alert);
+    }
+
+    public List<PriceAlert> getAlerts(String userId) {
+        List<PriceAlert> result = new ArrayList<>();
+        for (Long alertId : userAlerts.getOrDefault(userId, Set.of())) {
+            PriceAlert alert = alerts.get(alertId);
+            if (alert != null) {
+                result.add(alert);
+            }
+        }
+        return result;
+    }
+
+    public SseEmitter subscribe(String userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        List<SseEmitter> list = subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(e -> unsubscribe(userId, emitter));
+        return emitter;
+    }
+
+    public int activeAlerts() {
+        return alerts.size();
+    }
+
+    public long getFiredAlerts() {
+        return fired.sum();
+    }
+
+    public long getDroppedAlerts() {
+        return dropped.sum();
+    }
+
+    // Compares against the latest price rather than the tick's, so concurrent ticks for the same
+    // symbol are seen by the book as one consistent sequence of values.
+    @Override
+    public void onPriceUpdate(int symbolId, double previousPrice, double price, long timestamp) {
+        ThresholdBook[] books = symbolBooks;
+        if (symbolId >= books.length || books[symbolId] == null) {
+            return;
+        }
+        double current = marketDataService.getCurrentPrice(symbolId);
+        books[symbolId].cross(current, (alertId, threshold) -> fire(alertId, current));
+    }
+
+    @Override
+    public void onValuationChange(ValuationChange change) {
+        ThresholdBook book = portfolioBooks.get(change.portfolioId());
+        if (book != null) {
+            double current = valuationEngine.totalValue(change.portfolioId());
+            book.cross(current, (alertId, threshold) -> fire(alertId, current));
+        }
+    }
+
+    private void fire(long alertId, double value) {
+        PriceAlert alert = alerts.remove(alertId);
+        if (alert == null) {
+            return;
+        }
+        forget(alert);
+        fired.increment();
+        AlertEvent event = new AlertEvent(alertId, alert.getUserId(), alert.getSymbol(), alert.getPortfolioId(),
+                alert.getDirection(), alert.getThreshold(), value, System.currentTimeMillis());
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private void forget(PriceAlert alert) {
+        userAlerts.computeIfPresent(alert.getUserId(), (id, set) -> {
+            set.remove(alert.getId());
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private ThresholdBook symbolBook(int symbolId) {
+        ThresholdBook[] books = symbolBooks;
+        if (symbolId < books.length && books[symbolId] != null) {
+            return books[symbolId];
+        }
+        synchronized (booksLock) {
+            books = symbolBooks;
+            if (symbolId >= books.length) {
+                books = Arrays.copyOf(books, Math.max(symbolId + 1, books.length * 2));
+            } else if (books[symbolId] != null) {
+                return books[symbolId];
+            } else {
+                books = books.clone();
+            }
+            ThresholdBook book = new ThresholdBook();
+            books[symbolId] = book;
+            symbolBooks = books;
+            return book;
+        }
+    }
+
+    private void deliver() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                AlertEvent event = queue.take();
+                List<SseEmitter> list = subscribers.get(event.getUserId());
+                if (list == null) {
+                    log.debug("Alert {} fired for {} without subscribers", event.getAlertId(), event.getUserId());
+                    continue;
+                }
+                for (SseEmitter emitter : list) {
+                    try {
+                        emitter.send(SseEmitter.event().name("alert").data(event));
+                    } catch (IOException | IllegalStateException e) {
+                        unsubscribe(event.getUserId(), emitter);
+                        emitter.completeWithError(e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void unsubscribe(String userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delivery.shutdownNow();
+        subscribers.values().forEach(list -> list.forEach(SseEmitter::complete));
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.PriceBar;
+import com.example.portfolioservice.model.PriceHistory;
+import com.example.portfolioservice.model.PriceTick;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records every price change into the {@link TickHistoryStore} and answers history queries,
+ * either as raw ticks or downsampled into OHLC bars.
+ */
+@Service
+public class PriceHistoryService implements PriceListener {
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryService.class);
+
+    private final PriceStore priceStore;
+    private final TickHistoryStore store;
+    private final int maxPoints;
+    private final LongAdder rejectedTicks = new LongAdder();
+
+    public PriceHistoryService(MarketDataService marketDataService,
+                               @Value("${portfolio.history.dir:data/ticks}") String directory,
+                               @Value("${portfolio.history.segment-capacity:262144}") int segmentCapacity,
+                               @Value("${portfolio.history.max-points:100000}") int maxPoints) throws IOException {
+        this.priceStore = marketDataService.getPriceStore();
+        this.store = new TickHistoryStore(Path.of(directory), segmentCapacity);
+        this.maxPoints = maxPoints;
+        marketDataService.addPriceListener(this);
+    }
+
+    @Override
+    public void onPriceUpdate(int symbolId, double previousPrice, double price, long timestamp) {
+        String symbol = priceStore.symbolOf(symbolId);
+        if (!TickHistoryStore.isValidSymbol(symbol)) {
+            return;
+        }
+        try {
+            if (!store.append(symbol, timestamp, price)) {
+                rejectedTicks.increment();
+                log.debug("Dropped tick for {} at {}: older than the last recorded tick", symbol, timestamp);
+            }
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to record tick for {}", symbol, e);
+        }
+    }
+
+    /**
+     * Ticks not recorded because they were older than the last recorded tick of their symbol.
+     */
+    public long getRejectedTicks() {
+        return rejectedTicks.sum();
+    }
+
+    /**
+     * Returns the ticks of the symbol between {@code from} and {@code to} (inclusive, epoch
+     * millis), or OHLC bars aligned to multiples of {@code intervalMillis} when it is positive.
+     * At most max-points ticks or bars are returned; {@code truncated} tells if there were more.
+     */
+    public PriceHistory getHistory(String symbol, long from, long to, long intervalMillis) {
+        if (!TickHistoryStore.isValidSymbol(symbol)) {
+            throw new RuntimeException("Invalid symbol: " + symbol);
+        }
+        PriceHistory history = new PriceHistory();
+        history.setSymbol(symbol);
+        history.setFrom(from);
+        history.setTo(to);
+        if (intervalMillis > 0) {
+            history.setIntervalMillis(intervalMillis);
+            collectBars(history, intervalMillis);
+        } else {
+            store.scan(symbol, from, to, (timestamp, price) -> {
+                if (history.getTicks().size() == maxPoints) {
+                    history.setTruncated(true);
+                    return false;
+                }
+                history.getTicks().add(new PriceTick(timestamp, price));
+                return true;
+            });
+        }
+        return history;
+    }
+
+    private void collectBars(PriceHistory history, long intervalMillis) {
+        store.scan(history.getSymbol(), history.getFrom(), history.getTo(), new TickHistoryStore.TickVisitor() {
+            PriceBar bar;
+
+            @Override
+            public boolean visit(long timestamp, double price) {
+                long start = Math.floorDiv(timestamp, intervalMillis) * intervalMillis;
+                if (bar == null || bar.getTimestamp() != start) {
+                    if (history.getBars().size() == maxPoints) {
+                        history.setTruncated(true);
+                        return false;
+                    }
+                    bar = new PriceBar(start, price, price, price, price, 0);
+                    history.getBars().add(bar);
+                }
+                bar.setHigh(Math.max(bar.getHigh(), price));
+                bar.setLow(Math.min(bar.getLow(), price));
+                bar.setClose(price);
+                bar.setTicks(bar.getTicks() + 1);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Fills {@code closes} with the last price of each of {@code closes.length} consecutive
+     * intervals starting at {@code from}. Intervals without ticks carry the previous close
+     * forward; those before the first tick are NaN. Returns the number of ticks read.
+     */
+    public long closes(String symbol, long from, long intervalMillis, double[] closes) {
+        Arrays.fill(closes, Double.NaN);
+        if (!TickHistoryStore.isValidSymbol(symbol) || closes.length == 0) {
+            return 0;
+        }
+        long to = from + intervalMillis * closes.length - 1;
+        long[] ticks = new long[1];
+        store.scan(symbol, from, to, (timestamp, price) -> {
+            closes[(int) ((timestamp - from) / intervalMillis)] = price;
+            ticks[0]++;
+            return true;
+        });
+        for (int i = 1; i < closes.length; i++) {
+            if (Double.isNaN(closes[i])) {
+                closes[i] = closes[i - 1];
+            }
+        }
+        return ticks[0];
+    }
+
+    /**
+     * Visits the recorded ticks of the symbol with {@code from <= timestamp <= to} in time order.
+     */
+    public void scan(String symbol, long from, long to, TickHistoryStore.TickVisitor visitor) {
+        store.scan(symbol, from, to, visitor);
+    }
+
+    public double lastPriceBefore(String symbol, long before) {
+        return store.lastBefore(symbol, before);
+    }
+
+    public long tickCount(String symbol) {
+        return store.count(symbol);
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.history.flush-interval-ms:5000}")
+    public void flush() {
+        store.force();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        store.close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.PriceBatchResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses NDJSON or CSV tick streams line by line into a {@link PriceTickBatch} and applies the
+ * accepted ticks to {@link MarketDataService} as a single batch.
+ */
+@Service
+public class PriceIngestionService {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final MarketDataService marketDataService;
+    private final JsonFactory jsonFactory;
+
+    public PriceIngestionService(MarketDataService marketDataService, ObjectMapper objectMapper) {
+        this.marketDataService = marketDataService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public PriceBatchResult ingest(InputStream body, UploadFormat format) throws IOException {
+        PriceBatchResult result = new PriceBatchResult();
+        PriceTickBatch batch = new PriceTickBatch(1024);
+        long receivedAt = System.currentTimeMillis();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == UploadFormat.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            try {
+                if (format == UploadFormat.NDJSON) {
+                    parseJsonLine(line, batch, receivedAt);
+                } else {
+                    parseCsvLine(line, batch, receivedAt);
+                }
+            } catch (JsonProcessingException e) {
+                reject(result, lineNumber, e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                reject(result, lineNumber, e.getMessage());
+            }
+        }
+        marketDataService.updatePrices(batch);
+        result.setAccepted(batch.size());
+        return result;
+    }
+
+    private void reject(PriceBatchResult result, int lineNumber, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("line " + lineNumber + ": " + message);
+        }
+    }
+
+    private void parseJsonLine(String line, PriceTickBatch batch, long receivedAt) throws IOException {
+        String symbol = null;
+        double price = Double.NaN;
+        long timestamp = receivedAt;
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "symbol" -> symbol = parser.getValueAsString();
+                    case "price" -> {
+                        if (!value.isNumeric()) {
+                            throw new IllegalArgumentException("price must be a number");
+                        }
+                        price = parser.getDoubleValue();
+                    }
+                    case "timestamp" -> timestamp = parser.getValueAsLong(receivedAt);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        addTick(batch, symbol, price, timestamp);
+    }
+
+    private void parseCsvLine(String line, PriceTickBatch batch, long receivedAt) {
+        int first = line.indexOf(',');
+        if (first < 0) {
+            throw new IllegalArgumentException("expected symbol,price[,timestamp]");
+        }
+        int second = line.indexOf(',', first + 1);
+        String symbol = line.substring(0, first).trim();
+        String price = (second < 0 ? line.substring(first + 1) : line.substring(first + 1, second)).trim();
+        long timestamp = receivedAt;
+        try {
+            if (second >= 0) {
+                timestamp = Long.parseLong(line.substring(second + 1).trim());
+            }
+            addTick(batch, symbol, Double.parseDouble(price), timestamp);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number: " + e.getMessage());
+        }
+    }
+
+    private void addTick(PriceTickBatch batch, String symbol, double price, long timestamp) {
+        if (symbol == null || symbol.isBlank()) {
+            throw new IllegalArgumentException("symbol is required");
+        }
+        if (!(price > 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("price must be positive");
+        }
+        batch.add(MarketDataService.normalizeSymbol(symbol), price, timestamp);
+    }
+
+    private boolean isCsvHeader(String line) {
+        return line.regionMatches(true, 0, "symbol", 0, "symbol".length());
+    }
+}
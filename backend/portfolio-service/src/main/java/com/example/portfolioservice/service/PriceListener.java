@@ -0,0 +1,22 @@
+package com.example.portfolioservice.service;
+
+/**
+ * Callback for price changes published by {@link MarketDataService}. Invoked on the updating
+ * thread after the new prices are visible in the price store.
+ */
+public interface PriceListener {
+    /**
+     * Called for one tick. {@code timestamp} is the tick's own time, which may be older than the
+     * one the price store holds once later ticks of the symbol were applied.
+     */
+    void onPriceUpdate(int symbolId, double previousPrice, double price, long timestamp);
+
+    /**
+     * Called once for a batch of ticks. The arrays are only valid for the duration of the call.
+     */
+    default void onPriceBatch(int[] symbolIds, double[] previousPrices, double[] prices, long[] timestamps, int count) {
+        for (int i = 0; i < count; i++) {
+            onPriceUpdate(symbolIds[i], previousPrices[i], prices[i], timestamps[i]);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.portfolioservice.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent price store keyed by dense symbol ids.
+ *
+ * Each symbol gets an int id on first registration. Prices, timestamps and versions live in
+ * primitive arrays split into fixed-size chunks, so growing the store never moves existing slots.
+ * Every slot is guarded by its own sequence lock: writers of the same symbol serialize on the slot
+ * version, readers never block and simply retry if they observe a write in progress.
+ */
+public class PriceStore {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final VarHandle PRICES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Object registrationLock = new Object();
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile String[] symbols = new String[0];
+    private volatile int size;
+
+    private static final class Chunk {
+        final double[] prices = new double[CHUNK_SIZE];
+        final long[] timestamps = new long[CHUNK_SIZE];
+        // Sequence counter per slot: odd while a write is in progress, update count = sequence / 2
+        final long[] sequences = new long[CHUNK_SIZE];
+
+        Chunk() {
+            Arrays.fill(prices, Double.NaN);
+        }
+    }
+
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    public String symbolOf(int id) {
+        return symbols[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of the symbol, registering it with the given price if it is not known yet.
+     * Only registration takes a lock; it happens once per symbol.
+     */
+    public int register(String symbol, double initialPrice, long timestamp) {
+        int existing = idOf(symbol);
+        if (existing >= 0) {
+            return existing;
+        }
+        synchronized (registrationLock) {
+            existing = idOf(symbol);
+            if (existing >= 0) {
+                return existing;
+            }
+            int id = size;
+            Chunk[] current = chunks;
+            if ((id >>> CHUNK_SHIFT) >= current.length) {
+                Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = new Chunk();
+                chunks = grown;
+            }
+            String[] names = symbols;
+            if (id >= names.length) {
+                names = Arrays.copyOf(names, Math.max(16, names.length * 2));
+            }
+            names[id] = symbol;
+            symbols = names;
+            if (!Double.isNaN(initialPrice)) {
+                update(id, initialPrice, timestamp);
+            }
+            size = id + 1;
+            ids.put(symbol, id);
+            return id;
+        }
+    }
+
+    /**
+     * Stores a new price for the symbol, registering it first if needed, and returns the price it
+     * replaced (NaN for a newly registered symbol).
+     */
+    public double put(String symbol, double price, long timestamp) {
+        int id = idOf(symbol);
+        if (id < 0) {
+            synchronized (registrationLock) {
+                id = idOf(symbol);
+                if (id < 0) {
+                    register(symbol, price, timestamp);
+                    return Double.NaN;
+                }
+            }
+        }
+        return update(id, price, timestamp);
+    }
+
+    /**
+     * Stores a new price for the symbol and returns the price it replaced (NaN if none).
+     */
+    public double update(int id, double price, long timestamp) {
+        Chunk chunk = chunks[id >>> CHUNK_SHIFT];
+        int slot = id & CHUNK_MASK;
+        long sequence;
+        while (true) {
+            sequence = (long) LONGS.getVolatile(chunk.sequences, slot);
+            if ((sequence & 1) == 0 && LONGS.compareAndSet(chunk.sequences, slot, sequence, sequence + 1)) {
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        double previous = (double) PRICES.getOpaque(chunk.prices, slot);
+        PRICES.setOpaque(chunk.prices, slot, price);
+        LONGS.setOpaque(chunk.timestamps, slot, timestamp);
+        LONGS.setRelease(chunk.sequences, slot, sequence + 2);
+        return previous;
+    }
+
+    public double price(int id) {
+        Chunk chunk = chunks[id >>> CHUNK_SHIFT];
+        return (double) PRICES.getOpaque(chunk.prices, id & CHUNK_MASK);
+    }
+
+    public long timestamp(int id) {
+        Chunk chunk = chunks[id >>> CHUNK_SHIFT];
+        return (long) LONGS.getOpaque(chunk.timestamps, id & CHUNK_MASK);
+    }
+
+    /**
+     * Number of completed updates of the symbol.
+     */
+    public long version(int id) {
+        Chunk chunk = chunks[id >>> CHUNK_SHIFT];
+        return ((long) LONGS.getAcquire(chunk.sequences, id & CHUNK_MASK)) >>> 1;
+    }
+
+    /**
+     * Reads price and timestamp of one symbol as a consistent pair. The timestamp is written into
+     * {@code timestampOut[0]} so callers can reuse the array across lookups.
+     */
+    public double read(int id, long[] timestampOut) {
+        Chunk chunk = chunks[id >>> CHUNK_SHIFT];
+        int slot = id & CHUNK_MASK;
+        while (true) {
+            long before = (long) LONGS.getAcquire(chunk.sequences, slot);
+            if ((before & 1) == 0) {
+                double price = (double) PRICES.getOpaque(chunk.prices, slot);
+                long timestamp = (long) LONGS.getOpaque(chunk.timestamps, slot);
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getOpaque(chunk.sequences, slot) == before) {
+                    timestampOut[0] = timestamp;
+                    return price;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.portfolioservice.service;
+
+import java.util.Arrays;
+
+/**
+ * Growable columnar buffer of price ticks, filled by a parser and applied in one go by
+ * {@link MarketDataService#updatePrices(PriceTickBatch)}.
+ */
+public class PriceTickBatch {
+    private String[] symbols;
+    private double[] prices;
+    private long[] timestamps;
+    private int size;
+
+    public PriceTickBatch() {
+        this(256);
+    }
+
+    public PriceTickBatch(int initialCapacity) {
+        symbols = new String[initialCapacity];
+        prices = new double[initialCapacity];
+        timestamps = new long[initialCapacity];
+    }
+
+    public void add(String symbol, double price, long timestamp) {
+        if (size == symbols.length) {
+            int capacity = Math.max(16, size * 2);
+            symbols = Arrays.copyOf(symbols, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        symbols[size] = symbol;
+        prices[size] = price;
+        timestamps[size] = timestamp;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String symbol(int index) {
+        return symbols[index];
+    }
+
+    public double price(int index) {
+        return prices[index];
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public void clear() {
+        Arrays.fill(symbols, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.portfolioservice.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of the daily statistics behind quotes, one entry per symbol.
+ *
+ * The cache is split into segments, each an access-ordered map with its own lock that evicts its
+ * least recently used entry once it holds its share of the capacity. Entries carry their own
+ * expiry: an expired entry is returned together with a miss so the caller can bring it up to date
+ * in place rather than rebuild it.
+ */
+public class QuoteCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Open, high and low of the current day up to {@code scannedTo}, and the close before it.
+     * Guarded by its own monitor.
+     */
+    static final class Entry {
+        long dayStart = Long.MIN_VALUE;
+        long scannedTo;
+        double open = Double.NaN;
+        double high = Double.NaN;
+        double low = Double.NaN;
+        double previousClose = Double.NaN;
+        volatile long expiresAt;
+    }
+
+    private final class Segment extends LinkedHashMap<String, Entry> {
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public QuoteCache(int capacity) {
+        this.capacity = Math.max(SEGMENTS, capacity);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(this.capacity / SEGMENTS);
+        }
+    }
+
+    /**
+     * Returns the entry of the symbol, creating it if needed. Counts a hit only for an entry that
+     * has not expired at {@code now}; new and expired entries are misses to be refreshed.
+     */
+    Entry get(String symbol, long now) {
+        Segment segment = segments[(symbol.hashCode() & 0x7fffffff) % SEGMENTS];
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(symbol);
+            if (entry == null) {
+                entry = new Entry();
+                segment.put(symbol, entry);
+            }
+        }
+        if (now < entry.expiresAt) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return entry;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.StockQuote;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds full quotes for many symbols at once. The live price comes from the price store on every
+ * call; open, high, low and previous close come from the {@link QuoteCache}, whose entries are
+ * brought up to date from the tick history at most once per TTL by scanning only the ticks
+ * recorded since their last refresh.
+ */
+@Service
+public class QuoteService {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final MarketDataService marketDataService;
+    private final PriceStore priceStore;
+    private final PriceHistoryService priceHistoryService;
+    private final QuoteCache cache;
+    private final long ttlMillis;
+    private final int maxSymbols;
+    private final int maxNewSymbols;
+
+    public QuoteService(MarketDataService marketDataService,
+                        PriceHistoryService priceHistoryService,
+                        @Value("${portfolio.quotes.cache-size:10000}") int cacheSize,
+                        @Value("${portfolio.quotes.ttl-ms:1000}") long ttlMillis,
+                        @Value("${portfolio.quotes.max-symbols:500}") int maxSymbols,
+                        @Value("${portfolio.quotes.max-new-symbols:10}") int maxNewSymbols) {
+        this.marketDataService = marketDataService;
+        this.priceStore = marketDataService.getPriceStore();
+        this.priceHistoryService = priceHistoryService;
+        this.cache = new QuoteCache(cacheSize);
+        this.ttlMillis = ttlMillis;
+        this.maxSymbols = maxSymbols;
+        this.maxNewSymbols = maxNewSymbols;
+    }
+
+    /**
+     * Returns one quote per distinct symbol, in request order. Symbols are upper-cased. Up to
+     * {@code maxNewSymbols} symbols the price store does not know yet are priced together
+     * through the market data provider and registered; further unknown ones are left out, so one
+     * request cannot flood the store or the provider.
+     */
+    public List<StockQuote> getQuotes(List<String> symbols) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+            if (TickHistoryStore.isValidSymbol(normalized)) {
+                distinct.add(normalized);
+            }
+        }
+        if (distinct.size() > maxSymbols) {
+            throw new RuntimeException("At most " + maxSymbols + " symbols per request");
+        }
+        List<String> unknown = new ArrayList<>();
+        for (String symbol : distinct) {
+            if (unknown.size() < maxNewSymbols && priceStore.idOf(symbol) < 0) {
+                unknown.add(symbol);
+            }
+        }
+        marketDataService.symbolIds(unknown);
+        long now = System.currentTimeMillis();
+        long[] timestamp = new long[1];
+        List<StockQuote> quotes = new ArrayList<>(distinct.size());
+        for (String symbol : distinct) {
+            int symbolId = priceStore.idOf(symbol);
+            if (symbolId < 0) {
+                continue;
+            }
+            double price = priceStore.read(symbolId, timestamp);
+            QuoteCache.Entry entry = cache.get(symbol, now);
+            StockQuote quote;
+            synchronized (entry) {
+                if (now >= entry.expiresAt) {
+                    refresh(symbol, entry, now);
+                }
+                quote = quote(symbol, entry, price, timestamp[0]);
+            }
+            quotes.add(quote);
+        }
+        return quotes;
+    }
+
+    public QuoteCache getCache() {
+        return cache;
+    }
+
+    private void refresh(String symbol, QuoteCache.Entry entry, long now) {
+        long dayStart = Math.floorDiv(now, DAY_MILLIS) * DAY_MILLIS;
+        if (entry.dayStart != dayStart) {
+            entry.dayStart = dayStart;
+            entry.scannedTo = dayStart - 1;
+            entry.open = Double.NaN;
+            entry.high = Double.NaN;
+            entry.low = Double.NaN;
+            entry.previousClose = priceHistoryService.lastPriceBefore(symbol, dayStart);
+        }
+        priceHistoryService.scan(symbol, entry.scannedTo + 1, now, (time, price) -> {
+            if (Double.isNaN(entry.open)) {
+                entry.open = price;
+                entry.high = price;
+                entry.low = price;
+            } else {
+                entry.high = Math.max(entry.high, price);
+                entry.low = Math.min(entry.low, price);
+            }
+            return true;
+        });
+        entry.scannedTo = now;
+        entry.expiresAt = now + ttlMillis;
+    }
+
+    // The live price may be newer than the last refresh, so it is folded into high and low
+    private static StockQuote quote(String symbol, QuoteCache.Entry entry, double price, long timestamp) {
+        StockQuote quote = new StockQuote();
+        quote.setSymbol(symbol);
+        quote.setCurrentPrice(price);
+        quote.setTimestamp(timestamp);
+        boolean traded = !Double.isNaN(entry.open);
+        quote.setOpenPrice(traded ? entry.open : price);
+        quote.setHighPrice(traded ? Math.max(entry.high, price) : price);
+        quote.setLowPrice(traded ? Math.min(entry.low, price) : price);
+        if (!Double.isNaN(entry.previousClose)) {
+            double change = price - entry.previousClose;
+            quote.setPreviousClose(entry.previousClose);
+            quote.setChange(change);
+            quote.setChangePercent(entry.previousClose != 0.0 ? change / entry.previousClose * 100.0 : null);
+        }
+        return quote;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.portfolioservice.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Order-statistic treap of (score, id) keys, highest score first and ties by ascending id.
+ *
+ * Every node knows the size of its subtree, so insert, remove, rank and selecting the k-th key
+ * take expected logarithmic time. Not thread-safe.
+ */
+final class RankTree {
+    private final SplittableRandom random = new SplittableRandom(0x5eed);
+    private Node root;
+
+    private static final class Node {
+        final double score;
+        final long id;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(double score, long id, int priority) {
+            this.score = score;
+            this.id = id;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Receives keys in rank order, see {@link #visit}.
+     */
+    interface KeyVisitor {
+        void visit(int rank, double score, long id);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    void insert(double score, long id) {
+        root = insert(root, new Node(score, id, random.nextInt()));
+    }
+
+    void remove(double score, long id) {
+        root = remove(root, score, id);
+    }
+
+    /**
+     * Zero-based rank of the key, or -1 if it is not in the tree.
+     */
+    int rank(double score, long id) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int c = compare(score, id, node);
+            if (c == 0) {
+                return rank + size(node.left);
+            }
+            if (c < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Visits at most {@code count} keys in rank order starting at rank {@code from}.
+     */
+    void visit(int from, int count, KeyVisitor visitor) {
+        if (count > 0) {
+            visit(root, from, Math.min(from + count, size()), 0, visitor);
+        }
+    }
+
+    // Visits the ranks [from, to) of the subtree whose first key has rank offset
+    private static void visit(Node node, int from, int to, int offset, KeyVisitor visitor) {
+        if (node == null || from >= to) {
+            return;
+        }
+        int rank = offset + size(node.left);
+        if (from < rank) {
+            visit(node.left, from, to, offset, visitor);
+        }
+        if (from <= rank && rank < to) {
+            visitor.visit(rank, node.score, node.id);
+        }
+        if (to > rank + 1) {
+            visit(node.right, from, to, rank + 1, visitor);
+        }
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            split(node, inserted.score, inserted.id, inserted);
+            update(inserted);
+            return inserted;
+        }
+        if (compare(inserted.score, inserted.id, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        update(node);
+        return node;
+    }
+
+    // Splits the subtree into keys before and after (score, id), stored as the children of into
+    private static void split(Node node, double score, long id, Node into) {
+        if (node == null) {
+            into.left = null;
+            into.right = null;
+            return;
+        }
+        if (compare(score, id, node) < 0) {
+            split(node.left, score, id, into);
+            node.left = into.right;
+            update(node);
+            into.right = node;
+        } else {
+            split(node.right, score, id, into);
+            node.right = into.left;
+            update(node);
+            into.left = node;
+        }
+    }
+
+    private static Node remove(Node node, double score, long id) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(score, id, node);
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = remove(node.left, score, id);
+        } else {
+            node.right = remove(node.right, score, id);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static int compare(double score, long id, Node node) {
+        int c = Double.compare(node.score, score);
+        return c != 0 ? c : Long.compare(id, node.id);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+}
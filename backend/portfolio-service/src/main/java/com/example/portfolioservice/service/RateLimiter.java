@@ -0,0 +1,33 @@
+package com.example.portfolioservice.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evenly spaces calls to a rate-limited upstream. Callers reserve a slot and wait for the
+ * returned delay themselves, so reserving never blocks.
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private long nextFreeNanos = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0L;
+    }
+
+    /**
+     * Reserves the next slot and returns how long the caller has to wait before using it.
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        long start = Math.max(now, nextFreeNanos);
+        nextFreeNanos = start + intervalNanos;
+        return start - now;
+    }
+
+    /**
+     * Pushes all further slots back, e.g. after the upstream answered with a Retry-After.
+     */
+    public synchronized void pause(long nanos) {
+        nextFreeNanos = Math.max(nextFreeNanos, System.nanoTime() + nanos);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.portfolioservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the risk of all portfolios on the configured schedule, nightly by default.
+ */
+@Component
+public class RiskBatchJob {
+    private static final Logger log = LoggerFactory.getLogger(RiskBatchJob.class);
+
+    private final RiskService riskService;
+
+    public RiskBatchJob(RiskService riskService) {
+        this.riskService = riskService;
+    }
+
+    @Scheduled(cron = "${portfolio.risk.batch-cron:0 0 2 * * *}")
+    public void run() {
+        try {
+            riskService.runBatch();
+        } catch (RuntimeException e) {
+            log.error("Risk batch failed", e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.portfolioservice.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Value-at-Risk and volatility over primitive arrays, parallelised with fork-join.
+ *
+ * Inputs are per-symbol return series ({@code returns[symbol][t]}) and portfolios as exposures
+ * (market value per position) in compressed rows: the positions of portfolio {@code p} are
+ * {@code offsets[p]} to {@code offsets[p + 1] - 1} of {@code symbols} and {@code exposures}. One
+ * covariance matrix is computed for all symbols and shared by every portfolio.
+ *
+ * Risk figures are for one return period and in currency units; VaR is reported as a positive
+ * loss. Parametric VaR assumes normally distributed returns with zero mean.
+ */
+public class RiskEngine {
+    public static final double Z_95 = 1.6448536269514722;
+    public static final double Z_99 = 2.3263478740408408;
+
+    private static final int ROW_THRESHOLD = 8;
+    private static final int PORTFOLIO_THRESHOLD = 64;
+
+    private final ForkJoinPool pool;
+
+    public RiskEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Results per portfolio, indexed like the portfolio rows passed in.
+     */
+    public static final class Results {
+        public final double[] volatility;
+        public final double[] historicalVar95;
+        public final double[] historicalVar99;
+        public final double[] parametricVar95;
+        public final double[] parametricVar99;
+
+        Results(int portfolios) {
+            volatility = new double[portfolios];
+            historicalVar95 = new double[portfolios];
+            historicalVar99 = new double[portfolios];
+            parametricVar95 = new double[portfolios];
+            parametricVar99 = new double[portfolios];
+        }
+    }
+
+    /**
+     * Log returns between consecutive prices; NaN prices (no history yet) give a return of 0.
+     */
+    public static double[] logReturns(double[] prices) {
+        double[] returns = new double[Math.max(0, prices.length - 1)];
+        for (int t = 1; t < prices.length; t++) {
+            double previous = prices[t - 1];
+            double current = prices[t];
+            returns[t - 1] = previous > 0 && current > 0 ? Math.log(current / previous) : 0.0;
+        }
+        return returns;
+    }
+
+    /**
+     * Sample covariance matrix of the return series, computed in parallel by rows.
+     */
+    public double[][] covariance(double[][] returns) {
+        int symbols = returns.length;
+        double[][] centered = new double[symbols][];
+        double[][] covariance = new double[symbols][symbols];
+        pool.invoke(new RowTask(0, symbols, row -> {
+            double[] series = returns[row];
+            double mean = 0.0;
+            for (double r : series) {
+                mean += r;
+            }
+            mean = series.length > 0 ? mean / series.length : 0.0;
+            double[] c = new double[series.length];
+            for (int t = 0; t < series.length; t++) {
+                c[t] = series[t] - mean;
+            }
+            centered[row] = c;
+        }));
+        // Each row fills its upper triangle and the mirrored cells
+        pool.invoke(new RowTask(0, symbols, row -> {
+            double[] a = centered[row];
+            int n = a.length;
+            for (int column = row; column < symbols; column++) {
+                double[] b = centered[column];
+                double sum = 0.0;
+                for (int t = 0; t < n; t++) {
+                    sum += a[t] * b[t];
+                }
+                double value = n > 1 ? sum / (n - 1) : 0.0;
+                covariance[row][column] = value;
+                covariance[column][row] = value;
+            }
+        }));
+        return covariance;
+    }
+
+    /**
+     * Runs {@code action} for every index in {@code [0, count)} on the engine's pool.
+     */
+    public void forEach(int count, IntConsumer action) {
+        pool.invoke(new RowTask(0, count, action));
+    }
+
+    /**
+     * Computes volatility and VaR for all portfolios against a shared covariance matrix.
+     */
+    public Results compute(int[] offsets, int[] symbols, double[] exposures, double[][] returns, double[][] covariance) {
+        int portfolios = offsets.length - 1;
+        Results results = new Results(portfolios);
+        int observations = returns.length > 0 ? returns[0].length : 0;
+        pool.invoke(new PortfolioTask(0, portfolios, offsets, symbols, exposures, returns, covariance, observations, results));
+        return results;
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        final int from;
+        final int to;
+        final IntConsumer action;
+
+        RowTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROW_THRESHOLD) {
+                for (int row = from; row < to; row++) {
+                    action.accept(row);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(from, mid, action), new RowTask(mid, to, action));
+        }
+    }
+
+    private static final class PortfolioTask extends RecursiveAction {
+        final int from;
+        final int to;
+        final int[] offsets;
+        final int[] symbols;
+        final double[] exposures;
+        final double[][] returns;
+        final double[][] covariance;
+        final int observations;
+        final Results results;
+
+        PortfolioTask(int from, int to, int[] offsets, int[] symbols, double[] exposures, double[][] returns,
+                      double[][] covariance, int observations, Results results) {
+            this.from = from;
+            this.to = to;
+            this.offsets = offsets;
+            this.symbols = symbols;
+            this.exposures = exposures;
+            this.returns = returns;
+            this.covariance = covariance;
+            this.observations = observations;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PORTFOLIO_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PortfolioTask(from, mid, offsets, symbols, exposures, returns, covariance, observations, results),
+                        new PortfolioTask(mid, to, offsets, symbols, exposures, returns, covariance, observations, results));
+                return;
+            }
+            // Scratch buffer for the P&L series, reused across the portfolios of this leaf
+            double[] pnl = new double[observations];
+            for (int p = from; p < to; p++) {
+                computePortfolio(p, pnl);
+            }
+        }
+
+        private void computePortfolio(int p, double[] pnl) {
+            int start = offsets[p];
+            int end = offsets[p + 1];
+
+            double variance = 0.0;
+            for (int i = start; i < end; i++) {
+                double[] row = covariance[symbols[i]];
+                double ei = exposures[i];
+                double sum = 0.0;
+                for (int j = start; j < end; j++) {
+                    sum += exposures[j] * row[symbols[j]];
+                }
+                variance += ei * sum;
+            }
+            double sigma = Math.sqrt(Math.max(0.0, variance));
+            results.volatility[p] = sigma;
+            results.parametricVar95[p] = Z_95 * sigma;
+            results.parametricVar99[p] = Z_99 * sigma;
+
+            if (observations == 0) {
+                return;
+            }
+            Arrays.fill(pnl, 0.0);
+            for (int i = start; i < end; i++) {
+                double[] series = returns[symbols[i]];
+                double exposure = exposures[i];
+                for (int t = 0; t < observations; t++) {
+                    pnl[t] += exposure * series[t];
+                }
+            }
+            Arrays.sort(pnl);
+            results.historicalVar95[p] = Math.max(0.0, -quantile(pnl, 0.05));
+            results.historicalVar99[p] = Math.max(0.0, -quantile(pnl, 0.01));
+        }
+    }
+
+    // Lower empirical quantile of sorted values
+    static double quantile(double[] sorted, double probability) {
+        int index = (int) Math.floor(probability * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.PortfolioRisk;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.repository.PortfolioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes portfolio risk from holdings and the recorded price history.
+ *
+ * Returns are log returns of interval closes over the last {@code observations} intervals. A
+ * batch lays out all holdings as primitive arrays, builds one covariance matrix for every symbol
+ * held and evaluates all portfolios against it with the {@link RiskEngine}. The last batch is
+ * kept so its figures can be served without recomputing.
+ */
+@Service
+public class RiskService {
+    private static final Logger log = LoggerFactory.getLogger(RiskService.class);
+
+    private static final String SELECT_HOLDINGS =
+            "SELECT portfolio_id, symbol, quantity FROM stock_holdings WHERE quantity > 0 ORDER BY portfolio_id";
+
+    private final PortfolioRepository portfolioRepository;
+    private final MarketDataService marketDataService;
+    private final PriceHistoryService priceHistoryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool pool;
+    private final RiskEngine engine;
+    private final long intervalMillis;
+    private final int observations;
+    private final double periodsPerYear;
+    private volatile RiskBatch lastBatch;
+
+    public RiskService(PortfolioRepository portfolioRepository,
+                       MarketDataService marketDataService,
+                       PriceHistoryService priceHistoryService,
+                       JdbcTemplate jdbcTemplate,
+                       @Value("${portfolio.risk.interval:1d}") String interval,
+                       @Value("${portfolio.risk.observations:250}") int observations,
+                       @Value("${portfolio.risk.periods-per-year:252}") double periodsPerYear,
+                       @Value("${portfolio.risk.parallelism:0}") int parallelism) {
+        this.portfolioRepository = portfolioRepository;
+        this.marketDataService = marketDataService;
+        this.priceHistoryService = priceHistoryService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.intervalMillis = DurationStyle.detectAndParse(interval).toMillis();
+        this.observations = observations;
+        this.periodsPerYear = periodsPerYear;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.engine = new RiskEngine(pool);
+    }
+
+    /**
+     * Holdings of many portfolios as compressed rows of symbol indexes and quantities.
+     */
+    static final class Holdings {
+        final List<String> symbols = new ArrayList<>();
+        final Map<String, Integer> symbolIndex = new HashMap<>();
+        long[] portfolioIds = new long[16];
+        int[] offsets = new int[17];
+        int[] positionSymbols = new int[64];
+        double[] quantities = new double[64];
+        int portfolios;
+        int positions;
+
+        void add(long portfolioId, String symbol, double quantity) {
+            if (portfolios == 0 || portfolioIds[portfolios - 1] != portfolioId) {
+                if (portfolios == portfolioIds.length) {
+                    portfolioIds = Arrays.copyOf(portfolioIds, portfolios * 2);
+                    offsets = Arrays.copyOf(offsets, portfolios * 2 + 1);
+                }
+                portfolioIds[portfolios++] = portfolioId;
+            }
+            if (positions == positionSymbols.length) {
+                positionSymbols = Arrays.copyOf(positionSymbols, positions * 2);
+                quantities = Arrays.copyOf(quantities, positions * 2);
+            }
+            positionSymbols[positions] = symbolIndex.computeIfAbsent(symbol, s -> {
+                symbols.add(s);
+                return symbols.size() - 1;
+            });
+            quantities[positions++] = quantity;
+            offsets[portfolios] = positions;
+        }
+    }
+
+    private record RiskBatch(long computedAt, Holdings holdings, double[] exposures, boolean[] withoutHistory,
+                             RiskEngine.Results results, Map<Long, Integer> rows) {
+    }
+
+    /**
+     * Computes the risk of one portfolio against the current price history.
+     */
+    @Transactional(readOnly = true)
+    public PortfolioRisk getRisk(Long portfolioId) {
+        Portfolio portfolio = portfolioRepository.findById(portfolioId)
+                .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+        Holdings holdings = new Holdings();
+        for (StockHolding holding : portfolio.getHoldings()) {
+            if (holding.getQuantity() > 0) {
+                holdings.add(portfolioId, holding.getSymbol(), holding.getQuantity());
+            }
+        }
+        if (holdings.portfolios == 0) {
+            PortfolioRisk risk = new PortfolioRisk();
+            risk.setPortfolioId(portfolioId);
+            risk.setSource("live");
+            risk.setComputedAt(System.currentTimeMillis());
+            risk.setIntervalMillis(intervalMillis);
+            return risk;
+        }
+        return toRisk(compute(holdings), 0, "live");
+    }
+
+    /**
+     * Returns the risk of the portfolio from the last batch.
+     */
+    public PortfolioRisk getBatchRisk(Long portfolioId) {
+        RiskBatch batch = lastBatch;
+        if (batch == null) {
+            throw new RuntimeException("No risk batch has completed yet");
+        }
+        Integer row = batch.rows().get(portfolioId);
+        if (row == null) {
+            throw new RuntimeException("Portfolio not in last risk batch");
+        }
+        return toRisk(batch, row, "batch");
+    }
+
+    /**
+     * Computes the risk of every portfolio with holdings, sharing one covariance matrix.
+     * Returns the number of portfolios evaluated.
+     */
+    public synchronized int runBatch() {
+        long started = System.nanoTime();
+        Holdings holdings = new Holdings();
+        jdbcTemplate.query(SELECT_HOLDINGS, rs -> {
+            holdings.add(rs.getLong(1), rs.getString(2), rs.getInt(3));
+        });
+        RiskBatch batch = compute(holdings);
+        lastBatch = batch;
+        log.info("Risk batch evaluated {} portfolios over {} symbols in {} ms", holdings.portfolios,
+                holdings.symbols.size(), (System.nanoTime() - started) / 1_000_000);
+        return holdings.portfolios;
+    }
+
+    private RiskBatch compute(Holdings holdings) {
+        int symbolCount = holdings.symbols.size();
+        long from = (Math.floorDiv(System.currentTimeMillis(), intervalMillis) - observations) * intervalMillis;
+        double[][] returns = new double[symbolCount][];
+        boolean[] withoutHistory = new boolean[symbolCount];
+        double[] prices = new double[symbolCount];
+        for (int s = 0; s < symbolCount; s++) {
+            prices[s] = marketDataService.getCurrentPrice(marketDataService.symbolId(holdings.symbols.get(s)));
+        }
+        engine.forEach(symbolCount, s -> {
+            double[] closes = new double[observations + 1];
+            priceHistoryService.closes(holdings.symbols.get(s), from, intervalMillis, closes);
+            withoutHistory[s] = Double.isNaN(closes[closes.length - 2]);
+            returns[s] = RiskEngine.logReturns(closes);
+        });
+        double[][] covariance = engine.covariance(returns);
+
+        int positions = holdings.positions;
+        double[] exposures = new double[positions];
+        for (int i = 0; i < positions; i++) {
+            exposures[i] = holdings.quantities[i] * prices[holdings.positionSymbols[i]];
+        }
+        int[] offsets = Arrays.copyOf(holdings.offsets, holdings.portfolios + 1);
+        RiskEngine.Results results = engine.compute(offsets, holdings.positionSymbols, exposures, returns, covariance);
+
+        Map<Long, Integer> rows = new HashMap<>(holdings.portfolios * 2);
+        for (int p = 0; p < holdings.portfolios; p++) {
+            rows.put(holdings.portfolioIds[p], p);
+        }
+        return new RiskBatch(System.currentTimeMillis(), holdings, exposures, withoutHistory, results, rows);
+    }
+
+    private PortfolioRisk toRisk(RiskBatch batch, int row, String source) {
+        Holdings holdings = batch.holdings();
+        RiskEngine.Results results = batch.results();
+        PortfolioRisk risk = new PortfolioRisk();
+        risk.setPortfolioId(holdings.portfolioIds[row]);
+        risk.setSource(source);
+        risk.setComputedAt(batch.computedAt());
+        risk.setIntervalMillis(intervalMillis);
+        risk.setObservations(observations);
+        double totalValue = 0.0;
+        for (int i = holdings.offsets[row]; i < holdings.offsets[row + 1]; i++) {
+            totalValue += batch.exposures()[i];
+            if (batch.withoutHistory()[holdings.positionSymbols[i]]) {
+                risk.getSymbolsWithoutHistory().add(holdings.symbols.get(holdings.positionSymbols[i]));
+            }
+        }
+        risk.setTotalValue(totalValue);
+        double volatility = totalValue > 0 ? results.volatility[row] / totalValue : 0.0;
+        risk.setVolatility(volatility);
+        risk.setAnnualizedVolatility(volatility * Math.sqrt(periodsPerYear));
+        risk.setHistoricalVar95(results.historicalVar95[row]);
+        risk.setHistoricalVar99(results.historicalVar99[row]);
+        risk.setParametricVar95(results.parametricVar95[row]);
+        risk.setParametricVar99(results.parametricVar99[row]);
+        return risk;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Quote;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Quotes every symbol with a price derived only from the seed and the symbol, so prices of
+ * symbols first seen at run time are the same on every run with the same seed.
+ */
+public class SimulatedMarketDataProvider implements MarketDataProvider {
+    private final long seed;
+
+    public SimulatedMarketDataProvider(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Initial price of the symbol, between 10 and 1000 with cent precision.
+     */
+    public double initialPrice(String symbol) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + symbol.hashCode());
+        return Math.round((10.0 + random.nextDouble() * 990.0) * 100.0) / 100.0;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Quote>> fetchQuotes(List<String> symbols) {
+        long now = System.currentTimeMillis();
+        Map<String, Quote> quotes = new HashMap<>();
+        for (String symbol : symbols) {
+            quotes.put(symbol, new Quote(symbol, initialPrice(symbol), now));
+        }
+        return CompletableFuture.completedFuture(quotes);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.portfolioservice.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reverse index from dense symbol id to the entries priced by that symbol. Reads are lock-free
+ * on copy-on-write arrays, so price ticks never wait for portfolios being indexed.
+ */
+final class SymbolIndex<T> {
+    private final T[] empty;
+    private volatile AtomicReferenceArray<T[]> entries = new AtomicReferenceArray<>(0);
+
+    SymbolIndex(T[] empty) {
+        this.empty = empty;
+    }
+
+    /**
+     * Entries of the symbol, or null if there are none.
+     */
+    T[] get(int symbolId) {
+        AtomicReferenceArray<T[]> current = entries;
+        return symbolId < current.length() ? current.get(symbolId) : null;
+    }
+
+    synchronized void add(int symbolId, T entry) {
+        addAll(symbolId, List.of(entry));
+    }
+
+    /**
+     * Adds many entries with a single copy of the symbol's array.
+     */
+    synchronized void addAll(int symbolId, List<T> added) {
+        AtomicReferenceArray<T[]> current = entries;
+        if (symbolId >= current.length()) {
+            int length = Math.max(symbolId + 1, current.length() * 2);
+            AtomicReferenceArray<T[]> grown = new AtomicReferenceArray<>(length);
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            entries = grown;
+            current = grown;
+        }
+        T[] existing = current.get(symbolId);
+        if (existing == null) {
+            existing = empty;
+        }
+        T[] updated = Arrays.copyOf(existing, existing.length + added.size());
+        for (int i = 0; i < added.size(); i++) {
+            updated[existing.length + i] = added.get(i);
+        }
+        current.set(symbolId, updated);
+    }
+
+    synchronized void remove(int symbolId, T entry) {
+        AtomicReferenceArray<T[]> current = entries;
+        T[] existing = symbolId < current.length() ? current.get(symbolId) : null;
+        if (existing == null) {
+            return;
+        }
+        for (int i = 0; i < existing.length; i++) {
+            if (existing[i] == entry) {
+                T[] updated = Arrays.copyOf(empty, existing.length - 1);
+                System.arraycopy(existing, 0, updated, 0, i);
+                System.arraycopy(existing, i + 1, updated, i, existing.length - i - 1);
+                current.set(symbolId, updated.length == 0 ? null : updated);
+                return;
+            }
+        }
+    }
+}
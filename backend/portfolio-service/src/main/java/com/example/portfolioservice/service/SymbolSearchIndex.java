@@ -0,0 +1,454 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.SymbolMatch;
+import com.example.portfolioservice.model.SymbolSearchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Immutable search index over the symbol master.
+ *
+ * Results are ranked in tiers: exact symbol, symbol prefix, name word prefix, substring of symbol
+ * or name, then prefixes within a small edit distance. Within a tier shorter symbols come first,
+ * then alphabetical order. Every tier reads pre-ranked lists and stops as soon as the limit is
+ * filled, so a query never sorts or scans the whole master:
+ * <ul>
+ *   <li>symbols are bucketed by length, each bucket sorted, so prefixes are binary-searched
+ *   ranges visited from the shortest bucket up;</li>
+ *   <li>name words are sorted with ranked posting lists, merged across the words of a prefix;</li>
+ *   <li>substrings and phrases come from ranked trigram posting lists, packed into one sorted
+ *   array;</li>
+ *   <li>fuzzy matches walk the sorted symbols and words as an implicit trie with one edit
+ *   distance row per depth, pruning every subtree that cannot come within the distance. Like
+ *   the prefix length of search engines' fuzzy queries, the first character has to match.</li>
+ * </ul>
+ */
+final class SymbolSearchIndex {
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int GRAM = 3;
+    private static final int GRAM_SHIFT = 40;
+
+    record Entry(String symbol, String name, String type, String exchange) {
+    }
+
+    private final Entry[] entries;
+    // Lower-cased symbols in the order of entries
+    private final String[] symbols;
+    // Lower-cased "symbol name" of each entry, for substring matches
+    private final String[] texts;
+    // Entry ids by symbol length, each in symbol order
+    private final int[][] byLength;
+    private final String[] words;
+    private final long[][] wordPostings;
+    // Trigram code above each ranked key, sorted: the postings of a trigram are one slice
+    private final long[] grams;
+    // Symbols and name words together, for fuzzy matching
+    private final String[] keys;
+    private final long[][] keyPostings;
+    private final int maxKeyLength;
+
+    SymbolSearchIndex(Collection<Entry> source) {
+        Map<String, Entry> bySymbol = new TreeMap<>();
+        for (Entry entry : source) {
+            bySymbol.putIfAbsent(normalize(entry.symbol()), entry);
+        }
+        entries = bySymbol.values().toArray(new Entry[0]);
+        symbols = bySymbol.keySet().toArray(new String[0]);
+        texts = new String[entries.length];
+
+        int maxSymbolLength = 0;
+        for (String symbol : symbols) {
+            maxSymbolLength = Math.max(maxSymbolLength, symbol.length());
+        }
+        List<List<Integer>> lengths = new ArrayList<>();
+        for (int length = 0; length <= maxSymbolLength; length++) {
+            lengths.add(new ArrayList<>());
+        }
+        Map<String, Postings> wordLists = new TreeMap<>();
+        Postings gramList = new Postings();
+        Map<String, Postings> keyLists = new TreeMap<>();
+        for (int id = 0; id < entries.length; id++) {
+            String name = normalize(entries[id].name());
+            texts[id] = name.isEmpty() ? symbols[id] : symbols[id] + " " + name;
+            lengths.get(symbols[id].length()).add(id);
+            keyLists.computeIfAbsent(symbols[id], k -> new Postings()).add(key(0, symbols[id].length(), id));
+            boolean first = true;
+            for (String word : name.split("[^a-z0-9]+")) {
+                if (word.isEmpty()) {
+                    continue;
+                }
+                long ranked = key(first ? 0 : 1, symbols[id].length(), id);
+                wordLists.computeIfAbsent(word, w -> new Postings()).add(ranked);
+                keyLists.computeIfAbsent(word, w -> new Postings()).add(key(0, symbols[id].length(), id));
+                first = false;
+            }
+            for (int i = 0; i + GRAM <= texts[id].length(); i++) {
+                gramList.add(((long) gram(texts[id], i) << GRAM_SHIFT) | key(0, symbols[id].length(), id));
+            }
+        }
+        byLength = new int[maxSymbolLength + 1][];
+        for (int length = 0; length <= maxSymbolLength; length++) {
+            byLength[length] = lengths.get(length).stream().mapToInt(Integer::intValue).toArray();
+        }
+        words = wordLists.keySet().toArray(new String[0]);
+        wordPostings = wordLists.values().stream().map(Postings::ranked).toArray(long[][]::new);
+        grams = gramList.ranked();
+        keys = keyLists.keySet().toArray(new String[0]);
+        keyPostings = keyLists.values().stream().map(Postings::ranked).toArray(long[][]::new);
+        int longest = 0;
+        for (String key : keys) {
+            longest = Math.max(longest, key.length());
+        }
+        maxKeyLength = longest;
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    boolean contains(String symbol) {
+        return Arrays.binarySearch(symbols, normalize(symbol)) >= 0;
+    }
+
+    List<SymbolSearchResult> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Results results = new Results(limit);
+        matchSymbols(q, results);
+        if (!results.full()) {
+            matchNameWords(q, results);
+        }
+        if (!results.full()) {
+            matchSubstrings(q, results);
+        }
+        if (!results.full() && q.length() >= MIN_FUZZY_LENGTH) {
+            matchFuzzy(q, results);
+        }
+        return results.list;
+    }
+
+    private void matchSymbols(String q, Results results) {
+        for (int length = q.length(); length < byLength.length && !results.full(); length++) {
+            int[] ids = byLength[length];
+            int low = 0;
+            int high = ids.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (symbols[ids[mid]].compareTo(q) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < ids.length && symbols[ids[i]].startsWith(q) && !results.full(); i++) {
+                results.add(ids[i], length == q.length() ? SymbolMatch.EXACT : SymbolMatch.PREFIX);
+            }
+        }
+    }
+
+    // Entries with a name word starting with the query; a multi-word query has to appear as a
+    // phrase starting at a word of the name
+    private void matchNameWords(String q, Results results) {
+        if (q.indexOf(' ') >= 0) {
+            long[] slice = rarestGram(q);
+            if (slice != null) {
+                for (int i = (int) slice[0]; i < slice[1] && !results.full(); i++) {
+                    int id = (int) grams[i];
+                    int at = texts[id].indexOf(q, symbols[id].length());
+                    if (at > 0 && texts[id].charAt(at - 1) == ' ') {
+                        results.add(id, SymbolMatch.NAME_PREFIX);
+                    }
+                }
+            }
+            return;
+        }
+        int from = lowerBound(words, q);
+        int to = prefixEnd(words, q, from);
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, to - from),
+                (x, y) -> Long.compare(wordPostings[x[0]][x[1]], wordPostings[y[0]][y[1]]));
+        for (int w = from; w < to; w++) {
+            cursors.add(new int[] {w, 0});
+        }
+        while (!results.full() && !cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            results.add((int) wordPostings[cursor[0]][cursor[1]], SymbolMatch.NAME_PREFIX);
+            if (++cursor[1] < wordPostings[cursor[0]].length) {
+                cursors.add(cursor);
+            }
+        }
+    }
+
+    private void matchSubstrings(String q, Results results) {
+        if (q.length() < GRAM) {
+            for (int length = 0; length < byLength.length && !results.full(); length++) {
+                for (int id : byLength[length]) {
+                    if (texts[id].contains(q)) {
+                        results.add(id, SymbolMatch.SUBSTRING);
+                        if (results.full()) {
+                            return;
+                        }
+                    }
+                }
+            }
+            return;
+        }
+        long[] slice = rarestGram(q);
+        if (slice == null) {
+            return;
+        }
+        for (int i = (int) slice[0]; i < slice[1] && !results.full(); i++) {
+            int id = (int) grams[i];
+            if (texts[id].contains(q)) {
+                results.add(id, SymbolMatch.SUBSTRING);
+            }
+        }
+    }
+
+    // Every occurrence of the query contains all of its trigrams, so the slice of the rarest one
+    // bounds the candidates. Null if a trigram does not occur at all.
+    private long[] rarestGram(String q) {
+        long[] rarest = null;
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            long code = gram(q, i);
+            int from = lowerBound(grams, code << GRAM_SHIFT);
+            int to = lowerBound(grams, (code + 1) << GRAM_SHIFT);
+            if (from == to) {
+                return null;
+            }
+            if (rarest == null || to - from < rarest[1] - rarest[0]) {
+                rarest = new long[] {from, to};
+            }
+        }
+        return rarest;
+    }
+
+    private void matchFuzzy(String q, Results results) {
+        int maxDistance = q.length() <= 5 ? 1 : 2;
+        int[][] rows = new int[maxKeyLength + 1][q.length() + 1];
+        for (int i = 0; i <= q.length(); i++) {
+            rows[0][i] = i;
+        }
+        Ranking ranking = new Ranking(results.remaining());
+        walk(q, maxDistance, 0, keys.length, 0, rows, results, ranking);
+        ranking.addTo(results, SymbolMatch.FUZZY);
+    }
+
+    // Visits the children of the implicit trie node made of keys[from, to), which share their
+    // first depth characters. rows[d][i] is the edit distance between the first d characters of
+    // the node path and the first i characters of the query.
+    private void walk(String q, int max, int from, int to, int depth, int[][] rows,
+                      Results results, Ranking ranking) {
+        int m = q.length();
+        int start = from;
+        while (start < to) {
+            if (keys[start].length() == depth) {
+                start++;
+                continue;
+            }
+            char c = keys[start].charAt(depth);
+            int end = childEnd(start, to, depth, c);
+            if (depth == 0 && c != q.charAt(0)) {
+                start = end;
+                continue;
+            }
+            int[] previous = rows[depth];
+            int[] row = rows[depth + 1];
+            row[0] = depth + 1;
+            int rowMin = row[0];
+            for (int i = 1; i <= m; i++) {
+                int value = Math.min(Math.min(previous[i] + 1, row[i - 1] + 1),
+                        previous[i - 1] + (q.charAt(i - 1) == c ? 0 : 1));
+                if (depth > 0 && i > 1 && q.charAt(i - 2) == c && q.charAt(i - 1) == keys[start].charAt(depth - 1)) {
+                    value = Math.min(value, rows[depth - 1][i - 2] + 1);
+                }
+                row[i] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (row[m] <= max) {
+                // The whole query is within reach: every key below this node matches as a prefix
+                for (int k = start; k < end; k++) {
+                    for (long posting : keyPostings[k]) {
+                        int id = (int) posting;
+                        if (!results.seen.get(id)) {
+                            ranking.offer(key(row[m], symbols[id].length(), id));
+                        }
+                    }
+                }
+            } else if (rowMin <= max && depth + 1 < maxKeyLength) {
+                walk(q, max, start, end, depth + 1, rows, results, ranking);
+            }
+            start = end;
+        }
+    }
+
+    // End of the keys in [from, to) with character c at depth, given the first one has it
+    private int childEnd(int from, int to, int depth, char c) {
+        int low = from + 1;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].charAt(depth) <= c) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private final class Results {
+        final int limit;
+        final List<SymbolSearchResult> list = new ArrayList<>();
+        final BitSet seen = new BitSet(entries.length);
+
+        Results(int limit) {
+            this.limit = limit;
+        }
+
+        boolean full() {
+            return list.size() >= limit;
+        }
+
+        int remaining() {
+            return limit - list.size();
+        }
+
+        void add(int id, SymbolMatch match) {
+            if (!full() && !seen.get(id)) {
+                seen.set(id);
+                Entry entry = entries[id];
+                list.add(new SymbolSearchResult(entry.symbol(), entry.name(), entry.type(), entry.exchange(), match));
+            }
+        }
+    }
+
+    /**
+     * Keeps the lowest ranked keys offered, at most one per entry.
+     */
+    private static final class Ranking {
+        final long[] best;
+        int size;
+
+        Ranking(int capacity) {
+            best = new long[capacity];
+        }
+
+        void offer(long ranked) {
+            int id = (int) ranked;
+            for (int i = 0; i < size; i++) {
+                if ((int) best[i] == id) {
+                    if (ranked >= best[i]) {
+                        return;
+                    }
+                    System.arraycopy(best, i + 1, best, i, --size - i);
+                    break;
+                }
+            }
+            if (size == best.length && ranked >= best[size - 1]) {
+                return;
+            }
+            int i = size == best.length ? size - 1 : size++;
+            while (i > 0 && best[i - 1] > ranked) {
+                best[i] = best[i - 1];
+                i--;
+            }
+            best[i] = ranked;
+        }
+
+        void addTo(Results results, SymbolMatch match) {
+            for (int i = 0; i < size; i++) {
+                results.add((int) best[i], match);
+            }
+        }
+    }
+
+    /**
+     * Collects ranked keys per list at build time.
+     */
+    private static final class Postings {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] ranked() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    // Orders by rank, then by symbol length, then alphabetically (entry ids follow symbol order)
+    private static long key(int rank, int length, int id) {
+        return ((long) rank << 40) | ((long) Math.min(length, 255) << 32) | id;
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int index = Arrays.binarySearch(sorted, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == key) {
+            index--;
+        }
+        return index;
+    }
+
+    // Packs three characters into 18 bits; characters outside the alphabet share a code, which
+    // the substring check behind every trigram lookup tolerates
+    private static int gram(String text, int offset) {
+        return (code(text.charAt(offset)) << 12) | (code(text.charAt(offset + 1)) << 6) | code(text.charAt(offset + 2));
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1 + c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 27 + c - '0';
+        }
+        int index = " .&-'".indexOf(c);
+        return index >= 0 ? 37 + index : 63;
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int index = Arrays.binarySearch(sorted, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int prefixEnd(String[] sorted, String prefix, int from) {
+        int low = from;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
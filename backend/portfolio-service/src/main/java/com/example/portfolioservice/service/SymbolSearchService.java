@@ -0,0 +1,106 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.SymbolSearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers symbol and company name searches from an in-memory {@link SymbolSearchIndex} built from
+ * the symbol master file ({@code symbol,name,type,exchange} CSV with a header line) plus every
+ * symbol that has a price. The index is rebuilt on the scheduler thread when the file changes or
+ * new symbols were priced, and swapped in with a single write, so searches never wait for it.
+ */
+@Service
+public class SymbolSearchService {
+    private static final Logger log = LoggerFactory.getLogger(SymbolSearchService.class);
+
+    private final Resource symbolFile;
+    private final PriceStore priceStore;
+    private volatile SymbolSearchIndex index;
+    private long fileModified;
+    private int pricedSymbols;
+
+    public SymbolSearchService(MarketDataService marketDataService,
+                               @Value("${portfolio.symbols.file:classpath:symbols.csv}") Resource symbolFile) {
+        this.symbolFile = symbolFile;
+        this.priceStore = marketDataService.getPriceStore();
+        rebuild();
+    }
+
+    public List<SymbolSearchResult> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.symbols.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (lastModified() != fileModified || priceStore.size() != pricedSymbols) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        long modified = lastModified();
+        int priced = priceStore.size();
+        List<SymbolSearchIndex.Entry> entries;
+        try {
+            entries = readSymbolFile();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read symbol file {}", symbolFile, e);
+            if (index != null) {
+                return;
+            }
+            entries = new ArrayList<>();
+        }
+        SymbolSearchIndex master = new SymbolSearchIndex(entries);
+        for (int id = 0; id < priced; id++) {
+            String symbol = priceStore.symbolOf(id);
+            if (symbol != null && !master.contains(symbol)) {
+                entries.add(new SymbolSearchIndex.Entry(symbol, "", "", ""));
+            }
+        }
+        index = entries.size() > master.size() ? new SymbolSearchIndex(entries) : master;
+        fileModified = modified;
+        pricedSymbols = priced;
+        log.info("Symbol search index built with {} symbols", index.size());
+    }
+
+    private List<SymbolSearchIndex.Entry> readSymbolFile() throws IOException {
+        List<SymbolSearchIndex.Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(symbolFile.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", -1);
+                if (fields.length < 2 || fields[0].isBlank()) {
+                    continue;
+                }
+                entries.add(new SymbolSearchIndex.Entry(fields[0].trim(), fields[1].trim(),
+                        fields.length > 2 ? fields[2].trim() : "", fields.length > 3 ? fields[3].trim() : ""));
+            }
+        }
+        return entries;
+    }
+
+    private long lastModified() {
+        try {
+            return symbolFile.lastModified();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
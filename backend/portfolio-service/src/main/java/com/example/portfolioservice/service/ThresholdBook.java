@@ -0,0 +1,216 @@
+package com.example.portfolioservice.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Alert thresholds of one symbol or portfolio, kept per direction in a treap ordered by threshold
+ * and then alert id, so alerts on one level fire in registration order.
+ *
+ * Adding or removing an alert takes expected logarithmic time in the size of the book. The
+ * thresholds crossed by a move from one value to the next form a contiguous range of one side,
+ * which is split off, fired and dropped in expected logarithmic time plus one step per fired alert.
+ */
+final class ThresholdBook {
+    private final Side above = new Side();
+    private final Side below = new Side();
+    private double lastValue = Double.NaN;
+
+    /**
+     * Receives the alerts fired by {@link #cross}.
+     */
+    interface FiredVisitor {
+        void fired(long alertId, double threshold);
+    }
+
+    private static final class Node {
+        final double threshold;
+        final long id;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+
+        Node(double threshold, long id) {
+            this.threshold = threshold;
+            this.id = id;
+        }
+    }
+
+    private static final class Side {
+        // Receives the two halves of a split as its children
+        private final Node parts = new Node(0.0, 0L);
+        Node root;
+        int count;
+
+        void add(double threshold, long id) {
+            root = insert(root, new Node(threshold, id));
+            count++;
+        }
+
+        boolean remove(double threshold, long id) {
+            if (!contains(threshold, id)) {
+                return false;
+            }
+            root = removeNode(root, threshold, id);
+            count--;
+            return true;
+        }
+
+        /**
+         * Fires and removes the thresholds in {@code (from, to]} if {@code inclusive}, otherwise
+         * those in {@code [from, to)}.
+         */
+        int fire(double from, double to, boolean inclusive, FiredVisitor visitor) {
+            splitAt(root, from, inclusive, parts);
+            Node before = parts.left;
+            splitAt(parts.right, to, inclusive, parts);
+            Node crossed = parts.left;
+            root = merge(before, parts.right);
+            int fired = visit(crossed, visitor);
+            count -= fired;
+            return fired;
+        }
+
+        private boolean contains(double threshold, long id) {
+            Node node = root;
+            while (node != null) {
+                int c = compare(threshold, id, node);
+                if (c == 0) {
+                    return true;
+                }
+                node = c < 0 ? node.left : node.right;
+            }
+            return false;
+        }
+    }
+
+    synchronized void add(boolean above, double threshold, long id) {
+        (above ? this.above : below).add(threshold, id);
+    }
+
+    synchronized boolean remove(boolean above, double threshold, long id) {
+        return (above ? this.above : below).remove(threshold, id);
+    }
+
+    synchronized int size() {
+        return above.count + below.count;
+    }
+
+    /**
+     * Fires and removes the alerts crossed by moving from the last value seen to {@code value}:
+     * rising through an above-threshold ({@code last < t <= value}) or falling through a
+     * below-threshold ({@code value <= t < last}). Returns the number fired.
+     */
+    synchronized int cross(double value, FiredVisitor visitor) {
+        double last = lastValue;
+        lastValue = value;
+        if (Double.isNaN(last) || Double.isNaN(value) || last == value) {
+            return 0;
+        }
+        if (value > last) {
+            return above.root != null ? above.fire(last, value, true, visitor) : 0;
+        }
+        return below.root != null ? below.fire(value, last, false, visitor) : 0;
+    }
+
+    synchronized void setLastValue(double value) {
+        if (Double.isNaN(lastValue)) {
+            lastValue = value;
+        }
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            split(node, inserted.threshold, inserted.id, inserted);
+            return inserted;
+        }
+        if (compare(inserted.threshold, inserted.id, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return node;
+    }
+
+    private static Node removeNode(Node node, double threshold, long id) {
+        int c = compare(threshold, id, node);
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = removeNode(node.left, threshold, id);
+        } else {
+            node.right = removeNode(node.right, threshold, id);
+        }
+        return node;
+    }
+
+    // Splits the subtree into keys before and after (threshold, id), stored as the children of into
+    private static void split(Node node, double threshold, long id, Node into) {
+        if (node == null) {
+            into.left = null;
+            into.right = null;
+            return;
+        }
+        if (compare(threshold, id, node) < 0) {
+            split(node.left, threshold, id, into);
+            node.left = into.right;
+            into.right = node;
+        } else {
+            split(node.right, threshold, id, into);
+            node.right = into.left;
+            into.left = node;
+        }
+    }
+
+    // Splits the subtree into thresholds below the bound (or equal to it if inclusive) and the
+    // rest, stored as the children of into
+    private static void splitAt(Node node, double bound, boolean inclusive, Node into) {
+        if (node == null) {
+            into.left = null;
+            into.right = null;
+            return;
+        }
+        if (node.threshold < bound || (inclusive && node.threshold == bound)) {
+            splitAt(node.right, bound, inclusive, into);
+            node.right = into.left;
+            into.left = node;
+        } else {
+            splitAt(node.left, bound, inclusive, into);
+            node.left = into.right;
+            into.right = node;
+        }
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        return right;
+    }
+
+    // Visits the subtree in order and returns its size
+    private static int visit(Node node, FiredVisitor visitor) {
+        if (node == null) {
+            return 0;
+        }
+        int visited = visit(node.left, visitor);
+        visitor.fired(node.id, node.threshold);
+        return visited + 1 + visit(node.right, visitor);
+    }
+
+    private static int compare(double threshold, long id, Node node) {
+        int c = Double.compare(threshold, node.threshold);
+        return c != 0 ? c : Long.compare(id, node.id);
+    }
+}
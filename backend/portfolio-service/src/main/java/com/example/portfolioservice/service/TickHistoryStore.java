@@ -0,0 +1,316 @@
+package com.example.portfolioservice.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only tick history, one directory of memory-mapped segment files per symbol.
+ *
+ * A segment holds a fixed number of ticks in two fixed-width columns: all timestamps, then all
+ * prices. The tick count sits in the segment header and is written after the tick itself, so a
+ * segment reopened after a crash only exposes complete ticks. The ticks live in the OS page
+ * cache rather than on the heap, and reopening a symbol only maps its segments again. File
+ * channels are closed once mapped, so open segments do not hold file descriptors.
+ *
+ * The first segment of a symbol is small and each further one doubles up to the configured
+ * capacity, so thousands of rarely traded symbols do not each reserve a full segment.
+ *
+ * Timestamps must not decrease within a symbol. That keeps every column sorted, so range queries
+ * binary search the timestamps. One writer per symbol is assumed at a time (appends are
+ * synchronized per symbol). Readers never lock and only see ticks whose count is published.
+ */
+public class TickHistoryStore implements Closeable {
+    private static final long MAGIC = 0x5449434B53454731L;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int HEADER_BYTES = 64;
+    private static final int FIRST_SEGMENT_CAPACITY = 1024;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final Pattern SYMBOL = Pattern.compile("[A-Za-z0-9._^=-]{1,32}");
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * Receives ticks from {@link #scan}; returning false stops the scan.
+     */
+    public interface TickVisitor {
+        boolean visit(long timestamp, double price);
+    }
+
+    public TickHistoryStore(Path directory, int segmentCapacity) throws IOException {
+        if (segmentCapacity <= 0 || segmentCapacity > (Integer.MAX_VALUE - HEADER_BYTES) / (Long.BYTES + Double.BYTES)) {
+            throw new IllegalArgumentException("Segment capacity out of range: " + segmentCapacity);
+        }
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        Files.createDirectories(directory);
+    }
+
+    public static boolean isValidSymbol(String symbol) {
+        return symbol != null && SYMBOL.matcher(symbol).matches() && !symbol.startsWith(".");
+    }
+
+    /**
+     * Appends a tick. Returns false if the timestamp is older than the last tick of the symbol.
+     */
+    public boolean append(String symbol, long timestamp, double price) {
+        return series(symbol).append(timestamp, price);
+    }
+
+    /**
+     * Visits the ticks of the symbol with {@code from <= timestamp <= to} in time order.
+     */
+    public void scan(String symbol, long from, long to, TickVisitor visitor) {
+        if (!isValidSymbol(symbol) || from > to) {
+            return;
+        }
+        Series s = series.get(symbol);
+        if (s == null) {
+            if (!Files.isDirectory(directory.resolve(symbol))) {
+                return;
+            }
+            s = series(symbol);
+        }
+        for (Segment segment : s.segments) {
+            int count = segment.count;
+            if (count == 0 || segment.timestamp(count - 1) < from) {
+                continue;
+            }
+            if (segment.timestamp(0) > to) {
+                return;
+            }
+            for (int i = segment.lowerBound(from, count); i < count; i++) {
+                long timestamp = segment.timestamp(i);
+                if (timestamp > to || !visitor.visit(timestamp, segment.price(i))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the price of the last tick of the symbol before {@code before}, or NaN if there is
+     * none. Only the segment holding that tick is searched.
+     */
+    public double lastBefore(String symbol, long before) {
+        if (!isValidSymbol(symbol)) {
+            return Double.NaN;
+        }
+        Series s = series.get(symbol);
+        if (s == null) {
+            if (!Files.isDirectory(directory.resolve(symbol))) {
+                return Double.NaN;
+            }
+            s = series(symbol);
+        }
+        Segment[] segments = s.segments;
+        for (int i = segments.length - 1; i >= 0; i--) {
+            Segment segment = segments[i];
+            int count = segment.count;
+            if (count > 0 && segment.timestamp(0) < before) {
+                return segment.price(segment.lowerBound(before, count) - 1);
+            }
+        }
+        return Double.NaN;
+    }
+
+    public long count(String symbol) {
+        Series s = series.get(symbol);
+        if (s == null) {
+            return 0;
+        }
+        long count = 0;
+        for (Segment segment : s.segments) {
+            count += segment.count;
+        }
+        return count;
+    }
+
+    /**
+     * Symbols with history on disk, including those not opened since the last restart.
+     */
+    public List<String> symbols() throws IOException {
+        TreeSet<String> symbols = new TreeSet<>(series.keySet());
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                symbols.add(dir.getFileName().toString());
+            }
+        }
+        return new ArrayList<>(symbols);
+    }
+
+    /**
+     * Writes dirty pages of all open segments to disk.
+     */
+    public void force() {
+        for (Series s : series.values()) {
+            for (Segment segment : s.segments) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+        series.clear();
+    }
+
+    private Series series(String symbol) {
+        if (!isValidSymbol(symbol)) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        return series.computeIfAbsent(symbol, s -> {
+            try {
+                return new Series(directory.resolve(s));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private final class Series {
+        final Path dir;
+        volatile Segment[] segments;
+        long lastTimestamp = Long.MIN_VALUE;
+
+        Series(Path dir) throws IOException {
+            this.dir = dir;
+            Files.createDirectories(dir);
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+                stream.forEach(files::add);
+            }
+            files.sort(null);
+            Segment[] opened = new Segment[files.size()];
+            for (int i = 0; i < opened.length; i++) {
+                opened[i] = Segment.open(files.get(i));
+            }
+            segments = opened;
+            for (int i = opened.length - 1; i >= 0; i--) {
+                if (opened[i].count > 0) {
+                    lastTimestamp = opened[i].timestamp(opened[i].count - 1);
+                    break;
+                }
+            }
+        }
+
+        synchronized boolean append(long timestamp, double price) {
+            if (timestamp < lastTimestamp) {
+                return false;
+            }
+            Segment[] current = segments;
+            Segment tail = current.length > 0 ? current[current.length - 1] : null;
+            if (tail == null || tail.count == tail.capacity) {
+                int capacity = tail == null
+                        ? Math.min(FIRST_SEGMENT_CAPACITY, segmentCapacity)
+                        : (int) Math.min(segmentCapacity, Math.max(FIRST_SEGMENT_CAPACITY, 2L * tail.capacity));
+                try {
+                    tail = Segment.create(dir.resolve(String.format("%010d%s", current.length, SEGMENT_SUFFIX)), capacity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                Segment[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = tail;
+                segments = grown;
+            }
+            tail.append(timestamp, price);
+            lastTimestamp = timestamp;
+            return true;
+        }
+    }
+
+    private static final class Segment {
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final int pricesOffset;
+        volatile int count;
+
+        private Segment(MappedByteBuffer buffer, int capacity, int count) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.pricesOffset = HEADER_BYTES + capacity * Long.BYTES;
+            this.count = count;
+        }
+
+        // The mapping stays valid after the channel is closed
+        static Segment create(Path file, int capacity) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_BYTES + (long) capacity * (Long.BYTES + Double.BYTES));
+            }
+            buffer.putLong(0, MAGIC);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(COUNT_OFFSET, 0);
+            return new Segment(buffer, capacity, 0);
+        }
+
+        static Segment open(Path file) throws IOException {
+            MappedByteBuffer buffer;
+            long size;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                size = channel.size();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            if (size < HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+                throw new IOException("Not a tick segment: " + file);
+            }
+            int capacity = buffer.getInt(CAPACITY_OFFSET);
+            int count = buffer.getInt(COUNT_OFFSET);
+            if (capacity <= 0 || count < 0 || count > capacity
+                    || size < HEADER_BYTES + (long) capacity * (Long.BYTES + Double.BYTES)) {
+                throw new IOException("Corrupt tick segment header: " + file);
+            }
+            return new Segment(buffer, capacity, count);
+        }
+
+        void append(long timestamp, double price) {
+            int index = count;
+            buffer.putLong(HEADER_BYTES + index * Long.BYTES, timestamp);
+            buffer.putDouble(pricesOffset + index * Double.BYTES, price);
+            // Publish the tick only once both columns are written
+            buffer.putInt(COUNT_OFFSET, index + 1);
+            count = index + 1;
+        }
+
+        long timestamp(int index) {
+            return buffer.getLong(HEADER_BYTES + index * Long.BYTES);
+        }
+
+        double price(int index) {
+            return buffer.getDouble(pricesOffset + index * Double.BYTES);
+        }
+
+        // First index in [0, count) whose timestamp is >= from
+        int lowerBound(long from, int count) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamp(mid) < from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
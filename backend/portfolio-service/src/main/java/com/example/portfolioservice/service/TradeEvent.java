@@ -0,0 +1,35 @@
+package com.example.portfolioservice.service;
+
+/**
+ * One entry of the trade ledger. Sequence and timestamp are assigned when the event is appended.
+ *
+ * {@code PORTFOLIO_CREATED} carries name and userId, {@code BUY} symbol, quantity and price,
+ * {@code SELL} symbol and quantity, {@code REMOVE} only the symbol.
+ */
+public record TradeEvent(long sequence, long timestamp, Type type, long portfolioId, String symbol, int quantity,
+                         double price, String name, String userId) {
+
+    public enum Type {
+        PORTFOLIO_CREATED, BUY, SELL, REMOVE
+    }
+
+    public static TradeEvent portfolioCreated(long portfolioId, String name, String userId) {
+        return new TradeEvent(0, 0, Type.PORTFOLIO_CREATED, portfolioId, null, 0, 0.0, name, userId);
+    }
+
+    public static TradeEvent buy(long portfolioId, String symbol, int quantity, double price) {
+        return new TradeEvent(0, 0, Type.BUY, portfolioId, symbol, quantity, price, null, null);
+    }
+
+    public static TradeEvent sell(long portfolioId, String symbol, int quantity) {
+        return new TradeEvent(0, 0, Type.SELL, portfolioId, symbol, quantity, 0.0, null, null);
+    }
+
+    public static TradeEvent remove(long portfolioId, String symbol) {
+        return new TradeEvent(0, 0, Type.REMOVE, portfolioId, symbol, 0, 0.0, null, null);
+    }
+
+    TradeEvent sequenced(long sequence, long timestamp) {
+        return new TradeEvent(sequence, timestamp, type, portfolioId, symbol, quantity, price, name, userId);
+    }
+}
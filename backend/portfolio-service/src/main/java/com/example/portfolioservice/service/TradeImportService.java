@@ -0,0 +1,346 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.model.TradeImportResult;
+import com.example.portfolioservice.repository.PortfolioRepository;
+import com.example.portfolioservice.repository.StockHoldingRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays a stream of trades against many portfolios in one transaction.
+ *
+ * The upload is parsed before anything is locked, so that the symbols it trades are resolved
+ * first and every portfolio it touches is locked up front in one order. Trades are then applied
+ * in order to the holdings of each portfolio, which are loaded once per portfolio rather than
+ * once per trade. New, changed and emptied holdings are written at commit through Hibernate JDBC
+ * batching.
+ */
+@Service
+public class TradeImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final PortfolioRepository portfolioRepository;
+    private final StockHoldingRepository stockHoldingRepository;
+    private final MarketDataService marketDataService;
+    private final PortfolioValuationEngine valuationEngine;
+    private final UserExposureService userExposureService;
+    private final PortfolioLeaderboard portfolioLeaderboard;
+    private final PortfolioLocks portfolioLocks;
+    private final TradeLedgerService tradeLedgerService;
+    private final JsonFactory jsonFactory;
+
+    public TradeImportService(PortfolioRepository portfolioRepository,
+                              StockHoldingRepository stockHoldingRepository,
+                              MarketDataService marketDataService,
+                              PortfolioValuationEngine valuationEngine,
+                              UserExposureService userExposureService,
+                              PortfolioLeaderboard portfolioLeaderboard,
+                              PortfolioLocks portfolioLocks,
+                              TradeLedgerService tradeLedgerService,
+                              ObjectMapper objectMapper) {
+        this.portfolioRepository = portfolioRepository;
+        this.stockHoldingRepository = stockHoldingRepository;
+        this.marketDataService = marketDataService;
+        this.valuationEngine = valuationEngine;
+        this.userExposureService = userExposureService;
+        this.portfolioLeaderboard = portfolioLeaderboard;
+        this.portfolioLocks = portfolioLocks;
+        this.tradeLedgerService = tradeLedgerService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    private record Trade(Long portfolioId, String symbol, int quantity, double price) {
+    }
+
+    // A parsed line, or the reason it was rejected
+    private record Row(int lineNumber, Trade trade, String error) {
+    }
+
+    private static final class PortfolioImport {
+        final Portfolio portfolio;
+        final Map<String, StockHolding> holdings = new HashMap<>();
+        final List<StockHolding> created = new ArrayList<>();
+        final Map<String, StockHolding> updated = new HashMap<>();
+
+        PortfolioImport(Portfolio portfolio) {
+            this.portfolio = portfolio;
+            for (StockHolding holding : portfolio.getHoldings()) {
+                holdings.put(holding.getSymbol(), holding);
+            }
+        }
+    }
+
+    @Transactional
+    public TradeImportResult importTrades(InputStream body, UploadFormat format) throws IOException {
+        long started = System.nanoTime();
+        TradeImportResult result = new TradeImportResult();
+        List<Row> rows = read(body, format);
+        result.setRowsRead(rows.size());
+        Set<Long> portfolioIds = new HashSet<>();
+        Set<String> symbols = new HashSet<>();
+        for (Row row : rows) {
+            if (row.trade() != null) {
+                portfolioIds.add(row.trade().portfolioId());
+                symbols.add(row.trade().symbol());
+            }
+        }
+
+        Map<String, Integer> symbolIds = resolveSymbols(portfolioIds, symbols);
+        // Held until commit; a lock timeout rolls back the whole import
+        portfolioLocks.lockAllForTransaction(portfolioIds);
+        Map<Long, PortfolioImport> imports = new HashMap<>();
+        if (!portfolioIds.isEmpty()) {
+            for (Portfolio portfolio : portfolioRepository.findWithHoldingsByIdIn(portfolioIds)) {
+                imports.put(portfolio.getId(), new PortfolioImport(portfolio));
+            }
+        }
+
+        List<TradeEvent> events = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.error() != null) {
+                reject(result, row.lineNumber(), row.error());
+                continue;
+            }
+            Trade trade = row.trade();
+            try {
+                PortfolioImport portfolioImport = imports.get(trade.portfolioId());
+                if (portfolioImport == null) {
+                    throw new IllegalArgumentException("portfolio " + trade.portfolioId() + " not found");
+                }
+                apply(portfolioImport, trade);
+            } catch (IllegalArgumentException e) {
+                reject(result, row.lineNumber(), e.getMessage());
+                continue;
+            }
+            events.add(trade.quantity() > 0
+                    ? TradeEvent.buy(trade.portfolioId(), trade.symbol(), trade.quantity(), trade.price())
+                    : TradeEvent.sell(trade.portfolioId(), trade.symbol(), -trade.quantity()));
+            result.setRowsAccepted(result.getRowsAccepted() + 1);
+        }
+
+        persist(imports.values(), symbolIds, result);
+        tradeLedgerService.record(events);
+        result.setPortfoliosAffected(imports.size());
+        long elapsedNanos = System.nanoTime() - started;
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setTradesPerSecond(elapsedNanos > 0 ? result.getRowsAccepted() * 1_000_000_000.0 / elapsedNanos : 0.0);
+        return result;
+    }
+
+    private List<Row> read(InputStream body, UploadFormat format) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == UploadFormat.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            try {
+                rows.add(new Row(lineNumber, format == UploadFormat.NDJSON ? parseJsonLine(line) : parseCsvLine(line), null));
+            } catch (JsonProcessingException e) {
+                rows.add(new Row(lineNumber, null, e.getOriginalMessage()));
+            } catch (IllegalArgumentException e) {
+                rows.add(new Row(lineNumber, null, e.getMessage()));
+            }
+        }
+        return rows;
+    }
+
+    // Resolving an unknown symbol may wait on the market data provider, so the traded symbols and
+    // those already held by the portfolios are resolved together before any portfolio is locked
+    private Map<String, Integer> resolveSymbols(Set<Long> portfolioIds, Set<String> tradedSymbols) {
+        Set<String> symbols = new HashSet<>(tradedSymbols);
+        if (!portfolioIds.isEmpty()) {
+            symbols.addAll(stockHoldingRepository.findSymbolsByPortfolioIdIn(portfolioIds));
+        }
+        List<String> ordered = new ArrayList<>(symbols);
+        int[] ids = marketDataService.symbolIds(ordered);
+        Map<String, Integer> symbolIds = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            symbolIds.put(ordered.get(i), ids[i]);
+        }
+        return symbolIds;
+    }
+
+    private void apply(PortfolioImport portfolioImport, Trade trade) {
+        StockHolding holding = portfolioImport.holdings.get(trade.symbol());
+        if (trade.quantity() > 0) {
+            if (holding == null) {
+                holding = new StockHolding();
+                holding.setPortfolio(portfolioImport.portfolio);
+                holding.setSymbol(trade.symbol());
+                holding.setQuantity(trade.quantity());
+                holding.setAveragePrice(trade.price());
+                portfolioImport.holdings.put(trade.symbol(), holding);
+                portfolioImport.created.add(holding);
+            } else {
+                holding.setAveragePrice(PortfolioService.averagePrice(holding.getQuantity(), holding.getAveragePrice(),
+                        trade.quantity(), trade.price()));
+                holding.setQuantity(holding.getQuantity() + trade.quantity());
+                markUpdated(portfolioImport, holding);
+            }
+        } else {
+            int quantityToReduce = -trade.quantity();
+            if (holding == null || holding.getQuantity() == 0) {
+                throw new IllegalArgumentException("stock " + trade.symbol() + " not found in portfolio " + trade.portfolioId());
+            }
+            if (holding.getQuantity() < quantityToReduce) {
+                throw new IllegalArgumentException("cannot reduce " + trade.symbol() + " by more than " + holding.getQuantity());
+            }
+            holding.setQuantity(holding.getQuantity() - quantityToReduce);
+            markUpdated(portfolioImport, holding);
+        }
+    }
+
+    private void markUpdated(PortfolioImport portfolioImport, StockHolding holding) {
+        if (holding.getId() != null) {
+            portfolioImport.updated.put(holding.getSymbol(), holding);
+        }
+    }
+
+    private void persist(Iterable<PortfolioImport> imports, Map<String, Integer> symbolIds, TradeImportResult result) {
+        List<StockHolding> toInsert = new ArrayList<>();
+        List<StockHolding> toDelete = new ArrayList<>();
+        for (PortfolioImport portfolioImport : imports) {
+            Portfolio portfolio = portfolioImport.portfolio;
+            for (StockHolding holding : portfolioImport.created) {
+                if (holding.getQuantity() > 0) {
+                    portfolio.getHoldings().add(holding);
+                    toInsert.add(holding);
+                }
+            }
+            for (StockHolding holding : portfolioImport.updated.values()) {
+                if (holding.getQuantity() == 0) {
+                    portfolio.getHoldings().remove(holding);
+                    toDelete.add(holding);
+                } else {
+                    result.setHoldingsUpdated(result.getHoldingsUpdated() + 1);
+                }
+            }
+            double totalValue = 0.0;
+            for (StockHolding holding : portfolio.getHoldings()) {
+                Integer symbolId = symbolIds.get(holding.getSymbol());
+                // Missing only for a holding committed by another trade after the symbols were read,
+                // which resolved its symbol already
+                double price = symbolId != null
+                        ? marketDataService.getCurrentPrice(symbolId)
+                        : marketDataService.getCurrentPrice(holding.getSymbol());
+                holding.setCurrentValue(holding.getQuantity() * price);
+                totalValue += holding.getCurrentValue();
+            }
+            portfolio.setTotalValue(totalValue);
+        }
+        // Inserts and updates are flushed in JDBC batches at commit
+        stockHoldingRepository.saveAll(toInsert);
+        stockHoldingRepository.deleteAll(toDelete);
+        result.setHoldingsCreated(toInsert.size());
+        result.setHoldingsRemoved(toDelete.size());
+        stockHoldingRepository.flush();
+        for (PortfolioImport portfolioImport : imports) {
+            valuationEngine.refresh(portfolioImport.portfolio);
+            userExposureService.refresh(portfolioImport.portfolio);
+            portfolioLeaderboard.refresh(portfolioImport.portfolio);
+        }
+    }
+
+    private Trade parseJsonLine(String line) throws IOException {
+        Long portfolioId = null;
+        String symbol = null;
+        Integer quantity = null;
+        double price = Double.NaN;
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "portfolioId" -> portfolioId = requireInteger(parser, value, field).longValue();
+                    case "symbol" -> symbol = parser.getValueAsString();
+                    case "quantity" -> quantity = requireInteger(parser, value, field).intValue();
+                    case "price" -> {
+                        if (value != JsonToken.VALUE_NULL) {
+                            if (!value.isNumeric()) {
+                                throw new IllegalArgumentException("price must be a number");
+                            }
+                            price = parser.getDoubleValue();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return trade(portfolioId, symbol, quantity, price);
+    }
+
+    private Number requireInteger(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value != JsonToken.VALUE_NUMBER_INT) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+        return parser.getLongValue();
+    }
+
+    private Trade parseCsvLine(String line) {
+        String[] columns = line.split(",", -1);
+        if (columns.length < 3) {
+            throw new IllegalArgumentException("expected portfolioId,symbol,quantity[,price]");
+        }
+        try {
+            Long portfolioId = Long.parseLong(columns[0].trim());
+            int quantity = Integer.parseInt(columns[2].trim());
+            double price = columns.length > 3 && !columns[3].isBlank() ? Double.parseDouble(columns[3].trim()) : Double.NaN;
+            return trade(portfolioId, columns[1], quantity, price);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number: " + e.getMessage());
+        }
+    }
+
+    private Trade trade(Long portfolioId, String symbol, Integer quantity, double price) {
+        if (portfolioId == null) {
+            throw new IllegalArgumentException("portfolioId is required");
+        }
+        if (symbol == null || symbol.isBlank()) {
+            throw new IllegalArgumentException("symbol is required");
+        }
+        if (quantity == null || quantity == 0) {
+            throw new IllegalArgumentException("quantity must be non-zero");
+        }
+        if (quantity > 0 && (!(price > 0) || Double.isInfinite(price))) {
+            throw new IllegalArgumentException("price must be positive for a buy");
+        }
+        return new Trade(portfolioId, MarketDataService.normalizeSymbol(symbol), quantity, price);
+    }
+
+    private void reject(TradeImportResult result, int lineNumber, String message) {
+        result.setRowsRejected(result.getRowsRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("line " + lineNumber + ": " + message);
+        }
+    }
+
+    private boolean isCsvHeader(String line) {
+        return line.regionMatches(true, 0, "portfolioId", 0, "portfolioId".length());
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.portfolioservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of {@link TradeEvent}s with snapshots of the {@link LedgerProjection}.
+ *
+ * Each record is {@code [length][payload][crc32]}. On open, the latest snapshot is loaded and
+ * only the records written after it are replayed; a torn or corrupt tail left by a crash is cut
+ * off. A snapshot stores the projection together with the log offset and sequence it covers,
+ * and is replaced atomically.
+ *
+ * Portfolios whose committed trades could not be appended are recorded as gaps in a separate
+ * file; their projection is incomplete and must not be trusted until an operator reconciles them
+ * and removes the entry.
+ */
+public class TradeLedger implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(TradeLedger.class);
+    // Changed with the snapshot format; an older snapshot is ignored and the full log replayed
+    private static final int SNAPSHOT_MAGIC = 0x4C534E51;
+    private static final int MAX_PAYLOAD_BYTES = 4096;
+    private static final int RECORD_OVERHEAD = 2 * Integer.BYTES;
+
+    private final Path snapshotFile;
+    private final Path gapsFile;
+    private final Set<Long> gaps = new HashSet<>();
+    private final FileChannel channel;
+    private final LedgerProjection projection;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(256 * 1024);
+    private final CRC32 crc = new CRC32();
+    private long lastSequence;
+    private long endOffset;
+    private long snapshotSequence;
+    private long replayedEvents;
+
+    private TradeLedger(Path directory, LedgerProjection projection) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve("snapshot.bin");
+        this.gapsFile = directory.resolve("gaps.txt");
+        this.projection = projection;
+        this.channel = FileChannel.open(directory.resolve("trades.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        loadSnapshot();
+        replayTail();
+        loadGaps();
+    }
+
+    /**
+     * Opens the ledger in the directory and brings the projection up to date: latest snapshot
+     * first, then the tail of the log.
+     */
+    public static TradeLedger open(Path directory, LedgerProjection projection) throws IOException {
+        return new TradeLedger(directory, projection);
+    }
+
+    /**
+     * Appends the events in order, applies them to the projection and returns them with their
+     * sequence numbers. The events are written to the OS but not forced to disk. If writing
+     * fails, none of the events are kept and the log ends after the previous append.
+     */
+    public synchronized List<TradeEvent> append(List<TradeEvent> events) throws IOException {
+        List<TradeEvent> appended = new ArrayList<>(events.size());
+        long now = System.currentTimeMillis();
+        long startOffset = endOffset;
+        try {
+            for (TradeEvent event : events) {
+                TradeEvent sequenced = event.sequenced(lastSequence + appended.size() + 1, now);
+                encode(sequenced);
+                appended.add(sequenced);
+            }
+            flushBuffer();
+        } catch (IOException | RuntimeException e) {
+            // A partial record would make replay stop there and drop every later append
+            writeBuffer.clear();
+            endOffset = startOffset;
+            try {
+                channel.truncate(startOffset);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        for (TradeEvent sequenced : appended) {
+            projection.apply(sequenced);
+        }
+        lastSequence += appended.size();
+        return appended;
+    }
+
+    /**
+     * Durably records that committed trades of the portfolios are missing from the log.
+     */
+    public synchronized void markGaps(Collection<Long> portfolioIds) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Long portfolioId : portfolioIds) {
+            if (!gaps.contains(portfolioId)) {
+                lines.append(portfolioId).append('\n');
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        Files.writeString(gapsFile, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                StandardOpenOption.SYNC);
+        gaps.addAll(portfolioIds);
+    }
+
+    public synchronized Set<Long> getGaps() {
+        return Set.copyOf(gaps);
+    }
+
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Writes the projection and the log position it covers to a new snapshot file.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (snapshotSequence == lastSequence) {
+            return;
+        }
+        // The log must be durable up to the offset the snapshot points at
+        channel.force(false);
+        Path temp = snapshotFile.resolveSibling("snapshot.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastSequence);
+            out.writeLong(endOffset);
+            projection.write(out);
+        }
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotSequence = lastSequence;
+    }
+
+    /**
+     * Runs the reader against the projection while no events are being appended.
+     */
+    public synchronized <T> T read(Function<LedgerProjection, T> reader) {
+        return reader.apply(projection);
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public synchronized long getReplayedEvents() {
+        return replayedEvents;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("bad magic");
+            }
+            long sequence = in.readLong();
+            long offset = in.readLong();
+            projection.read(in);
+            if (offset > channel.size()) {
+                throw new IOException("snapshot points past the end of the log");
+            }
+            lastSequence = sequence;
+            snapshotSequence = sequence;
+            endOffset = offset;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable ledger snapshot {}, replaying the full log: {}", snapshotFile, e.getMessage());
+            projection.clear();
+            lastSequence = 0;
+            snapshotSequence = 0;
+            endOffset = 0;
+        }
+    }
+
+    private void loadGaps() throws IOException {
+        if (!Files.exists(gapsFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(gapsFile, StandardCharsets.UTF_8)) {
+            try {
+                gaps.add(Long.parseLong(line.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed ledger gap entry '{}' in {}", line, gapsFile);
+            }
+        }
+        if (!gaps.isEmpty()) {
+            log.warn("Trade ledger is missing committed trades of portfolios {}", gaps);
+        }
+    }
+
+    private void replayTail() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        long position = endOffset;
+        long validEnd = endOffset;
+        boolean eof = false;
+        buffer.flip();
+        while (true) {
+            if (buffer.remaining() >= Integer.BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length <= 0 || length > MAX_PAYLOAD_BYTES) {
+                    break;
+                }
+                if (buffer.remaining() >= length + RECORD_OVERHEAD) {
+                    crc.reset();
+                    crc.update(buffer.array(), start + Integer.BYTES, length);
+                    if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES + length)) {
+                        break;
+                    }
+                    buffer.position(start + Integer.BYTES);
+                    TradeEvent event = decode(buffer);
+                    buffer.position(start + RECORD_OVERHEAD + length);
+                    projection.apply(event);
+                    lastSequence = event.sequence();
+                    validEnd += RECORD_OVERHEAD + length;
+                    replayedEvents++;
+                    continue;
+                }
+            }
+            if (eof) {
+                break;
+            }
+            buffer.compact();
+            int read = channel.read(buffer, position);
+            buffer.flip();
+            if (read <= 0) {
+                eof = true;
+            } else {
+                position += read;
+            }
+        }
+        if (validEnd < channel.size()) {
+            log.warn("Truncating {} bytes of incomplete trade ledger records", channel.size() - validEnd);
+            channel.truncate(validEnd);
+        }
+        endOffset = validEnd;
+    }
+
+    private void encode(TradeEvent event) throws IOException {
+        byte[] symbol = bytes(event.symbol());
+        byte[] name = bytes(event.name());
+        byte[] userId = bytes(event.userId());
+        int length = 2 * Long.BYTES + 1 + Long.BYTES + Integer.BYTES + Double.BYTES + 3 * Short.BYTES
+                + length(symbol) + length(name) + length(userId);
+        if (length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Trade event too large");
+        }
+        if (writeBuffer.remaining() < length + RECORD_OVERHEAD) {
+            flushBuffer();
+        }
+        int start = writeBuffer.position();
+        writeBuffer.putInt(length);
+        writeBuffer.putLong(event.sequence());
+        writeBuffer.putLong(event.timestamp());
+        writeBuffer.put((byte) event.type().ordinal());
+        writeBuffer.putLong(event.portfolioId());
+        writeBuffer.putInt(event.quantity());
+        writeBuffer.putDouble(event.price());
+        putString(symbol);
+        putString(name);
+        putString(userId);
+        crc.reset();
+        crc.update(writeBuffer.array(), start + Integer.BYTES, length);
+        writeBuffer.putInt((int) crc.getValue());
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            endOffset += channel.write(writeBuffer, endOffset);
+        }
+        writeBuffer.clear();
+    }
+
+    private static TradeEvent decode(ByteBuffer buffer) {
+        long sequence = buffer.getLong();
+        long timestamp = buffer.getLong();
+        TradeEvent.Type type = TradeEvent.Type.values()[buffer.get()];
+        long portfolioId = buffer.getLong();
+        int quantity = buffer.getInt();
+        double price = buffer.getDouble();
+        String symbol = getString(buffer);
+        String name = getString(buffer);
+        String userId = getString(buffer);
+        return new TradeEvent(sequence, timestamp, type, portfolioId, symbol, quantity, price, name, userId);
+    }
+
+    private void putString(byte[] value) {
+        if (value == null) {
+            writeBuffer.putShort((short) -1);
+        } else {
+            writeBuffer.putShort((short) value.length);
+            writeBuffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] value) {
+        return value != null ? value.length : 0;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.repository.PortfolioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Records every trade in the {@link TradeLedger} and restores portfolios and holdings from it.
+ *
+ * Events are appended after the trading transaction commits, while the portfolio lock is still
+ * held, so the ledger order per portfolio matches the commit order. A snapshot is taken once
+ * enough events have accumulated, which bounds the replay work at the next startup.
+ *
+ * Appending after the commit leaves a window in which a committed trade can miss the ledger: an
+ * append that fails, a process killed before it, or an OS crash before the next sync. To detect
+ * that, each trade also adds its event count to the portfolio's {@code ledger_version} column in
+ * the trading transaction. A portfolio whose database version is ahead of the ledger has a gap
+ * and is never restored from the ledger, so a committed trade is not reverted.
+ */
+@Service
+public class TradeLedgerService {
+    private static final Logger log = LoggerFactory.getLogger(TradeLedgerService.class);
+    private static final String ADD_LEDGER_VERSION =
+            "UPDATE portfolios SET ledger_version = ledger_version + ? WHERE id = ?";
+
+    private final TradeLedger ledger;
+    private final long snapshotEvery;
+    private final PortfolioRepository portfolioRepository;
+    private final MarketDataService marketDataService;
+    private final PortfolioValuationEngine valuationEngine;
+    private final UserExposureService userExposureService;
+    private final PortfolioLeaderboard portfolioLeaderboard;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public TradeLedgerService(PortfolioRepository portfolioRepository,
+                              MarketDataService marketDataService,
+                              PortfolioValuationEngine valuationEngine,
+                              UserExposureService userExposureService,
+                              PortfolioLeaderboard portfolioLeaderboard,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${portfolio.ledger.dir:data/ledger}") String directory,
+                              @Value("${portfolio.ledger.snapshot-every:100000}") long snapshotEvery) throws IOException {
+        this.portfolioRepository = portfolioRepository;
+        this.marketDataService = marketDataService;
+        this.valuationEngine = valuationEngine;
+        this.userExposureService = userExposureService;
+        this.portfolioLeaderboard = portfolioLeaderboard;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotEvery = snapshotEvery;
+        long started = System.nanoTime();
+        this.ledger = TradeLedger.open(Path.of(directory), new LedgerProjection());
+        log.info("Trade ledger opened at sequence {}: snapshot {}, replayed {} events in {} ms",
+                ledger.getLastSequence(), ledger.getSnapshotSequence(), ledger.getReplayedEvents(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public void record(TradeEvent event) {
+        record(List.of(event));
+    }
+
+    /**
+     * Counts the events in the portfolios' ledger versions and appends them once the current
+     * transaction commits, or right away without one.
+     */
+    public void record(List<TradeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // Sorted, so concurrent transactions lock the portfolio rows in the same order
+        Map<Long, Integer> counts = new TreeMap<>();
+        for (TradeEvent event : events) {
+            counts.merge(event.portfolioId(), 1, Integer::sum);
+        }
+        List<Object[]> versions = new ArrayList<>(counts.size());
+        counts.forEach((portfolioId, count) -> versions.add(new Object[] {count, portfolioId}));
+        jdbcTemplate.batchUpdate(ADD_LEDGER_VERSION, versions);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        ledger.append(events);
+                    } catch (IOException e) {
+                        markGaps(events, e);
+                    }
+                }
+            });
+        } else {
+            try {
+                ledger.append(events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void markGaps(List<TradeEvent> events, IOException cause) {
+        Set<Long> portfolioIds = new TreeSet<>();
+        for (TradeEvent event : events) {
+            portfolioIds.add(event.portfolioId());
+        }
+        log.error("Failed to append {} committed trades of portfolios {} to the ledger", events.size(), portfolioIds, cause);
+        try {
+            ledger.markGaps(portfolioIds);
+        } catch (IOException e) {
+            log.error("Failed to mark portfolios {} as gaps in the ledger; restoring them would revert committed trades",
+                    portfolioIds, e);
+        }
+    }
+
+    public TradeLedger getLedger() {
+        return ledger;
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.ledger.sync-interval-ms:1000}")
+    public void sync() throws IOException {
+        ledger.force();
+        if (ledger.getLastSequence() - ledger.getSnapshotSequence() >= snapshotEvery) {
+            ledger.snapshot();
+        }
+    }
+
+    /**
+     * Makes the portfolios created through the ledger and their holdings match it, recreating
+     * portfolios that are missing from the database. Portfolios the ledger did not see created
+     * are left alone, and so are portfolios with a gap: marked after a failed append, or with a
+     * database ledger version ahead of the ledger. A database behind the ledger lost committed
+     * trades of its own and is brought forward. Returns the number of portfolios that were
+     * changed.
+     */
+    public int restoreProjections() {
+        LedgerProjection projection = ledger.read(LedgerProjection::copy);
+        Set<Long> gaps = ledger.getGaps();
+        Map<Long, Long> versions = new HashMap<>();
+        jdbcTemplate.query("SELECT id, ledger_version FROM portfolios",
+                (RowCallbackHandler) rs -> versions.put(rs.getLong(1), rs.getLong(2)));
+        int[] inserted = new int[1];
+        Integer changed = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (Map.Entry<Long, LedgerProjection.PortfolioState> entry : projection.getPortfolios().entrySet()) {
+                Long portfolioId = entry.getKey();
+                LedgerProjection.PortfolioState state = entry.getValue();
+                if (state.getName() == null) {
+                    continue;
+                }
+                // The version difference stays, so the gap persists without being recorded
+                Long version = versions.get(portfolioId);
+                if (gaps.contains(portfolioId) || (version != null && version > state.getEvents())) {
+                    log.warn("Not restoring portfolio {}: the ledger is missing some of its trades", portfolioId);
+                    continue;
+                }
+                if (version == null) {
+                    jdbcTemplate.update("INSERT INTO portfolios (id, name, user_id, total_value, ledger_version) "
+                            + "VALUES (?, ?, ?, 0, ?)", portfolioId, state.getName(), state.getUserId(), state.getEvents());
+                    inserted[0]++;
+                } else if (version < state.getEvents()) {
+                    jdbcTemplate.update("UPDATE portfolios SET ledger_version = ? WHERE id = ?",
+                            state.getEvents(), portfolioId);
+                }
+                Portfolio portfolio = portfolioRepository.findById(portfolioId).orElseThrow();
+                if (restoreHoldings(portfolio, state)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        if (inserted[0] > 0) {
+            // Explicit ids bypass the identity column, move it past them
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM portfolios", Long.class);
+            jdbcTemplate.execute("ALTER TABLE portfolios ALTER COLUMN id RESTART WITH " + (maxId + 1));
+        }
+        log.info("Restored {} portfolios from the trade ledger ({} recreated)", changed, inserted[0]);
+        return changed != null ? changed : 0;
+    }
+
+    private boolean restoreHoldings(Portfolio portfolio, LedgerProjection.PortfolioState state) {
+        Map<String, LedgerProjection.Position> positions = new HashMap<>(state.getPositions());
+        boolean changed = false;
+        Iterator<StockHolding> holdings = portfolio.getHoldings().iterator();
+        while (holdings.hasNext()) {
+            StockHolding holding = holdings.next();
+            LedgerProjection.Position position = positions.remove(holding.getSymbol());
+            if (position == null) {
+                holdings.remove();
+                changed = true;
+            } else if (holding.getQuantity() != position.getQuantity()
+                    || Double.compare(holding.getAveragePrice(), position.getAveragePrice()) != 0) {
+                holding.setQuantity(position.getQuantity());
+                holding.setAveragePrice(position.getAveragePrice());
+                changed = true;
+            }
+        }
+        for (Map.Entry<String, LedgerProjection.Position> entry : positions.entrySet()) {
+            StockHolding holding = new StockHolding();
+            holding.setPortfolio(portfolio);
+            holding.setSymbol(entry.getKey());
+            holding.setQuantity(entry.getValue().getQuantity());
+            holding.setAveragePrice(entry.getValue().getAveragePrice());
+            portfolio.getHoldings().add(holding);
+            changed = true;
+        }
+        if (!changed) {
+            return false;
+        }
+        double totalValue = 0.0;
+        for (StockHolding holding : portfolio.getHoldings()) {
+            holding.setCurrentValue(holding.getQuantity() * marketDataService.getCurrentPrice(holding.getSymbol()));
+            totalValue += holding.getCurrentValue();
+        }
+        portfolio.setTotalValue(totalValue);
+        portfolioRepository.save(portfolio);
+        valuationEngine.refresh(portfolio);
+        userExposureService.refresh(portfolio);
+        portfolioLeaderboard.refresh(portfolio);
+        return true;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        ledger.snapshot();
+        ledger.close();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.portfolioservice.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Line-oriented body formats accepted by the bulk upload endpoints.
+ */
+public enum UploadFormat {
+    NDJSON,
+    CSV;
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    public static UploadFormat fromContentType(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(NDJSON_VALUE))
+                ? NDJSON
+                : CSV;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.model.SymbolExposure;
+import com.example.portfolioservice.model.UserExposure;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps each user's quantity, cost basis and market value per symbol across all of their
+ * portfolios, so exposure reads never touch the portfolios themselves.
+ *
+ * A user is loaded from the database on first read. After that every committed change to one of
+ * their portfolios replaces that portfolio's contribution, and price ticks revalue the affected
+ * symbols through a reverse index, in the same way as the {@link PortfolioValuationEngine}.
+ */
+@Service
+public class UserExposureService implements PriceListener {
+    private static final SymbolState[] NO_SYMBOLS = new SymbolState[0];
+
+    private static final String SELECT_USER_HOLDINGS = "SELECT p.id, h.symbol, h.quantity, h.average_price "
+            + "FROM portfolios p LEFT JOIN stock_holdings h ON h.portfolio_id = p.id WHERE p.user_id = ?";
+
+    private final MarketDataService marketDataService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, UserState> users = new ConcurrentHashMap<>();
+    private final SymbolIndex<SymbolState> index = new SymbolIndex<>(NO_SYMBOLS);
+
+    public UserExposureService(MarketDataService marketDataService, JdbcTemplate jdbcTemplate) {
+        this.marketDataService = marketDataService;
+        this.jdbcTemplate = jdbcTemplate;
+        marketDataService.addPriceListener(this);
+    }
+
+    record PositionSnapshot(String symbol, int symbolId, int quantity, double averagePrice) {
+    }
+
+    static final class UserState {
+        final String userId;
+        final Map<Long, List<PositionSnapshot>> portfolios = new HashMap<>();
+        final Map<String, SymbolState> symbols = new TreeMap<>();
+        double costBasis;
+        double marketValue;
+        volatile boolean loaded;
+
+        UserState(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    static final class SymbolState {
+        final UserState user;
+        final String symbol;
+        final int symbolId;
+        long quantity;
+        int portfolios;
+        double costBasis;
+        double marketValue;
+
+        SymbolState(UserState user, String symbol, int symbolId) {
+            this.user = user;
+            this.symbol = symbol;
+            this.symbolId = symbolId;
+        }
+    }
+
+    /**
+     * Returns the exposure of the user, loading it on first use. The cost is proportional to the
+     * number of distinct symbols held, not to the number of portfolios.
+     */
+    public UserExposure getExposure(String userId) {
+        UserState user = users.computeIfAbsent(userId, UserState::new);
+        if (!user.loaded) {
+            load(user);
+        }
+        UserExposure exposure = new UserExposure();
+        exposure.setUserId(userId);
+        synchronized (user) {
+            exposure.setPortfolios(user.portfolios.size());
+            exposure.setCostBasis(user.costBasis);
+            exposure.setMarketValue(user.marketValue);
+            for (SymbolState symbol : user.symbols.values()) {
+                exposure.getSymbols().add(new SymbolExposure(symbol.symbol, symbol.quantity, symbol.portfolios,
+                        symbol.costBasis, symbol.marketValue));
+            }
+        }
+        exposure.setTimestamp(System.currentTimeMillis());
+        if (exposure.getPortfolios() == 0) {
+            // Do not keep entries for unknown users around
+            users.remove(userId, user);
+        }
+        return exposure;
+    }
+
+    /**
+     * Replaces the contribution of the portfolio after its holdings were modified. Inside a
+     * transaction the new state is applied only once the transaction commits.
+     */
+    public void refresh(Portfolio portfolio) {
+        String userId = portfolio.getUserId();
+        Long portfolioId = portfolio.getId();
+        List<PositionSnapshot> positions = new ArrayList<>(portfolio.getHoldings().size());
+        for (StockHolding holding : portfolio.getHoldings()) {
+            positions.add(snapshot(holding.getSymbol(), holding.getQuantity(), holding.getAveragePrice()));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, portfolioId, positions);
+                }
+            });
+        } else {
+            apply(userId, portfolioId, positions);
+        }
+    }
+
+    private void apply(String userId, Long portfolioId, List<PositionSnapshot> positions) {
+        // Users not loaded yet will read the committed state from the database
+        UserState user = users.get(userId);
+        if (user != null) {
+            synchronized (user) {
+                replace(user, portfolioId, positions);
+            }
+        }
+    }
+
+    // The user is registered before the query, so a change committed meanwhile is either seen by
+    // the query or applied as a replacement first; the query result never overrides the latter.
+    private void load(UserState user) {
+        Map<Long, List<PositionSnapshot>> portfolios = new HashMap<>();
+        jdbcTemplate.query(SELECT_USER_HOLDINGS, rs -> {
+            List<PositionSnapshot> positions = portfolios.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>());
+            String symbol = rs.getString(2);
+            if (symbol != null && rs.getInt(3) > 0) {
+                positions.add(snapshot(symbol, rs.getInt(3), rs.getDouble(4)));
+            }
+        }, user.userId);
+        synchronized (user) {
+            if (user.loaded) {
+                return;
+            }
+            portfolios.forEach((portfolioId, positions) -> {
+                if (!user.portfolios.containsKey(portfolioId)) {
+                    replace(user, portfolioId, positions);
+                }
+            });
+            user.loaded = true;
+        }
+    }
+
+    // Resolving a symbol may wait on the market data provider, so it never happens under a user lock
+    private PositionSnapshot snapshot(String symbol, int quantity, double averagePrice) {
+        return new PositionSnapshot(symbol, marketDataService.symbolId(symbol), quantity, averagePrice);
+    }
+
+    private void replace(UserState user, Long portfolioId, List<PositionSnapshot> positions) {
+        List<PositionSnapshot> previous = user.portfolios.put(portfolioId, positions);
+        if (previous != null) {
+            for (PositionSnapshot position : previous) {
+                add(user, position, -1);
+            }
+        }
+        for (PositionSnapshot position : positions) {
+            add(user, position, 1);
+        }
+    }
+
+    private void add(UserState user, PositionSnapshot position, int sign) {
+        if (position.quantity() <= 0) {
+            return;
+        }
+        SymbolState symbol = user.symbols.get(position.symbol());
+        if (symbol == null) {
+            symbol = new SymbolState(user, position.symbol(), position.symbolId());
+            user.symbols.put(position.symbol(), symbol);
+            index.add(symbol.symbolId, symbol);
+        }
+        double cost = position.quantity() * position.averagePrice();
+        symbol.quantity += sign * position.quantity();
+        symbol.portfolios += sign;
+        symbol.costBasis += sign * cost;
+        user.costBasis += sign * cost;
+        if (symbol.portfolios == 0) {
+            user.symbols.remove(symbol.symbol);
+            index.remove(symbol.symbolId, symbol);
+            user.marketValue -= symbol.marketValue;
+            if (user.symbols.isEmpty()) {
+                // Clears rounding residue of the running sums
+                user.costBasis = 0.0;
+                user.marketValue = 0.0;
+            }
+            return;
+        }
+        revalue(symbol);
+    }
+
+    @Override
+    public void onPriceUpdate(int symbolId, double previousPrice, double price, long timestamp) {
+        SymbolState[] symbols = index.get(symbolId);
+        if (symbols == null) {
+            return;
+        }
+        for (SymbolState symbol : symbols) {
+            synchronized (symbol.user) {
+                if (symbol.user.symbols.get(symbol.symbol) == symbol) {
+                    revalue(symbol);
+                }
+            }
+        }
+    }
+
+    // Reads the latest price, so concurrent ticks converge on the most recent one
+    private void revalue(SymbolState symbol) {
+        double marketValue = symbol.quantity * marketDataService.getCurrentPrice(symbol.symbolId);
+        symbol.user.marketValue += marketValue - symbol.marketValue;
+        symbol.marketValue = marketValue;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.HoldingValue;
+
+import java.util.List;
+
+/**
+ * Published by {@link PortfolioValuationEngine} after a portfolio was revalued. Holdings that were
+ * removed from the portfolio are reported with a quantity and value of zero.
+ *
+ * Listeners run after the portfolio lock is released, so changes of one portfolio can arrive out
+ * of order; a higher {@code sequence} means a later state of the portfolio.
+ */
+public record ValuationChange(Long portfolioId, long sequence, double totalValue, List<HoldingValue> holdings) {
+}
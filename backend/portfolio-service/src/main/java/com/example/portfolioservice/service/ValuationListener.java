@@ -0,0 +1,9 @@
+package com.example.portfolioservice.service;
+
+/**
+ * Callback for portfolio revaluations. Invoked on the thread that applied the price or holding
+ * change, after the portfolio lock has been released.
+ */
+public interface ValuationListener {
+    void onValuationChange(ValuationChange change);
+}
@@ -0,0 +1,227 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.config.TaskExecutors;
+import com.example.portfolioservice.model.HoldingValue;
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.ValuationDelta;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes valuation deltas of subscribed portfolios over Server-Sent Events.
+ *
+ * Changes are coalesced per subscriber and turned into at most one event per window. Each
+ * subscriber has a bounded queue; when it is full the oldest event is merged into the one after
+ * it, latest value per symbol winning, so a slow client only misses intermediate states and never
+ * makes the queue grow. The number of merged events is reported as {@code droppedEvents}.
+ */
+@Service
+public class ValuationStreamService implements ValuationListener {
+    private static final Logger log = LoggerFactory.getLogger(ValuationStreamService.class);
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final ScheduledExecutorService coalescer;
+    private final ExecutorService senders;
+
+    public ValuationStreamService(PortfolioValuationEngine valuationEngine,
+                                  TaskExecutors taskExecutors,
+                                  @Value("${portfolio.stream.coalesce-window-ms:250}") long windowMillis,
+                                  @Value("${portfolio.stream.queue-capacity:64}") int queueCapacity,
+                                  @Value("${portfolio.stream.timeout-ms:1800000}") long timeoutMillis,
+                                  @Value("${portfolio.stream.sender-threads:4}") int senderThreads) {
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+        this.coalescer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "valuation-stream-coalescer"));
+        this.senders = taskExecutors.newExecutor("valuation-stream-sender", senderThreads);
+        coalescer.scheduleWithFixedDelay(this::flushWindow, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        valuationEngine.addValuationListener(this);
+    }
+
+    private final class Subscriber {
+        final Long portfolioId;
+        final SseEmitter emitter;
+        final Map<String, HoldingValue> pendingHoldings = new LinkedHashMap<>();
+        final Map<String, Long> holdingSequences = new HashMap<>();
+        final ArrayDeque<ValuationDelta> queue = new ArrayDeque<>();
+        final AtomicBoolean sending = new AtomicBoolean();
+        double totalValue;
+        long totalSequence;
+        boolean pending;
+        long dropped;
+
+        Subscriber(Long portfolioId, SseEmitter emitter) {
+            this.portfolioId = portfolioId;
+            this.emitter = emitter;
+        }
+    }
+
+    /**
+     * Registers a subscriber for the portfolio and sends the current state as the first event.
+     */
+    public SseEmitter subscribe(Portfolio portfolio) {
+        return subscribe(portfolio, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Portfolio portfolio, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(portfolio.getId(), emitter);
+        subscriber.totalValue = portfolio.getTotalValue();
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.computeIfAbsent(portfolio.getId(), id -> new CopyOnWriteArrayList<>()).add(subscriber);
+
+        ValuationDelta snapshot = new ValuationDelta();
+        snapshot.setPortfolioId(portfolio.getId());
+        snapshot.setTotalValue(portfolio.getTotalValue());
+        portfolio.getHoldings().forEach(h ->
+                snapshot.getHoldings().add(new HoldingValue(h.getSymbol(), h.getQuantity(), h.getCurrentValue())));
+        snapshot.setTimestamp(System.currentTimeMillis());
+        enqueue(subscriber, snapshot);
+        return emitter;
+    }
+
+    public int subscriberCount(Long portfolioId) {
+        List<Subscriber> list = subscribers.get(portfolioId);
+        return list != null ? list.size() : 0;
+    }
+
+    @Override
+    public void onValuationChange(ValuationChange change) {
+        List<Subscriber> list = subscribers.get(change.portfolioId());
+        if (list == null) {
+            return;
+        }
+        for (Subscriber subscriber : list) {
+            synchronized (subscriber) {
+                // Changes arrive out of order across threads, keep only values newer than the last seen
+                for (HoldingValue holding : change.holdings()) {
+                    Long seen = subscriber.holdingSequences.get(holding.getSymbol());
+                    if (seen == null || seen < change.sequence()) {
+                        subscriber.holdingSequences.put(holding.getSymbol(), change.sequence());
+                        subscriber.pendingHoldings.put(holding.getSymbol(), holding);
+                        subscriber.pending = true;
+                    }
+                }
+                if (change.sequence() > subscriber.totalSequence) {
+                    subscriber.totalSequence = change.sequence();
+                    subscriber.totalValue = change.totalValue();
+                    subscriber.pending = true;
+                }
+            }
+        }
+    }
+
+    void flushWindow() {
+        try {
+            long now = System.currentTimeMillis();
+            for (List<Subscriber> list : subscribers.values()) {
+                for (Subscriber subscriber : list) {
+                    ValuationDelta delta = null;
+                    synchronized (subscriber) {
+                        if (subscriber.pending) {
+                            delta = new ValuationDelta();
+                            delta.setPortfolioId(subscriber.portfolioId);
+                            delta.setTotalValue(subscriber.totalValue);
+                            delta.setHoldings(new ArrayList<>(subscriber.pendingHoldings.values()));
+                            delta.setTimestamp(now);
+                            subscriber.pendingHoldings.clear();
+                            subscriber.pending = false;
+                        }
+                    }
+                    if (delta != null) {
+                        enqueue(subscriber, delta);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush valuation stream window", e);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, ValuationDelta delta) {
+        synchronized (subscriber) {
+            if (subscriber.queue.size() >= queueCapacity) {
+                ValuationDelta oldest = subscriber.queue.pollFirst();
+                merge(oldest, subscriber.queue.isEmpty() ? delta : subscriber.queue.peekFirst());
+                subscriber.dropped++;
+            }
+            subscriber.queue.addLast(delta);
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Folds the holdings of an older delta into a newer one, keeping the newer values
+    private static void merge(ValuationDelta older, ValuationDelta newer) {
+        Map<String, HoldingValue> holdings = new LinkedHashMap<>();
+        older.getHoldings().forEach(h -> holdings.put(h.getSymbol(), h));
+        newer.getHoldings().forEach(h -> holdings.put(h.getSymbol(), h));
+        newer.setHoldings(new ArrayList<>(holdings.values()));
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                ValuationDelta delta;
+                synchronized (subscriber) {
+                    delta = subscriber.queue.pollFirst();
+                    if (delta == null) {
+                        subscriber.sending.set(false);
+                        return;
+                    }
+                    delta.setDroppedEvents(subscriber.dropped);
+                    subscriber.dropped = 0;
+                }
+                subscriber.emitter.send(SseEmitter.event().name("valuation").data(delta));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks take care of the rest
+            subscriber.sending.set(false);
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.portfolioId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coalescer.shutdownNow();
+        senders.shutdownNow();
+        subscribers.values().forEach(list -> list.forEach(s -> s.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
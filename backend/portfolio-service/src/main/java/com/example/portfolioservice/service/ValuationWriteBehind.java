@@ -0,0 +1,81 @@
+package com.example.portfolioservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodically persists the values recomputed by the {@link PortfolioValuationEngine} using JDBC
+ * batches, so request threads never write valuations themselves.
+ */
+@Component
+public class ValuationWriteBehind {
+    private static final Logger log = LoggerFactory.getLogger(ValuationWriteBehind.class);
+
+    private static final String UPDATE_HOLDING = "UPDATE stock_holdings SET current_value = ? WHERE id = ?";
+    private static final String UPDATE_PORTFOLIO = "UPDATE portfolios SET total_value = ? WHERE id = ?";
+
+    private final PortfolioValuationEngine valuationEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ValuationWriteBehind(PortfolioValuationEngine valuationEngine,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${portfolio.valuation.flush-batch-size:500}") int batchSize) {
+        this.valuationEngine = valuationEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.valuation.flush-interval-ms:1000}")
+    public synchronized int flush() {
+        List<Object[]> holdings = new ArrayList<>();
+        List<Object[]> portfolios = new ArrayList<>();
+        valuationEngine.drainDirty(new PortfolioValuationEngine.DirtyValuationVisitor() {
+            @Override
+            public void portfolio(Long portfolioId, double totalValue) {
+                portfolios.add(new Object[]{totalValue, portfolioId});
+            }
+
+            @Override
+            public void holding(Long holdingId, double currentValue) {
+                holdings.add(new Object[]{currentValue, holdingId});
+            }
+        });
+        if (portfolios.isEmpty()) {
+            return 0;
+        }
+        try {
+            write(UPDATE_HOLDING, holdings);
+            write(UPDATE_PORTFOLIO, portfolios);
+        } catch (RuntimeException e) {
+            // Drained values are no longer dirty; queue them again so the next flush retries
+            List<Long> portfolioIds = new ArrayList<>(portfolios.size());
+            for (Object[] row : portfolios) {
+                portfolioIds.add((Long) row[1]);
+            }
+            valuationEngine.markDirty(portfolioIds);
+            throw e;
+        }
+        log.debug("Flushed valuations of {} portfolios and {} holdings", portfolios.size(), holdings.size());
+        return portfolios.size();
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    private void write(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + batchSize)));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- Schema for profiles that validate instead of letting Hibernate update it (fast-startup, durable).
+-- Mirrors the DDL Hibernate generates for the entities; keep both in sync.
+CREATE SEQUENCE IF NOT EXISTS stock_holdings_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS portfolios (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    total_value FLOAT(53) NOT NULL,
+    ledger_version BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS stock_holdings (
+    id BIGINT NOT NULL,
+    portfolio_id BIGINT NOT NULL,
+    symbol VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    average_price FLOAT(53) NOT NULL,
+    current_value FLOAT(53) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_stock_holdings_portfolio_symbol UNIQUE (portfolio_id, symbol),
+    CONSTRAINT fk_stock_holdings_portfolio FOREIGN KEY (portfolio_id) REFERENCES portfolios (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_portfolios_user_id ON portfolios (user_id);
+CREATE INDEX IF NOT EXISTS idx_stock_holdings_portfolio_id ON stock_holdings (portfolio_id);
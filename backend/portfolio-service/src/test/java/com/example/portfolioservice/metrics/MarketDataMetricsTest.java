@@ -0,0 +1,67 @@
+package com.example.portfolioservice.metrics;
+
+import com.example.portfolioservice.service.MarketDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private MarketDataService marketDataService;
+    private MarketDataMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        marketDataService = new MarketDataService();
+        metrics = new MarketDataMetrics(marketDataService, 3);
+        metrics.bindTo(registry);
+    }
+
+    @Test
+    void testCacheHitsAndMisses() {
+        marketDataService.getCurrentPrice("AAPL");
+        marketDataService.getCurrentPrice("MSFT");
+        marketDataService.getCurrentPrice("UNKNOWN");
+        marketDataService.getCurrentPrice("UNKNOWN");
+
+        assertEquals(3.0, registry.get("market.price.cache").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("market.price.cache").tag("result", "miss").functionCounter().count());
+        // No provider is configured, so the miss falls back to a generated price
+        assertEquals(1.0, registry.get("market.price.fallback").functionCounter().count());
+        assertEquals(11.0, registry.get("market.price.symbols").gauge().value());
+    }
+
+    @Test
+    void testStalenessIsSampledPerSymbol() {
+        long now = System.currentTimeMillis();
+        marketDataService.getPriceStore().put("AAPL", 180.0, now - 60_000);
+        marketDataService.getPriceStore().put("WMT", 61.0, now - 120_000);
+
+        assertEquals(0.0, registry.get("market.price.staleness.max").gauge().value());
+        metrics.refreshStaleness();
+
+        // WMT is past the symbol limit but still counts towards the maximum
+        double max = registry.get("market.price.staleness.max").gauge().value();
+        assertTrue(max >= 120.0 && max < 130.0, "max staleness " + max);
+        double aapl = registry.get("market.price.staleness").tag("symbol", "AAPL").gauge().value();
+        assertTrue(aapl >= 60.0 && aapl < 70.0, "AAPL staleness " + aapl);
+        assertEquals(3, registry.find("market.price.staleness").gauges().size());
+        assertNull(registry.find("market.price.staleness").tag("symbol", "WMT").gauge());
+    }
+
+    @Test
+    void testStalenessFollowsPriceUpdates() {
+        long now = System.currentTimeMillis();
+        marketDataService.getPriceStore().put("AAPL", 180.0, now - 60_000);
+        metrics.refreshStaleness();
+
+        marketDataService.updatePrice("AAPL", 181.0);
+        metrics.refreshStaleness();
+
+        assertTrue(registry.get("market.price.staleness").tag("symbol", "AAPL").gauge().value() < 10.0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.portfolioservice.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCountInterceptorTest {
+
+    private SimpleMeterRegistry registry;
+    private QueryCountInterceptor interceptor;
+    private QueryCountInspector inspector;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        interceptor = new QueryCountInterceptor(registry);
+        inspector = new QueryCountInspector();
+    }
+
+    @Test
+    void testCountIsResetBetweenRequests() {
+        request("/api/portfolios/{id}", 3);
+        request("/api/portfolios/{id}", 1);
+
+        DistributionSummary summary = summary("/api/portfolios/{id}");
+        assertEquals(2, summary.count());
+        assertEquals(4.0, summary.totalAmount());
+        assertEquals(3.0, summary.max());
+    }
+
+    @Test
+    void testStatementsOutsideRequestAreNotCounted() {
+        // Statements issued on the thread before the request, e.g. by a scheduled job
+        inspector.inspect("select 1");
+        inspector.inspect("select 1");
+
+        request("/api/portfolios", 1);
+
+        assertEquals(1.0, summary("/api/portfolios").totalAmount());
+    }
+
+    @Test
+    void testCountIsPerThread() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/portfolios");
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        inspector.inspect("select 1");
+
+        CompletableFuture.runAsync(() -> {
+            QueryCountInspector.reset();
+            inspector.inspect("select 2");
+            inspector.inspect("select 3");
+        }).get();
+
+        assertEquals(1, QueryCountInspector.count());
+    }
+
+    @Test
+    void testUnmatchedRequestIsTaggedUnknown() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/missing");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertEquals(1, summary("UNKNOWN").count());
+    }
+
+    private void request(String pattern, int statements) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        for (int i = 0; i < statements; i++) {
+            inspector.inspect("select " + i);
+        }
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    private DistributionSummary summary(String uri) {
+        return registry.get("http.server.requests.queries").tag("method", "GET").tag("uri", uri).summary();
+    }
+}
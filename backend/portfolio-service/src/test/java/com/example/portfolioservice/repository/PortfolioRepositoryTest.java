@@ -0,0 +1,109 @@
+package com.example.portfolioservice.repository;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.PortfolioSummary;
+import com.example.portfolioservice.model.StockHolding;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PortfolioRepositoryTest {
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // 5 portfolios of user-1 with 0..4 holdings, one of user-2
+        for (int i = 0; i < 5; i++) {
+            portfolio("user-1", "Portfolio " + i, 100.0 * i, i);
+        }
+        portfolio("user-2", "Other", 50.0, 3);
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testFindWithHoldingsByUserIdFetchesHoldingsInOneQuery() {
+        List<Portfolio> portfolios = portfolioRepository.findWithHoldingsByUserId("user-1");
+
+        int holdings = 0;
+        for (Portfolio portfolio : portfolios) {
+            holdings += portfolio.getHoldings().size();
+        }
+        assertEquals(5, portfolios.size());
+        assertEquals(0 + 1 + 2 + 3 + 4, holdings);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testSummariesCountHoldingsPerPortfolio() {
+        Page<PortfolioSummary> page = portfolioRepository.findSummariesByUserId("user-1",
+                PageRequest.of(0, 10, Sort.by("name")));
+
+        assertEquals(5, page.getTotalElements());
+        for (int i = 0; i < 5; i++) {
+            PortfolioSummary summary = page.getContent().get(i);
+            assertEquals("Portfolio " + i, summary.getName());
+            assertEquals(100.0 * i, summary.getTotalValue());
+            assertEquals(i, summary.getHoldingCount());
+        }
+        // Everything fits on the first page, so no count query is needed
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testSummariesArePagedAndSorted() {
+        Page<PortfolioSummary> first = portfolioRepository.findSummariesByUserId("user-1",
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "totalValue")));
+        Page<PortfolioSummary> last = portfolioRepository.findSummariesByUserId("user-1",
+                PageRequest.of(2, 2, JpaSort.unsafe(Sort.Direction.DESC, "count(h)")));
+
+        assertEquals(5, first.getTotalElements());
+        assertEquals(3, first.getTotalPages());
+        assertEquals(List.of("Portfolio 4", "Portfolio 3"), first.map(PortfolioSummary::getName).getContent());
+        assertEquals(List.of("Portfolio 0"), last.map(PortfolioSummary::getName).getContent());
+        assertEquals(0L, last.getContent().get(0).getHoldingCount());
+        // The full first page needs a count query; the partial last page does not
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private void portfolio(String userId, String name, double totalValue, int holdings) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setUserId(userId);
+        portfolio.setName(name);
+        portfolio.setTotalValue(totalValue);
+        for (int i = 0; i < holdings; i++) {
+            StockHolding holding = new StockHolding();
+            holding.setPortfolio(portfolio);
+            holding.setSymbol("SYM" + i);
+            holding.setQuantity(10);
+            holding.setAveragePrice(10.0);
+            portfolio.getHoldings().add(holding);
+        }
+        entityManager.persist(portfolio);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Quote;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpMarketDataProviderTest {
+    private HttpServer server;
+    private final List<String> requestedSymbols = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private volatile long delayMillis;
+    private HttpMarketDataProvider provider;
+    private MarketDataClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/quotes", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (provider != null) {
+            provider.shutdown();
+        }
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+        String symbols = query.substring("symbols=".length());
+        requestedSymbols.add(symbols);
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        StringBuilder body = new StringBuilder("[");
+        for (String symbol : symbols.split(",")) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append("{\"symbol\":\"").append(symbol).append("\",\"price\":").append(100 + symbol.length())
+                    .append(",\"timestamp\":1000}");
+        }
+        byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        if (status.get() == 429) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+        }
+        exchange.sendResponseHeaders(status.get(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void start(double maxRequestsPerSecond, int maxBatchSize, long windowMillis, long timeoutMillis) {
+        URI baseUri = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        provider = new HttpMarketDataProvider(baseUri, "", Duration.ofSeconds(1), Duration.ofMillis(timeoutMillis),
+                maxRequestsPerSecond, Executors.newFixedThreadPool(2), new ObjectMapper());
+        client = new MarketDataClient(provider, Duration.ofMillis(windowMillis), maxBatchSize, Duration.ofMillis(timeoutMillis));
+    }
+
+    @Test
+    void testConcurrentLookupsAreCoalescedIntoOneBatch() throws Exception {
+        start(0, 50, 50, 2000);
+
+        List<CompletableFuture<Quote>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.quote("AAPL"));
+            futures.add(client.quote("MSFT"));
+            futures.add(client.quote("IBM"));
+        }
+
+        for (CompletableFuture<Quote> future : futures) {
+            Quote quote = future.get(2, TimeUnit.SECONDS);
+            assertEquals(100.0 + quote.getSymbol().length(), quote.getPrice());
+            assertEquals(1000L, quote.getTimestamp());
+        }
+        assertEquals(1, requestedSymbols.size());
+        assertEquals("AAPL,MSFT,IBM", requestedSymbols.get(0));
+        assertEquals(1L, client.getProviderCalls());
+        assertEquals(57L, client.getCoalescedLookups());
+    }
+
+    @Test
+    void testFullBatchIsSentBeforeTheWindowEnds() throws Exception {
+        start(0, 2, 10_000, 2000);
+
+        CompletableFuture<Quote> first = client.quote("AAPL");
+        CompletableFuture<Quote> second = client.quote("MSFT");
+
+        assertEquals("AAPL", first.get(2, TimeUnit.SECONDS).getSymbol());
+        assertEquals("MSFT", second.get(2, TimeUnit.SECONDS).getSymbol());
+        assertEquals(List.of("AAPL,MSFT"), requestedSymbols);
+    }
+
+    @Test
+    void testSlowProviderTimesOut() {
+        delayMillis = 1000;
+        start(0, 50, 1, 100);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.quote("AAPL").get(2, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause() instanceof TimeoutException || e.getCause() instanceof HttpTimeoutException,
+                "unexpected cause " + e.getCause());
+    }
+
+    @Test
+    void testRequestsAreSpacedByRateLimit() throws Exception {
+        start(20, 1, 0, 2000);
+
+        long started = System.nanoTime();
+        List<CompletableFuture<Quote>> futures = new ArrayList<>();
+        for (String symbol : List.of("A", "B", "C", "D", "E")) {
+            futures.add(client.quote(symbol));
+        }
+        for (CompletableFuture<Quote> future : futures) {
+            future.get(2, TimeUnit.SECONDS);
+        }
+
+        // Five requests at 20/s need at least four 50 ms gaps
+        assertEquals(5, requestedSymbols.size());
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(190));
+    }
+
+    @Test
+    void testMarketDataServiceFallsBackWhenProviderRejects() {
+        status.set(429);
+        start(0, 50, 1, 500);
+        MarketDataService marketDataService = new MarketDataService(client, 500);
+
+        double price = marketDataService.getCurrentPrice("NEWCO");
+
+        assertTrue(price >= 10.0 && price <= 1000.0);
+        assertEquals(1L, marketDataService.getRandomFallbacks());
+    }
+
+    @Test
+    void testMarketDataServiceRegistersProviderPrice() {
+        start(0, 50, 1, 500);
+        MarketDataService marketDataService = new MarketDataService(client, 500);
+
+        assertEquals(105.0, marketDataService.getCurrentPrice("NEWCO"));
+        assertEquals(105.0, marketDataService.getCurrentPrice("NEWCO"));
+        assertEquals(0L, marketDataService.getRandomFallbacks());
+        assertEquals(1, requestedSymbols.size());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.portfolioservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketSimulatorTest {
+
+    @Test
+    void testSameSeedGeneratesSamePricePaths() {
+        MarketDataService first = new MarketDataService();
+        MarketDataService second = new MarketDataService();
+        MarketSimulator a = simulator(first, 7L);
+        MarketSimulator b = simulator(second, 7L);
+
+        a.generate(5_000);
+        b.generate(2_000);
+        b.generate(3_000);
+
+        for (String symbol : a.getSymbols()) {
+            assertEquals(first.getCurrentPrice(symbol), second.getCurrentPrice(symbol));
+        }
+        assertEquals(5_000, a.status().getTicks());
+    }
+
+    @Test
+    void testResetReplaysFromTheSeed() {
+        MarketDataService marketDataService = new MarketDataService();
+        MarketSimulator simulator = simulator(marketDataService, 11L);
+        double aapl = marketDataService.getCurrentPrice("AAPL");
+
+        simulator.generate(1_000);
+        double afterFirstRun = marketDataService.getCurrentPrice("SIM00003");
+        assertNotEquals(aapl, marketDataService.getCurrentPrice("AAPL"));
+
+        simulator.reset();
+        simulator.generate(1_000);
+        assertEquals(afterFirstRun, marketDataService.getCurrentPrice("SIM00003"));
+    }
+
+    @Test
+    void testNewSymbolsStartFromSeededPrices() {
+        SimulatedMarketDataProvider provider = new SimulatedMarketDataProvider(42L);
+        double price = provider.initialPrice("SIM00000");
+
+        assertEquals(price, new SimulatedMarketDataProvider(42L).initialPrice("SIM00000"));
+        assertNotEquals(price, new SimulatedMarketDataProvider(43L).initialPrice("SIM00000"));
+        assertTrue(price >= 10.0 && price <= 1000.0);
+    }
+
+    private MarketSimulator simulator(MarketDataService marketDataService, long seed) {
+        return new MarketSimulator(marketDataService, new SimulatedMarketDataProvider(seed), seed,
+                List.of("AAPL", "MSFT"), 20, 1_000, 100, 0.05, 0.2, 60, 0, false);
+    }
+}
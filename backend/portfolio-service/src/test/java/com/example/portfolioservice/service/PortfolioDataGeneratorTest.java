@@ -0,0 +1,100 @@
+package com.example.portfolioservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioDataGeneratorTest {
+
+    @Test
+    void testPickerDrawsDistinctSymbolsWithSkewedPopularity() {
+        PortfolioDataGenerator.SymbolPicker picker = new PortfolioDataGenerator.SymbolPicker(100, 1.1);
+        SplittableRandom random = new SplittableRandom(1L);
+        int[] counts = new int[100];
+        int[] picks = new int[10];
+        for (int i = 0; i < 10_000; i++) {
+            picker.pick(random, picks);
+            Set<Integer> distinct = new HashSet<>();
+            for (int rank : picks) {
+                assertTrue(distinct.add(rank));
+                counts[rank]++;
+            }
+        }
+        assertTrue(counts[0] > counts[10]);
+        assertTrue(counts[10] > counts[99]);
+    }
+
+    @Test
+    void testPickerFillsPortfoliosHoldingEverySymbol() {
+        PortfolioDataGenerator.SymbolPicker picker = new PortfolioDataGenerator.SymbolPicker(20, 2.0);
+        int[] picks = new int[20];
+        picker.pick(new SplittableRandom(1L), picks);
+        assertEquals(20, Set.copyOf(toList(picks)).size());
+    }
+
+    @Test
+    void testGenerateWritesPortfoliosBeforeTheirHoldings() {
+        RecordingJdbcTemplate first = new RecordingJdbcTemplate();
+        RecordingJdbcTemplate second = new RecordingJdbcTemplate();
+
+        assertEquals(3 * 2 * 5, generator(first).generate());
+        generator(second).generate();
+
+        assertEquals(6, first.portfolios.size());
+        assertEquals(30, first.holdings.size());
+        assertEquals("user-000002", first.portfolios.get(5)[2]);
+        for (int i = 0; i < first.holdings.size(); i++) {
+            Object[] holding = first.holdings.get(i);
+            assertTrue(first.written.indexOf("P" + holding[1]) < first.written.indexOf("H" + holding[0]));
+            // Prices come from the market data service, the choice of symbols and quantities from the seed
+            assertEquals(holding[2], second.holdings.get(i)[2]);
+            assertEquals(holding[3], second.holdings.get(i)[3]);
+        }
+        assertTrue(first.written.contains("ALTER TABLE portfolios ALTER COLUMN id RESTART WITH 7"));
+    }
+
+    private PortfolioDataGenerator generator(JdbcTemplate jdbcTemplate) {
+        return new PortfolioDataGenerator(jdbcTemplate, new MarketDataService(), 3, 2, 5, 50, 1.1, 7L, 4);
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> list = new ArrayList<>();
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<Object[]> portfolios = new ArrayList<>();
+        final List<Object[]> holdings = new ArrayList<>();
+        final List<String> written = new ArrayList<>();
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return null;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            boolean portfolio = sql.startsWith("INSERT INTO portfolios");
+            for (Object[] row : batchArgs) {
+                (portfolio ? portfolios : holdings).add(row.clone());
+                written.add((portfolio ? "P" : "H") + row[0]);
+            }
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        public void execute(String sql) {
+            written.add(sql);
+        }
+    }
+}
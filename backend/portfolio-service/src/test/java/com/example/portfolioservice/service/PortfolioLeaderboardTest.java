@@ -0,0 +1,107 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.LeaderboardEntry;
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.PortfolioRank;
+import com.example.portfolioservice.model.StockHolding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioLeaderboardTest {
+
+    private MarketDataService marketDataService;
+    private JdbcTemplate jdbcTemplate;
+    private PortfolioLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        marketDataService = new MarketDataService();
+        marketDataService.updatePrice("AAPL", 100.0);
+        marketDataService.updatePrice("GOOGL", 200.0);
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE portfolios (id BIGINT PRIMARY KEY, name VARCHAR(255), user_id VARCHAR(255), total_value DOUBLE)");
+        jdbcTemplate.execute("CREATE TABLE stock_holdings (id BIGINT PRIMARY KEY, portfolio_id BIGINT, symbol VARCHAR(255), "
+                + "quantity INT, average_price DOUBLE, current_value DOUBLE)");
+        // Values: 1 -> 1000 (+25%), 2 -> 2000 (0%), 3 -> 500 (-50%)
+        insertPortfolio(1L, "alice");
+        insertPortfolio(2L, "alice");
+        insertPortfolio(3L, "bob");
+        insertHolding(1L, 1L, "AAPL", 10, 80.0);
+        insertHolding(2L, 2L, "GOOGL", 10, 200.0);
+        insertHolding(3L, 3L, "AAPL", 5, 200.0);
+        leaderboard = new PortfolioLeaderboard(marketDataService, jdbcTemplate);
+    }
+
+    @Test
+    void testRanksByValueAndReturn() {
+        assertEquals(List.of(2L, 1L, 3L), ids(leaderboard.top(PortfolioLeaderboard.Metric.VALUE, null, 0, 10)));
+        assertEquals(List.of(1L, 2L, 3L), ids(leaderboard.top(PortfolioLeaderboard.Metric.RETURN, null, 0, 10)));
+        assertEquals(List.of(2L, 1L), ids(leaderboard.top(PortfolioLeaderboard.Metric.VALUE, "alice", 0, 10)));
+
+        LeaderboardEntry first = leaderboard.top(PortfolioLeaderboard.Metric.RETURN, null, 0, 1).get(0);
+        assertEquals(1, first.getRank());
+        assertEquals(1000.0, first.getTotalValue(), 1e-9);
+        assertEquals(800.0, first.getCostBasis(), 1e-9);
+        assertEquals(0.25, first.getUnrealizedReturn(), 1e-9);
+    }
+
+    @Test
+    void testPriceTicksReorderPortfolios() {
+        leaderboard.top(PortfolioLeaderboard.Metric.VALUE, null, 0, 10);
+
+        marketDataService.updatePrice("AAPL", 300.0);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(leaderboard.top(PortfolioLeaderboard.Metric.VALUE, null, 0, 10)));
+        PortfolioRank rank = leaderboard.rank(3L);
+        assertEquals(1500.0, rank.getTotalValue(), 1e-9);
+        assertEquals(3, rank.getValueRank());
+        assertEquals(2, rank.getReturnRank());
+        assertEquals(3, rank.getPortfolios());
+        assertEquals(1, rank.getUserValueRank());
+        assertEquals(1, rank.getUserPortfolios());
+    }
+
+    @Test
+    void testRefreshReplacesHoldings() {
+        leaderboard.load();
+        Portfolio portfolio = new Portfolio();
+        portfolio.setId(3L);
+        portfolio.setUserId("bob");
+        StockHolding holding = new StockHolding();
+        holding.setSymbol("GOOGL");
+        holding.setQuantity(50);
+        holding.setAveragePrice(100.0);
+        holding.setPortfolio(portfolio);
+        portfolio.getHoldings().add(holding);
+
+        leaderboard.refresh(portfolio);
+        marketDataService.updatePrice("AAPL", 1.0);
+
+        PortfolioRank rank = leaderboard.rank(3L);
+        assertEquals(10_000.0, rank.getTotalValue(), 1e-9);
+        assertEquals(1.0, rank.getUnrealizedReturn(), 1e-9);
+        assertEquals(1, rank.getValueRank());
+        assertEquals(1, rank.getReturnRank());
+    }
+
+    private static List<Long> ids(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getPortfolioId).toList();
+    }
+
+    private void insertPortfolio(Long id, String userId) {
+        jdbcTemplate.update("INSERT INTO portfolios (id, name, user_id, total_value) VALUES (?, ?, ?, 0)",
+                id, "Portfolio " + id, userId);
+    }
+
+    private void insertHolding(Long id, Long portfolioId, String symbol, int quantity, double averagePrice) {
+        jdbcTemplate.update("INSERT INTO stock_holdings (id, portfolio_id, symbol, quantity, average_price, current_value) "
+                + "VALUES (?, ?, ?, ?, ?, 0)", id, portfolioId, symbol, quantity, averagePrice);
+    }
+}
@@ -30,6 +30,21 @@ class PortfolioServiceTest {
     @Mock
     private MarketDataService marketDataService;
 
+    @Mock
+    private PortfolioValuationEngine valuationEngine;
+
+    @Mock
+    private UserExposureService userExposureService;
+
+    @Mock
+    private PortfolioLeaderboard portfolioLeaderboard;
+
+    @Mock
+    private PortfolioLocks portfolioLocks;
+
+    @Mock
+    private TradeLedgerService tradeLedgerService;
+
     @InjectMocks
     private PortfolioService portfolioService;
 
@@ -105,16 +120,22 @@ class PortfolioServiceTest {
         portfolio.setUserId("testUser");
         portfolio.setTotalValue(0.0);
         
-        when(portfolioRepository.save(any(Portfolio.class))).thenReturn(portfolio);
+        when(portfolioRepository.save(any(Portfolio.class))).thenAnswer(invocation -> {
+            Portfolio saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
         
         // Act
         Portfolio result = portfolioService.createPortfolio(portfolio);
         
         // Assert
         assertNotNull(result);
+        assertEquals(7L, result.getId());
         assertEquals("Test Portfolio", result.getName());
-        assertEquals("testUser", result.getUserId());
+        assertEquals("default-user", result.getUserId());
         assertEquals(0.0, result.getTotalValue());
         verify(portfolioRepository).save(any(Portfolio.class));
+        verify(tradeLedgerService).record(TradeEvent.portfolioCreated(7L, "Test Portfolio", "default-user"));
     }
 } 
\ No newline at end of file
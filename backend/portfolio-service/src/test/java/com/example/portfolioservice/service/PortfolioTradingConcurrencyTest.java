@@ -0,0 +1,113 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.repository.StockHoldingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers portfolios with concurrent trades and checks that no update is lost.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "portfolio.ledger.dir=target/test-data/ledger-${random.uuid}",
+        "portfolio.history.dir=target/test-data/ticks-${random.uuid}"
+})
+class PortfolioTradingConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TRADES_PER_THREAD = 100;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private StockHoldingRepository stockHoldingRepository;
+
+    private Long newPortfolio(String name) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName(name);
+        return portfolioService.createPortfolio(portfolio).getId();
+    }
+
+    private void runConcurrently(TradeTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRADES_PER_THREAD; i++) {
+                    task.trade(thread, i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface TradeTask {
+        void trade(int thread, int index);
+    }
+
+    @Test
+    void testConcurrentBuysOfNewSymbolAreNotLost() throws Exception {
+        Long portfolioId = newPortfolio("Contended buys");
+
+        // Every thread starts with the first buy of the symbol, so the holding is created concurrently
+        runConcurrently((thread, i) -> portfolioService.addStock(portfolioId, "CONC", 1, 100.0 + thread));
+
+        StockHolding holding = stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "CONC").orElseThrow();
+        assertEquals(THREADS * TRADES_PER_THREAD, holding.getQuantity());
+        assertEquals(100.0 + (THREADS - 1) / 2.0, holding.getAveragePrice(), 1e-9);
+    }
+
+    @Test
+    void testConcurrentBuysAndSellsBalance() throws Exception {
+        Long portfolioId = newPortfolio("Contended buys and sells");
+        portfolioService.addStock(portfolioId, "AAPL", 10_000, 150.0);
+
+        runConcurrently((thread, i) -> {
+            if (thread % 2 == 0) {
+                portfolioService.addStock(portfolioId, "AAPL", 2, 150.0);
+            } else {
+                portfolioService.reduceStockQuantity(portfolioId, "AAPL", 1);
+            }
+        });
+
+        StockHolding holding = stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "AAPL").orElseThrow();
+        int buys = THREADS / 2 * TRADES_PER_THREAD;
+        int sells = (THREADS - THREADS / 2) * TRADES_PER_THREAD;
+        assertEquals(10_000 + 2 * buys - sells, holding.getQuantity());
+    }
+
+    @Test
+    void testTradesOnUnrelatedPortfoliosAreIndependent() throws Exception {
+        List<Long> portfolioIds = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            portfolioIds.add(newPortfolio("Independent " + t));
+        }
+
+        runConcurrently((thread, i) -> portfolioService.addStock(portfolioIds.get(thread), "MSFT", 3, 400.0));
+
+        for (Long portfolioId : portfolioIds) {
+            StockHolding holding = stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "MSFT").orElseThrow();
+            assertEquals(3 * TRADES_PER_THREAD, holding.getQuantity());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioValuationEngineTest {
+
+    private MarketDataService marketDataService;
+    private PortfolioValuationEngine valuationEngine;
+
+    @BeforeEach
+    void setUp() {
+        marketDataService = new MarketDataService();
+        valuationEngine = new PortfolioValuationEngine(marketDataService);
+        marketDataService.updatePrice("AAPL", 100.0);
+        marketDataService.updatePrice("GOOGL", 200.0);
+    }
+
+    @Test
+    void testApplyValuesUntrackedPortfolio() {
+        Portfolio portfolio = portfolio(1L, holding("AAPL", 10), holding("GOOGL", 5));
+
+        valuationEngine.apply(portfolio);
+
+        assertTrue(valuationEngine.isTracked(1L));
+        assertEquals(1000.0, portfolio.getHoldings().get(0).getCurrentValue());
+        assertEquals(1000.0, portfolio.getHoldings().get(1).getCurrentValue());
+        assertEquals(2000.0, portfolio.getTotalValue());
+    }
+
+    @Test
+    void testPriceUpdateRevaluesOnlyAffectedPortfolios() {
+        Portfolio apple = portfolio(1L, holding("AAPL", 10));
+        Portfolio google = portfolio(2L, holding("GOOGL", 5));
+        valuationEngine.apply(apple);
+        valuationEngine.apply(google);
+
+        marketDataService.updatePrice("AAPL", 110.0);
+
+        assertEquals(1100.0, valuationEngine.totalValue(1L));
+        assertEquals(1000.0, valuationEngine.totalValue(2L));
+        valuationEngine.apply(apple);
+        assertEquals(1100.0, apple.getHoldings().get(0).getCurrentValue());
+    }
+
+    @Test
+    void testRefreshReplacesHoldings() {
+        Portfolio portfolio = portfolio(1L, holding("AAPL", 10));
+        valuationEngine.apply(portfolio);
+
+        portfolio.getHoldings().clear();
+        portfolio.getHoldings().add(holding("GOOGL", 1));
+        valuationEngine.refresh(portfolio);
+        marketDataService.updatePrice("AAPL", 500.0);
+
+        assertEquals(200.0, valuationEngine.totalValue(1L));
+    }
+
+    @Test
+    void testValuationTagChangesOnlyWithValuation() {
+        Portfolio portfolio = portfolio(1L, holding("AAPL", 10));
+        assertNull(valuationEngine.valuationTag(1L));
+        valuationEngine.apply(portfolio);
+        String loaded = valuationEngine.valuationTag(1L);
+
+        marketDataService.updatePrice("GOOGL", 210.0);
+        assertEquals(loaded, valuationEngine.valuationTag(1L));
+
+        marketDataService.updatePrice("AAPL", 110.0);
+        String repriced = valuationEngine.valuationTag(1L);
+        assertNotEquals(loaded, repriced);
+
+        portfolio.getHoldings().add(holding("GOOGL", 1));
+        valuationEngine.refresh(portfolio);
+        assertNotEquals(repriced, valuationEngine.valuationTag(1L));
+        assertEquals(2, valuationEngine.holdingCount(1L));
+    }
+
+    @Test
+    void testValuationSnapshotMatchesItsTag() {
+        StockHolding google = holding("GOOGL", 5);
+        google.setId(3L);
+        StockHolding apple = holding("AAPL", 10);
+        apple.setId(7L);
+        assertNull(valuationEngine.valuationSnapshot(1L));
+        valuationEngine.apply(portfolio(1L, apple, google));
+
+        PortfolioValuationEngine.ValuationSnapshot snapshot = valuationEngine.valuationSnapshot(1L);
+        marketDataService.updatePrice("AAPL", 110.0);
+
+        assertNotEquals(valuationEngine.valuationTag(1L), snapshot.tag());
+        assertEquals(2000.0, snapshot.totalValue());
+        assertEquals(2, snapshot.size());
+        assertEquals(3L, snapshot.holdingId(0));
+        assertEquals("GOOGL", snapshot.symbol(0));
+        assertEquals(1000.0, snapshot.currentValue(0));
+        assertEquals("AAPL", snapshot.symbol(1));
+        assertEquals(10, snapshot.quantity(1));
+        assertEquals(1000.0, snapshot.currentValue(1));
+
+        PortfolioValuationEngine.ValuationSnapshot repriced = valuationEngine.valuationSnapshot(1L);
+        assertEquals(valuationEngine.valuationTag(1L), repriced.tag());
+        assertEquals(2100.0, repriced.totalValue());
+        assertEquals(1100.0, repriced.currentValue(1));
+    }
+
+    private Portfolio portfolio(Long id, StockHolding... holdings) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setId(id);
+        portfolio.setName("Portfolio " + id);
+        for (StockHolding holding : holdings) {
+            holding.setPortfolio(portfolio);
+            portfolio.getHoldings().add(holding);
+        }
+        return portfolio;
+    }
+
+    private StockHolding holding(String symbol, int quantity) {
+        StockHolding holding = new StockHolding();
+        holding.setSymbol(symbol);
+        holding.setQuantity(quantity);
+        holding.setAveragePrice(100.0);
+        return holding;
+    }
+}
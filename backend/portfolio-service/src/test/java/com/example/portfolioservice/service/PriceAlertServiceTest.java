@@ -0,0 +1,73 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.AlertDirection;
+import com.example.portfolioservice.model.PriceAlert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceAlertServiceTest {
+
+    private MarketDataService marketDataService;
+    private PriceAlertService alertService;
+
+    @BeforeEach
+    void setUp() {
+        marketDataService = new MarketDataService();
+        marketDataService.updatePrice("AAPL", 100.0);
+        alertService = new PriceAlertService(marketDataService, null,
+                new PortfolioValuationEngine(marketDataService), 16, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        alertService.shutdown();
+    }
+
+    @Test
+    void testSymbolAlertFiresOnceWhenCrossed() {
+        PriceAlert alert = alertService.register(alert("AAPL", AlertDirection.ABOVE, 110.0));
+        alertService.register(alert("AAPL", AlertDirection.BELOW, 90.0));
+
+        marketDataService.updatePrice("AAPL", 105.0);
+        assertEquals(0, alertService.getFiredAlerts());
+
+        marketDataService.updatePrice("AAPL", 111.0);
+        marketDataService.updatePrice("AAPL", 100.0);
+        marketDataService.updatePrice("AAPL", 112.0);
+
+        assertEquals(1, alertService.getFiredAlerts());
+        assertEquals(1, alertService.activeAlerts());
+        assertTrue(alertService.getAlerts("alice").stream().noneMatch(a -> a.getId().equals(alert.getId())));
+    }
+
+    @Test
+    void testCancelledAlertDoesNotFire() {
+        PriceAlert alert = alertService.register(alert("AAPL", AlertDirection.BELOW, 95.0));
+
+        alertService.cancel(alert.getId());
+        marketDataService.updatePrice("AAPL", 90.0);
+
+        assertEquals(0, alertService.getFiredAlerts());
+        assertTrue(alertService.getAlerts("alice").isEmpty());
+        assertThrows(RuntimeException.class, () -> alertService.cancel(alert.getId()));
+    }
+
+    @Test
+    void testRejectsAlertWithoutTarget() {
+        PriceAlert alert = alert(null, AlertDirection.ABOVE, 1.0);
+
+        assertThrows(RuntimeException.class, () -> alertService.register(alert));
+    }
+
+    private PriceAlert alert(String symbol, AlertDirection direction, double threshold) {
+        PriceAlert alert = new PriceAlert();
+        alert.setUserId("alice");
+        alert.setSymbol(symbol);
+        alert.setDirection(direction);
+        alert.setThreshold(threshold);
+        return alert;
+    }
+}
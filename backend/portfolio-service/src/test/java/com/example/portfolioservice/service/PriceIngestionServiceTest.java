@@ -0,0 +1,60 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.PriceBatchResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceIngestionServiceTest {
+
+    private MarketDataService marketDataService;
+    private PriceIngestionService priceIngestionService;
+
+    @BeforeEach
+    void setUp() {
+        marketDataService = new MarketDataService();
+        priceIngestionService = new PriceIngestionService(marketDataService, new ObjectMapper());
+    }
+
+    @Test
+    void testIngestNdjson() throws IOException {
+        String body = """
+                {"symbol":"AAPL","price":190.5,"timestamp":1700000000000}
+                {"symbol":"msft","price":410.0}
+                {"symbol":"GOOGL","price":"oops"}
+                not json
+                """;
+
+        PriceBatchResult result = priceIngestionService.ingest(stream(body), UploadFormat.NDJSON);
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(2, result.getRejected());
+        assertEquals(2, result.getErrors().size());
+        assertEquals(190.5, marketDataService.getCurrentPrice("AAPL"));
+        assertEquals(410.0, marketDataService.getCurrentPrice("MSFT"));
+        assertEquals(145.2, marketDataService.getCurrentPrice("GOOGL"));
+    }
+
+    @Test
+    void testIngestCsvWithHeader() throws IOException {
+        String body = "symbol,price,timestamp\nAAPL,191.25,1700000000000\nTSLA,-1\nNVDA,930\n";
+
+        PriceBatchResult result = priceIngestionService.ingest(stream(body), UploadFormat.CSV);
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertTrue(result.getErrors().get(0).startsWith("line 3"));
+        assertEquals(191.25, marketDataService.getCurrentPrice("AAPL"));
+        assertEquals(930.0, marketDataService.getCurrentPrice("NVDA"));
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.portfolioservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceStoreTest {
+
+    @Test
+    void testRegisterAssignsDenseIds() {
+        PriceStore store = new PriceStore();
+
+        int apple = store.register("AAPL", 175.5, 1L);
+        int google = store.register("GOOGL", 145.2, 1L);
+
+        assertEquals(0, apple);
+        assertEquals(1, google);
+        assertEquals(apple, store.register("AAPL", 999.0, 2L));
+        assertEquals(175.5, store.price(apple));
+        assertEquals("GOOGL", store.symbolOf(google));
+        assertEquals(-1, store.idOf("MSFT"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void testUpdateReturnsPreviousPriceAndBumpsVersion() {
+        PriceStore store = new PriceStore();
+        int id = store.register("AAPL", 100.0, 1L);
+
+        double previous = store.update(id, 101.0, 2L);
+
+        long[] timestamp = new long[1];
+        assertEquals(100.0, previous);
+        assertEquals(101.0, store.read(id, timestamp));
+        assertEquals(2L, timestamp[0]);
+        assertEquals(2L, store.version(id));
+    }
+
+    @Test
+    void testGrowsAcrossChunks() {
+        PriceStore store = new PriceStore();
+        for (int i = 0; i < 5000; i++) {
+            store.register("SYM" + i, i, 1L);
+        }
+
+        assertEquals(5000, store.size());
+        assertEquals(4321.0, store.price(store.idOf("SYM4321")));
+    }
+
+    @Test
+    void testConcurrentUpdatesAreNotLost() throws InterruptedException {
+        PriceStore store = new PriceStore();
+        int id = store.register("AAPL", 0.0, 0L);
+        int threads = 4;
+        int updatesPerThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < updatesPerThread; i++) {
+                    store.update(id, i, i);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(1L + threads * updatesPerThread, store.version(id));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Quote;
+import com.example.portfolioservice.model.StockQuote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteServiceTest {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private Path directory;
+    private MarketDataService marketDataService;
+    private PriceHistoryService historyService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("ticks");
+        marketDataService = new MarketDataService();
+        historyService = new PriceHistoryService(marketDataService, directory.toString(), 16, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        historyService.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void testQuoteCombinesDayStatisticsWithLivePrice() {
+        long dayStart = Math.floorDiv(System.currentTimeMillis(), DAY_MILLIS) * DAY_MILLIS;
+        tick("AAPL", 95.0, dayStart - 1_000);
+        tick("AAPL", 100.0, dayStart + 1);
+        tick("AAPL", 110.0, dayStart + 2);
+        tick("AAPL", 90.0, dayStart + 3);
+        QuoteService quoteService = new QuoteService(marketDataService, historyService, 100, 60_000, 10, 10);
+
+        List<StockQuote> quotes = quoteService.getQuotes(List.of("aapl", "MSFT", "AAPL"));
+
+        assertEquals(2, quotes.size());
+        StockQuote apple = quotes.get(0);
+        assertEquals("AAPL", apple.getSymbol());
+        assertEquals(90.0, apple.getCurrentPrice());
+        assertEquals(100.0, apple.getOpenPrice());
+        assertEquals(110.0, apple.getHighPrice());
+        assertEquals(90.0, apple.getLowPrice());
+        assertEquals(95.0, apple.getPreviousClose());
+        assertEquals(-5.0, apple.getChange(), 1e-9);
+        assertNull(quotes.get(1).getPreviousClose());
+
+        // Within the TTL the cached statistics are reused, the price stays live
+        tick("AAPL", 120.0, dayStart + 4);
+        StockQuote cached = quoteService.getQuotes(List.of("AAPL")).get(0);
+        assertEquals(120.0, cached.getCurrentPrice());
+        assertEquals(120.0, cached.getHighPrice());
+        assertEquals(1, quoteService.getCache().getHits());
+        assertEquals(2, quoteService.getCache().getMisses());
+    }
+
+    @Test
+    void testCacheEvictsBeyondCapacity() {
+        QuoteService quoteService = new QuoteService(marketDataService, historyService, 16, 60_000, 100, 10);
+
+        for (int i = 0; i < 40; i++) {
+            quoteService.getQuotes(List.of("SYM" + i));
+        }
+
+        assertTrue(quoteService.getCache().size() <= 16);
+        assertEquals(40 - quoteService.getCache().size(), quoteService.getCache().getEvictions());
+    }
+
+    @Test
+    void testUnknownSymbolsArePricedByTheProviderUpToTheLimit() throws IOException {
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        MarketDataProvider provider = symbols -> {
+            calls.add(symbols);
+            Map<String, Quote> quotes = new HashMap<>();
+            for (String symbol : symbols) {
+                quotes.put(symbol, new Quote(symbol, 42.0, 1_000L));
+            }
+            return CompletableFuture.completedFuture(quotes);
+        };
+        MarketDataService providerBacked = new MarketDataService(
+                new MarketDataClient(provider, Duration.ofMillis(5), 50, Duration.ofSeconds(2)), 2_000);
+        PriceHistoryService history = new PriceHistoryService(providerBacked, directory.resolve("provider").toString(), 16, 1000);
+        try {
+            QuoteService quoteService = new QuoteService(providerBacked, history, 100, 60_000, 10, 2);
+            int known = providerBacked.getPriceStore().size();
+
+            List<StockQuote> quotes = quoteService.getQuotes(List.of("NEWA", "AAPL", "NEWB", "NEWC"));
+
+            assertEquals(List.of("NEWA", "AAPL", "NEWB"), quotes.stream().map(StockQuote::getSymbol).toList());
+            assertEquals(42.0, quotes.get(0).getCurrentPrice());
+            assertEquals(42.0, quotes.get(2).getCurrentPrice());
+            assertEquals(known + 2, providerBacked.getPriceStore().size());
+            // Both new symbols went to the provider in one batch
+            assertEquals(List.of(List.of("NEWA", "NEWB")), calls);
+
+            // Once registered, NEWC is the only new symbol of the next request
+            assertEquals("NEWC", quoteService.getQuotes(List.of("NEWC")).get(0).getSymbol());
+        } finally {
+            history.close();
+            providerBacked.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsTooManySymbols() {
+        QuoteService quoteService = new QuoteService(marketDataService, historyService, 100, 1_000, 2, 10);
+
+        assertThrows(RuntimeException.class, () -> quoteService.getQuotes(List.of("AAPL", "MSFT", "NVDA")));
+    }
+
+    private void tick(String symbol, double price, long timestamp) {
+        PriceTickBatch batch = new PriceTickBatch();
+        batch.add(symbol, price, timestamp);
+        marketDataService.updatePrices(batch);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.portfolioservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankTreeTest {
+
+    private record Key(double score, long id) {
+    }
+
+    private static final Comparator<Key> ORDER = Comparator.comparingDouble(Key::score).reversed()
+            .thenComparingLong(Key::id);
+
+    @Test
+    void testRanksMatchSortedOrderUnderRandomUpdates() {
+        RankTree tree = new RankTree();
+        List<Key> keys = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            if (!keys.isEmpty() && random.nextInt(3) == 0) {
+                Key removed = keys.remove(random.nextInt(keys.size()));
+                tree.remove(removed.score(), removed.id());
+            } else {
+                // Few distinct scores, so ties are ordered by id
+                Key key = new Key(random.nextInt(50), i);
+                keys.add(key);
+                tree.insert(key.score(), key.id());
+            }
+        }
+        keys.sort(ORDER);
+
+        assertEquals(keys.size(), tree.size());
+        for (int rank = 0; rank < keys.size(); rank += 37) {
+            Key key = keys.get(rank);
+            assertEquals(rank, tree.rank(key.score(), key.id()));
+        }
+        assertEquals(-1, tree.rank(1000.0, -1L));
+    }
+
+    @Test
+    void testVisitReturnsRequestedRankRange() {
+        RankTree tree = new RankTree();
+        for (int i = 0; i < 100; i++) {
+            tree.insert(i * 1.5, i);
+        }
+        List<Long> ids = new ArrayList<>();
+        List<Integer> ranks = new ArrayList<>();
+
+        tree.visit(10, 5, (rank, score, id) -> {
+            ranks.add(rank);
+            ids.add(id);
+        });
+
+        assertEquals(List.of(10, 11, 12, 13, 14), ranks);
+        assertEquals(List.of(89L, 88L, 87L, 86L, 85L), ids);
+        List<Long> tail = new ArrayList<>();
+        tree.visit(98, 10, (rank, score, id) -> tail.add(id));
+        assertEquals(List.of(1L, 0L), tail);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.portfolioservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskEngineTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final RiskEngine engine = new RiskEngine(pool);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static double[][] randomReturns(int symbols, int observations, long seed) {
+        Random random = new Random(seed);
+        double[][] returns = new double[symbols][observations];
+        for (int s = 0; s < symbols; s++) {
+            for (int t = 0; t < observations; t++) {
+                returns[s][t] = random.nextGaussian() * 0.02;
+            }
+        }
+        return returns;
+    }
+
+    @Test
+    void logReturnsTreatMissingPricesAsNoMove() {
+        double[] returns = RiskEngine.logReturns(new double[]{Double.NaN, 100.0, 110.0, 99.0});
+
+        assertArrayEquals(new double[]{0.0, Math.log(1.1), Math.log(0.9)}, returns, 1e-12);
+    }
+
+    @Test
+    void covarianceMatchesSequentialComputation() {
+        double[][] returns = randomReturns(40, 120, 1);
+
+        double[][] covariance = engine.covariance(returns);
+
+        for (int i = 0; i < returns.length; i++) {
+            for (int j = 0; j < returns.length; j++) {
+                double meanI = 0.0;
+                double meanJ = 0.0;
+                for (int t = 0; t < 120; t++) {
+                    meanI += returns[i][t] / 120;
+                    meanJ += returns[j][t] / 120;
+                }
+                double sum = 0.0;
+                for (int t = 0; t < 120; t++) {
+                    sum += (returns[i][t] - meanI) * (returns[j][t] - meanJ);
+                }
+                assertEquals(sum / 119, covariance[i][j], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void singlePositionVarFollowsItsReturns() {
+        double[][] returns = new double[1][100];
+        for (int t = 0; t < 100; t++) {
+            returns[0][t] = (t - 50) / 1000.0;
+        }
+        double[][] covariance = engine.covariance(returns);
+
+        RiskEngine.Results results = engine.compute(new int[]{0, 1}, new int[]{0}, new double[]{1000.0}, returns, covariance);
+
+        double sigma = 1000.0 * Math.sqrt(covariance[0][0]);
+        assertEquals(sigma, results.volatility[0], 1e-9);
+        assertEquals(RiskEngine.Z_95 * sigma, results.parametricVar95[0], 1e-9);
+        assertEquals(RiskEngine.Z_99 * sigma, results.parametricVar99[0], 1e-9);
+        assertEquals(45.0, results.historicalVar95[0], 1e-9);
+        assertEquals(49.0, results.historicalVar99[0], 1e-9);
+    }
+
+    @Test
+    void batchMatchesPortfoliosComputedOneByOne() {
+        int symbols = 30;
+        int portfolios = 500;
+        double[][] returns = randomReturns(symbols, 250, 2);
+        double[][] covariance = engine.covariance(returns);
+        Random random = new Random(3);
+        int[] offsets = new int[portfolios + 1];
+        int[] positionSymbols = new int[portfolios * 5];
+        double[] exposures = new double[portfolios * 5];
+        int positions = 0;
+        for (int p = 0; p < portfolios; p++) {
+            int count = 1 + random.nextInt(5);
+            int first = random.nextInt(symbols - 5);
+            for (int k = 0; k < count; k++) {
+                positionSymbols[positions] = first + k;
+                exposures[positions++] = 100 + random.nextDouble() * 10_000;
+            }
+            offsets[p + 1] = positions;
+        }
+
+        RiskEngine.Results batch = engine.compute(offsets, positionSymbols, exposures, returns, covariance);
+
+        for (int p = 0; p < portfolios; p++) {
+            int start = offsets[p];
+            int count = offsets[p + 1] - start;
+            int[] single = new int[count];
+            double[] singleExposures = new double[count];
+            System.arraycopy(positionSymbols, start, single, 0, count);
+            System.arraycopy(exposures, start, singleExposures, 0, count);
+            RiskEngine.Results one = engine.compute(new int[]{0, count}, single, singleExposures, returns, covariance);
+            assertEquals(one.volatility[0], batch.volatility[p], 1e-9);
+            assertEquals(one.historicalVar99[0], batch.historicalVar99[p], 1e-9);
+            assertTrue(batch.parametricVar99[p] > batch.parametricVar95[p]);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.SymbolMatch;
+import com.example.portfolioservice.model.SymbolSearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolSearchIndexTest {
+
+    private final SymbolSearchIndex index = new SymbolSearchIndex(List.of(
+            entry("AAPL", "Apple Inc"),
+            entry("AMZN", "Amazon.com Inc"),
+            entry("MSFT", "Microsoft Corp"),
+            entry("BAC", "Bank of America Corp"),
+            entry("BK", "Bank of New York Mellon Corp"),
+            entry("A", "Agilent Technologies Inc"),
+            entry("AA", "Alcoa Corp")));
+
+    @Test
+    void testExactSymbolRanksFirstThenShorterPrefixes() {
+        List<SymbolSearchResult> results = index.search("a", 4);
+
+        assertEquals(List.of("A", "AA", "AAPL", "AMZN"), symbols(results));
+        assertEquals(SymbolMatch.EXACT, results.get(0).getMatch());
+        assertEquals(SymbolMatch.PREFIX, results.get(1).getMatch());
+    }
+
+    @Test
+    void testMatchesNameWordsAndPhrases() {
+        List<SymbolSearchResult> results = index.search("Bank of A", 10);
+
+        assertEquals(List.of("BAC"), symbols(results));
+        assertEquals(SymbolMatch.NAME_PREFIX, results.get(0).getMatch());
+        assertEquals(List.of("AMZN"), symbols(index.search("amazon", 10)));
+    }
+
+    @Test
+    void testFallsBackToSubstringAndTypos() {
+        assertEquals(SymbolMatch.SUBSTRING, index.search("soft", 10).get(0).getMatch());
+
+        List<SymbolSearchResult> results = index.search("micorsoft", 10);
+        assertEquals(List.of("MSFT"), symbols(results));
+        assertEquals(SymbolMatch.FUZZY, results.get(0).getMatch());
+        assertTrue(index.search("zzzz", 10).isEmpty());
+    }
+
+    private static List<String> symbols(List<SymbolSearchResult> results) {
+        return results.stream().map(SymbolSearchResult::getSymbol).toList();
+    }
+
+    private static SymbolSearchIndex.Entry entry(String symbol, String name) {
+        return new SymbolSearchIndex.Entry(symbol, name, "Common Stock", "NYSE");
+    }
+}
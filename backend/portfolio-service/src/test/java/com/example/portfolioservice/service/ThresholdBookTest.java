@@ -0,0 +1,99 @@
+package com.example.portfolioservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThresholdBookTest {
+
+    private static List<Long> cross(ThresholdBook book, double value) {
+        List<Long> fired = new ArrayList<>();
+        book.cross(value, (alertId, threshold) -> fired.add(alertId));
+        return fired;
+    }
+
+    @Test
+    void testRisingValueFiresAboveThresholdsInRange() {
+        ThresholdBook book = new ThresholdBook();
+        book.setLastValue(100.0);
+        book.add(true, 105.0, 1L);
+        book.add(true, 110.0, 2L);
+        book.add(true, 110.0, 3L);
+        book.add(true, 120.0, 4L);
+        book.add(false, 102.0, 5L);
+
+        assertEquals(List.of(), cross(book, 104.0));
+        assertEquals(List.of(1L, 2L, 3L), cross(book, 110.0));
+        assertEquals(List.of(), cross(book, 115.0));
+        assertEquals(2, book.size());
+    }
+
+    @Test
+    void testFallingValueFiresBelowThresholdsInRange() {
+        ThresholdBook book = new ThresholdBook();
+        book.setLastValue(100.0);
+        book.add(false, 95.0, 1L);
+        book.add(false, 90.0, 2L);
+        book.add(false, 100.0, 3L);
+        book.add(true, 96.0, 4L);
+
+        assertEquals(List.of(1L), cross(book, 95.0));
+        assertEquals(List.of(4L), cross(book, 97.0));
+        assertEquals(List.of(2L), cross(book, 80.0));
+        assertEquals(List.of(), cross(book, 100.0));
+        // 3 sat exactly at the starting value, so nothing crossed it
+        assertEquals(1, book.size());
+    }
+
+    @Test
+    void testRemovedAlertDoesNotFire() {
+        ThresholdBook book = new ThresholdBook();
+        book.setLastValue(10.0);
+        book.add(true, 11.0, 1L);
+        book.add(true, 11.0, 2L);
+
+        assertTrue(book.remove(true, 11.0, 1L));
+        assertFalse(book.remove(true, 11.0, 1L));
+        assertEquals(List.of(2L), cross(book, 12.0));
+    }
+
+    @Test
+    void testLargeBookFiresExactlyTheCrossedAlertsInOrder() {
+        ThresholdBook book = new ThresholdBook();
+        book.setLastValue(0.0);
+        List<double[]> registered = new ArrayList<>();
+        Random random = new Random(11);
+        for (long id = 0; id < 200_000; id++) {
+            // Few distinct levels, so many alerts share a threshold
+            double threshold = 1 + random.nextInt(1000);
+            book.add(true, threshold, id);
+            registered.add(new double[] {threshold, id});
+        }
+        List<double[]> remaining = new ArrayList<>();
+        for (double[] alert : registered) {
+            if ((long) alert[1] % 3 == 0) {
+                assertTrue(book.remove(true, alert[0], (long) alert[1]));
+            } else {
+                remaining.add(alert);
+            }
+        }
+        assertEquals(remaining.size(), book.size());
+
+        List<Long> expected = new ArrayList<>();
+        remaining.stream()
+                .filter(alert -> alert[0] <= 500)
+                .sorted(Comparator.<double[]>comparingDouble(alert -> alert[0]).thenComparingDouble(alert -> alert[1]))
+                .forEach(alert -> expected.add((long) alert[1]));
+
+        assertEquals(expected, cross(book, 500.0));
+        assertEquals(List.of(), cross(book, 400.0));
+        assertEquals(remaining.size() - expected.size(), book.size());
+        assertEquals(remaining.size() - expected.size(), cross(book, 1000.0).size());
+        assertEquals(0, book.size());
+    }
+}
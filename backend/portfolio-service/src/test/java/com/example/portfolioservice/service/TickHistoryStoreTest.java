@@ -0,0 +1,195 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.PriceBar;
+import com.example.portfolioservice.model.PriceHistory;
+import com.example.portfolioservice.model.PriceTick;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickHistoryStoreTest {
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("ticks");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private List<Long> timestamps(TickHistoryStore store, String symbol, long from, long to) {
+        List<Long> timestamps = new ArrayList<>();
+        store.scan(symbol, from, to, (timestamp, price) -> {
+            assertEquals(timestamp / 10.0, price);
+            timestamps.add(timestamp);
+            return true;
+        });
+        return timestamps;
+    }
+
+    @Test
+    void testRangeQueryAcrossSegments() throws IOException {
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4)) {
+            for (long t = 100; t < 200; t += 10) {
+                assertTrue(store.append("AAPL", t, t / 10.0));
+            }
+
+            assertEquals(10, store.count("AAPL"));
+            assertEquals(List.of(130L, 140L, 150L, 160L), timestamps(store, "AAPL", 125, 160));
+            assertEquals(List.of(100L), timestamps(store, "AAPL", 0, 100));
+            assertEquals(List.of(), timestamps(store, "AAPL", 200, 300));
+            assertEquals(List.of(), timestamps(store, "MSFT", 0, 300));
+        }
+        try (Stream<Path> segments = Files.list(directory.resolve("AAPL"))) {
+            assertEquals(3L, segments.count());
+        }
+    }
+
+    @Test
+    void testSegmentsGrowUpToCapacity() throws IOException {
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4096)) {
+            for (long t = 0; t < 1024 + 2048 + 1; t++) {
+                assertTrue(store.append("AAPL", t, t / 10.0));
+            }
+            assertEquals(List.of(3071L, 3072L), timestamps(store, "AAPL", 3071, 5000));
+        }
+        List<Long> sizes = new ArrayList<>();
+        try (Stream<Path> segments = Files.list(directory.resolve("AAPL")).sorted()) {
+            for (Path segment : (Iterable<Path>) segments::iterator) {
+                sizes.add(Files.size(segment));
+            }
+        }
+        assertEquals(List.of(64 + 1024 * 16L, 64 + 2048 * 16L, 64 + 4096 * 16L), sizes);
+
+        // Reopened segments keep their own capacity and appends continue in the last one
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4096)) {
+            assertTrue(store.append("AAPL", 5000, 500.0));
+            assertEquals(List.of(3072L, 5000L), timestamps(store, "AAPL", 3072, 5000));
+        }
+        try (Stream<Path> segments = Files.list(directory.resolve("AAPL"))) {
+            assertEquals(3L, segments.count());
+        }
+    }
+
+    @Test
+    void testOlderTicksAreRejected() throws IOException {
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4)) {
+            assertTrue(store.append("AAPL", 100, 10.0));
+            assertTrue(store.append("AAPL", 100, 10.0));
+            assertFalse(store.append("AAPL", 90, 9.0));
+
+            assertEquals(2, store.count("AAPL"));
+        }
+    }
+
+    @Test
+    void testReopenKeepsTicksAndContinuesAppending() throws IOException {
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4)) {
+            for (long t = 10; t <= 50; t += 10) {
+                store.append("MSFT", t, t / 10.0);
+            }
+        }
+
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4)) {
+            assertEquals(List.of("MSFT"), store.symbols());
+            assertEquals(List.of(10L, 20L, 30L, 40L, 50L), timestamps(store, "MSFT", 0, 100));
+            assertFalse(store.append("MSFT", 40, 4.0));
+            assertTrue(store.append("MSFT", 60, 6.0));
+            assertEquals(6, store.count("MSFT"));
+        }
+    }
+
+    @Test
+    void testLastBeforeSearchesBackAcrossSegments() throws IOException {
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4)) {
+            for (long t = 100; t < 200; t += 10) {
+                store.append("AAPL", t, t / 10.0);
+            }
+
+            assertEquals(15.0, store.lastBefore("AAPL", 155));
+            assertEquals(14.0, store.lastBefore("AAPL", 150));
+            assertEquals(19.0, store.lastBefore("AAPL", 1_000));
+            assertTrue(Double.isNaN(store.lastBefore("AAPL", 100)));
+            assertTrue(Double.isNaN(store.lastBefore("MSFT", 1_000)));
+        }
+    }
+
+    @Test
+    void testInvalidSymbolsAreRejected() throws IOException {
+        try (TickHistoryStore store = new TickHistoryStore(directory, 4)) {
+            assertThrows(IllegalArgumentException.class, () -> store.append("../etc", 1, 1.0));
+            assertFalse(TickHistoryStore.isValidSymbol(".."));
+            assertTrue(TickHistoryStore.isValidSymbol("BRK.B"));
+        }
+    }
+
+    @Test
+    void testHistoryServiceRecordsPriceChangesAsBars() throws IOException {
+        MarketDataService marketDataService = new MarketDataService();
+        PriceHistoryService historyService = new PriceHistoryService(marketDataService, directory.toString(), 16, 1000);
+        try {
+            PriceTickBatch batch = new PriceTickBatch();
+            batch.add("AAPL", 100.0, 60_000);
+            marketDataService.updatePrices(batch);
+            for (double[] tick : new double[][] {{101.0, 61_000}, {99.0, 62_000}, {100.5, 119_000}, {102.0, 120_000}}) {
+                batch.clear();
+                batch.add("AAPL", tick[0], (long) tick[1]);
+                marketDataService.updatePrices(batch);
+            }
+
+            PriceHistory history = historyService.getHistory("AAPL", 0, 200_000, 60_000);
+
+            assertEquals(2, history.getBars().size());
+            PriceBar first = history.getBars().get(0);
+            assertEquals(60_000L, first.getTimestamp());
+            assertEquals(100.0, first.getOpen());
+            assertEquals(101.0, first.getHigh());
+            assertEquals(99.0, first.getLow());
+            assertEquals(100.5, first.getClose());
+            assertEquals(4, first.getTicks());
+            assertEquals(102.0, history.getBars().get(1).getOpen());
+            assertEquals(5, historyService.getHistory("AAPL", 0, 200_000, 0).getTicks().size());
+        } finally {
+            historyService.close();
+        }
+    }
+
+    @Test
+    void testHistoryServiceKeepsEachTickTimestampWithinABatch() throws IOException {
+        MarketDataService marketDataService = new MarketDataService();
+        PriceHistoryService historyService = new PriceHistoryService(marketDataService, directory.toString(), 16, 1000);
+        try {
+            PriceTickBatch batch = new PriceTickBatch();
+            batch.add("AAPL", 100.0, 1_000);
+            batch.add("AAPL", 101.0, 2_000);
+            batch.add("AAPL", 102.0, 3_000);
+            // Older than the tick before it, so it cannot be recorded
+            batch.add("AAPL", 103.0, 2_500);
+            marketDataService.updatePrices(batch);
+
+            List<Long> timestamps = new ArrayList<>();
+            for (PriceTick tick : historyService.getHistory("AAPL", 0, 10_000, 0).getTicks()) {
+                timestamps.add(tick.getTimestamp());
+            }
+            assertEquals(List.of(1_000L, 2_000L, 3_000L), timestamps);
+            assertEquals(1, historyService.getRejectedTicks());
+        } finally {
+            historyService.close();
+        }
+    }
+}
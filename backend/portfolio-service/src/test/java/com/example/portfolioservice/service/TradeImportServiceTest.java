@@ -0,0 +1,186 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.model.TradeImportResult;
+import com.example.portfolioservice.repository.StockHoldingRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "portfolio.ledger.dir=target/test-data/ledger-${random.uuid}",
+        "portfolio.history.dir=target/test-data/ticks-${random.uuid}",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class TradeImportServiceTest {
+
+    @Autowired
+    private TradeImportService tradeImportService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private StockHoldingRepository stockHoldingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testImportNdjsonReportsRejectedRows() throws IOException {
+        Long portfolioId = newPortfolio("NDJSON import");
+        String body = """
+                {"portfolioId":%1$d,"symbol":"AAPL","quantity":10,"price":100.0}
+                {"portfolioId":%1$d,"symbol":"AAPL","quantity":10,"price":200.0}
+                {"portfolioId":%1$d,"symbol":"MSFT","quantity":"ten","price":100.0}
+                {"portfolioId":%1$d,"symbol":"MSFT","quantity":5}
+                not json
+
+                {"portfolioId":%1$d,"symbol":"MSFT","quantity":5,"price":400.0}
+                """.formatted(portfolioId);
+
+        TradeImportResult result = tradeImportService.importTrades(stream(body), UploadFormat.NDJSON);
+
+        assertEquals(6, result.getRowsRead());
+        assertEquals(3, result.getRowsAccepted());
+        assertEquals(3, result.getRowsRejected());
+        assertEquals(1, result.getPortfoliosAffected());
+        assertEquals(2, result.getHoldingsCreated());
+        assertTrue(result.getErrors().get(0).startsWith("line 3: quantity must be an integer"));
+        assertTrue(result.getErrors().get(1).startsWith("line 4: price must be positive"));
+        assertTrue(result.getErrors().get(2).startsWith("line 5:"));
+        StockHolding apple = stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "AAPL").orElseThrow();
+        assertEquals(20, apple.getQuantity());
+        assertEquals(150.0, apple.getAveragePrice());
+    }
+
+    @Test
+    void testImportCsvWithHeaderAndUnknownPortfolio() throws IOException {
+        Long portfolioId = newPortfolio("CSV import");
+        String body = "portfolioId,symbol,quantity,price\n"
+                + portfolioId + ",NVDA,4,900\n"
+                + "999999,NVDA,4,900\n"
+                + "999999,TSLA,1,100\n"
+                + portfolioId + ",NVDA,x,900\n"
+                + portfolioId + ",TSLA\n";
+
+        TradeImportResult result = tradeImportService.importTrades(stream(body), UploadFormat.CSV);
+
+        assertEquals(5, result.getRowsRead());
+        assertEquals(1, result.getRowsAccepted());
+        assertEquals(4, result.getRowsRejected());
+        assertEquals("line 3: portfolio 999999 not found", result.getErrors().get(0));
+        assertEquals("line 4: portfolio 999999 not found", result.getErrors().get(1));
+        assertTrue(result.getErrors().get(2).startsWith("line 5: invalid number"));
+        assertTrue(result.getErrors().get(3).startsWith("line 6: expected portfolioId,symbol,quantity"));
+        assertEquals(4, stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "NVDA").orElseThrow().getQuantity());
+    }
+
+    @Test
+    void testSellsToZeroRemoveHoldingAndOversellsAreRejected() throws IOException {
+        Long portfolioId = newPortfolio("Sells");
+        portfolioService.addStock(portfolioId, "AAPL", 10, 100.0);
+        portfolioService.addStock(portfolioId, "MSFT", 10, 100.0);
+        String body = portfolioId + ",AAPL,-4\n"
+                + portfolioId + ",AAPL,-6\n"
+                + portfolioId + ",AAPL,-1\n"
+                + portfolioId + ",MSFT,-11\n"
+                + portfolioId + ",GOOGL,-1\n";
+
+        TradeImportResult result = tradeImportService.importTrades(stream(body), UploadFormat.CSV);
+
+        assertEquals(2, result.getRowsAccepted());
+        assertEquals(1, result.getHoldingsRemoved());
+        assertEquals("line 3: stock AAPL not found in portfolio " + portfolioId, result.getErrors().get(0));
+        assertEquals("line 4: cannot reduce MSFT by more than 10", result.getErrors().get(1));
+        assertEquals("line 5: stock GOOGL not found in portfolio " + portfolioId, result.getErrors().get(2));
+        assertTrue(stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "AAPL").isEmpty());
+        assertEquals(10, stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "MSFT").orElseThrow().getQuantity());
+    }
+
+    @Test
+    void testLargeImportIsPersistedInJdbcBatches() throws IOException {
+        Long first = newPortfolio("Batch 1");
+        Long second = newPortfolio("Batch 2");
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            body.append(i % 2 == 0 ? first : second).append(",SYM").append(i).append(",1,10\n");
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        TradeImportResult result = tradeImportService.importTrades(stream(body.toString()), UploadFormat.CSV);
+
+        assertEquals(250, result.getHoldingsCreated());
+        assertEquals(2, result.getPortfoliosAffected());
+        assertEquals(125, stockHoldingRepository.findByPortfolioId(first).size());
+        assertEquals(125, stockHoldingRepository.findByPortfolioId(second).size());
+        // 250 inserts at hibernate.jdbc.batch_size=100 plus sequence calls and portfolio loads,
+        // far fewer statements than one per row
+        assertTrue(statistics.getPrepareStatementCount() < 25, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testSymbolsAreNormalizedLikePriceIngestion() throws IOException {
+        Long portfolioId = newPortfolio("Normalized");
+        String body = portfolioId + ", aapl ,10,100\n"
+                + portfolioId + ",AAPL,10,200\n"
+                + portfolioId + ",Aapl,-5\n";
+
+        TradeImportResult result = tradeImportService.importTrades(stream(body), UploadFormat.CSV);
+
+        assertEquals(3, result.getRowsAccepted());
+        assertEquals(1, result.getHoldingsCreated());
+        assertEquals(15, stockHoldingRepository.findByPortfolioIdAndSymbol(portfolioId, "AAPL").orElseThrow().getQuantity());
+    }
+
+    @Test
+    void testConcurrentImportsOfTheSamePortfoliosInOppositeOrder() throws Exception {
+        Long first = newPortfolio("Order 1");
+        Long second = newPortfolio("Order 2");
+        String forward = first + ",AAPL,1,100\n" + second + ",AAPL,1,100\n";
+        String backward = second + ",MSFT,1,100\n" + first + ",MSFT,1,100\n";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<TradeImportResult>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> tradeImportService.importTrades(stream(forward), UploadFormat.CSV)));
+                results.add(executor.submit(() -> tradeImportService.importTrades(stream(backward), UploadFormat.CSV)));
+            }
+            for (Future<TradeImportResult> result : results) {
+                assertEquals(2, result.get(30, TimeUnit.SECONDS).getRowsAccepted());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(20, stockHoldingRepository.findByPortfolioIdAndSymbol(first, "AAPL").orElseThrow().getQuantity());
+        assertEquals(20, stockHoldingRepository.findByPortfolioIdAndSymbol(second, "MSFT").orElseThrow().getQuantity());
+    }
+
+    private Long newPortfolio(String name) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName(name);
+        return portfolioService.createPortfolio(portfolio).getId();
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
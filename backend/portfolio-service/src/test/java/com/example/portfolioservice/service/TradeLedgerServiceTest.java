@@ -0,0 +1,100 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "portfolio.ledger.dir=target/test-data/ledger-${random.uuid}",
+        "portfolio.history.dir=target/test-data/ticks-${random.uuid}"
+})
+class TradeLedgerServiceTest {
+
+    @Autowired
+    private TradeLedgerService tradeLedgerService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testRestoreRepairsHoldingsThatDriftedFromTheLedger() {
+        Long portfolioId = newPortfolio("Ledger drift");
+        portfolioService.addStock(portfolioId, "AAPL", 10, 100.0);
+
+        // Same number of trades on both sides, so the ledger state wins
+        setQuantity(portfolioId, 15);
+        tradeLedgerService.restoreProjections();
+
+        assertEquals(10, quantity(portfolioId));
+    }
+
+    @Test
+    void testRestoreSkipsPortfoliosWhoseCommittedTradeMissedTheLedger() {
+        Long portfolioId = newPortfolio("Lost append");
+        portfolioService.addStock(portfolioId, "AAPL", 10, 100.0);
+        assertEquals(2L, ledgerVersion(portfolioId));
+
+        // A trade committed to the database, but the process died before appending it
+        jdbcTemplate.update("UPDATE portfolios SET ledger_version = ledger_version + 1 WHERE id = ?", portfolioId);
+        setQuantity(portfolioId, 15);
+        tradeLedgerService.restoreProjections();
+
+        assertEquals(15, quantity(portfolioId));
+        assertEquals(3L, ledgerVersion(portfolioId));
+    }
+
+    @Test
+    void testRestoreSkipsPortfoliosMarkedAsGaps() throws IOException {
+        Long portfolioId = newPortfolio("Failed append");
+        portfolioService.addStock(portfolioId, "AAPL", 10, 100.0);
+
+        setQuantity(portfolioId, 15);
+        tradeLedgerService.getLedger().markGaps(List.of(portfolioId));
+        tradeLedgerService.restoreProjections();
+
+        assertEquals(15, quantity(portfolioId));
+    }
+
+    @Test
+    void testRestoreBringsADatabaseBehindTheLedgerForward() {
+        Long portfolioId = newPortfolio("Lost commit");
+        portfolioService.addStock(portfolioId, "AAPL", 10, 100.0);
+
+        // The database lost the buy, the ledger still has it
+        jdbcTemplate.update("DELETE FROM stock_holdings WHERE portfolio_id = ?", portfolioId);
+        jdbcTemplate.update("UPDATE portfolios SET ledger_version = 1 WHERE id = ?", portfolioId);
+        tradeLedgerService.restoreProjections();
+
+        assertEquals(10, quantity(portfolioId));
+        assertEquals(2L, ledgerVersion(portfolioId));
+    }
+
+    private Long newPortfolio(String name) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName(name);
+        return portfolioService.createPortfolio(portfolio).getId();
+    }
+
+    private long ledgerVersion(Long portfolioId) {
+        return jdbcTemplate.queryForObject("SELECT ledger_version FROM portfolios WHERE id = ?", Long.class, portfolioId);
+    }
+
+    private void setQuantity(Long portfolioId, int quantity) {
+        jdbcTemplate.update("UPDATE stock_holdings SET quantity = ? WHERE portfolio_id = ? AND symbol = 'AAPL'",
+                quantity, portfolioId);
+    }
+
+    private int quantity(Long portfolioId) {
+        return portfolioService.getPortfolioHoldings(portfolioId).get(0).getQuantity();
+    }
+}
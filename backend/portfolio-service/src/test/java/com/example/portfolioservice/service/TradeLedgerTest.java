@@ -0,0 +1,119 @@
+package com.example.portfolioservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeLedgerTest {
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("ledger");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void testProjectionFollowsTrades() throws IOException {
+        LedgerProjection projection = new LedgerProjection();
+        try (TradeLedger ledger = TradeLedger.open(directory, projection)) {
+            List<TradeEvent> appended = ledger.append(List.of(
+                    TradeEvent.portfolioCreated(1L, "Growth", "user-1"),
+                    TradeEvent.buy(1L, "AAPL", 10, 100.0),
+                    TradeEvent.buy(1L, "AAPL", 10, 200.0),
+                    TradeEvent.sell(1L, "AAPL", 5),
+                    TradeEvent.buy(1L, "MSFT", 1, 400.0),
+                    TradeEvent.remove(1L, "MSFT")));
+
+            assertEquals(6L, appended.get(5).sequence());
+            assertEquals(6L, ledger.getLastSequence());
+        }
+
+        LedgerProjection.PortfolioState portfolio = projection.portfolio(1L);
+        assertEquals("Growth", portfolio.getName());
+        assertEquals("user-1", portfolio.getUserId());
+        assertEquals(1, portfolio.getPositions().size());
+        assertEquals(15, portfolio.getPositions().get("AAPL").getQuantity());
+        assertEquals(150.0, portfolio.getPositions().get("AAPL").getAveragePrice());
+    }
+
+    @Test
+    void testGapsSurviveReopen() throws IOException {
+        try (TradeLedger ledger = TradeLedger.open(directory, new LedgerProjection())) {
+            assertTrue(ledger.getGaps().isEmpty());
+            ledger.markGaps(List.of(3L, 1L));
+            ledger.markGaps(List.of(1L));
+        }
+
+        try (TradeLedger ledger = TradeLedger.open(directory, new LedgerProjection())) {
+            assertEquals(Set.of(1L, 3L), ledger.getGaps());
+        }
+        assertEquals(List.of("3", "1"), Files.readAllLines(directory.resolve("gaps.txt")));
+    }
+
+    @Test
+    void testReopenReplaysOnlyTheTailAfterSnapshot() throws IOException {
+        try (TradeLedger ledger = TradeLedger.open(directory, new LedgerProjection())) {
+            for (int i = 0; i < 100; i++) {
+                ledger.append(List.of(TradeEvent.buy(1L, "AAPL", 1, 100.0)));
+            }
+            ledger.snapshot();
+            ledger.append(List.of(TradeEvent.buy(1L, "AAPL", 1, 100.0), TradeEvent.sell(1L, "AAPL", 11)));
+        }
+
+        LedgerProjection projection = new LedgerProjection();
+        try (TradeLedger ledger = TradeLedger.open(directory, projection)) {
+            assertEquals(100L, ledger.getSnapshotSequence());
+            assertEquals(2L, ledger.getReplayedEvents());
+            assertEquals(102L, ledger.getLastSequence());
+            assertEquals(102L, projection.eventCount());
+            assertEquals(102L, projection.portfolio(1L).getEvents());
+            assertEquals(90, projection.portfolio(1L).getPositions().get("AAPL").getQuantity());
+
+            // Appending continues the sequence after a restart
+            assertEquals(103L, ledger.append(List.of(TradeEvent.sell(1L, "AAPL", 1))).get(0).sequence());
+        }
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        try (TradeLedger ledger = TradeLedger.open(directory, new LedgerProjection())) {
+            ledger.append(List.of(TradeEvent.buy(1L, "AAPL", 1, 100.0), TradeEvent.buy(1L, "AAPL", 2, 100.0)));
+        }
+        Path log = directory.resolve("trades.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(log) - 3);
+        }
+
+        LedgerProjection projection = new LedgerProjection();
+        try (TradeLedger ledger = TradeLedger.open(directory, projection)) {
+            assertEquals(1L, ledger.getLastSequence());
+            assertEquals(1, projection.portfolio(1L).getPositions().get("AAPL").getQuantity());
+            ledger.append(List.of(TradeEvent.buy(1L, "AAPL", 4, 100.0)));
+        }
+
+        LedgerProjection reopened = new LedgerProjection();
+        try (TradeLedger ledger = TradeLedger.open(directory, reopened)) {
+            assertEquals(2L, ledger.getLastSequence());
+            assertEquals(5, reopened.portfolio(1L).getPositions().get("AAPL").getQuantity());
+        }
+    }
+}
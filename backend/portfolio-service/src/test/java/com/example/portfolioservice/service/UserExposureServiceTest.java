@@ -0,0 +1,123 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import com.example.portfolioservice.model.SymbolExposure;
+import com.example.portfolioservice.model.UserExposure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserExposureServiceTest {
+
+    private MarketDataService marketDataService;
+    private JdbcTemplate jdbcTemplate;
+    private UserExposureService exposureService;
+
+    @BeforeEach
+    void setUp() {
+        marketDataService = new MarketDataService();
+        marketDataService.updatePrice("AAPL", 100.0);
+        marketDataService.updatePrice("GOOGL", 200.0);
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE portfolios (id BIGINT PRIMARY KEY, name VARCHAR(255), user_id VARCHAR(255), total_value DOUBLE)");
+        jdbcTemplate.execute("CREATE TABLE stock_holdings (id BIGINT PRIMARY KEY, portfolio_id BIGINT, symbol VARCHAR(255), "
+                + "quantity INT, average_price DOUBLE, current_value DOUBLE)");
+        insertPortfolio(1L, "alice");
+        insertPortfolio(2L, "alice");
+        insertPortfolio(3L, "bob");
+        insertHolding(1L, 1L, "AAPL", 10, 90.0);
+        insertHolding(2L, 2L, "AAPL", 5, 120.0);
+        insertHolding(3L, 2L, "GOOGL", 2, 150.0);
+        insertHolding(4L, 3L, "AAPL", 1, 100.0);
+        exposureService = new UserExposureService(marketDataService, jdbcTemplate);
+    }
+
+    @Test
+    void testExposureSumsHoldingsAcrossPortfolios() {
+        UserExposure exposure = exposureService.getExposure("alice");
+
+        assertEquals(2, exposure.getPortfolios());
+        assertEquals(2, exposure.getSymbols().size());
+        SymbolExposure apple = exposure.getSymbols().get(0);
+        assertEquals("AAPL", apple.getSymbol());
+        assertEquals(15L, apple.getQuantity());
+        assertEquals(2, apple.getPortfolios());
+        assertEquals(1500.0, apple.getCostBasis(), 1e-9);
+        assertEquals(1500.0, apple.getMarketValue(), 1e-9);
+        assertEquals(1800.0, exposure.getCostBasis(), 1e-9);
+        assertEquals(1900.0, exposure.getMarketValue(), 1e-9);
+    }
+
+    @Test
+    void testPriceTickRevaluesOnlyHeldSymbols() {
+        exposureService.getExposure("alice");
+        exposureService.getExposure("bob");
+
+        marketDataService.updatePrice("AAPL", 110.0);
+
+        assertEquals(2050.0, exposureService.getExposure("alice").getMarketValue(), 1e-9);
+        assertEquals(110.0, exposureService.getExposure("bob").getMarketValue(), 1e-9);
+    }
+
+    @Test
+    void testRefreshReplacesPortfolioContribution() {
+        exposureService.getExposure("alice");
+
+        Portfolio portfolio = portfolio(2L, "alice", holding("AAPL", 1, 120.0));
+        exposureService.refresh(portfolio);
+
+        UserExposure exposure = exposureService.getExposure("alice");
+        assertEquals(1, exposure.getSymbols().size());
+        assertEquals(11L, exposure.getSymbols().get(0).getQuantity());
+        assertEquals(1020.0, exposure.getCostBasis(), 1e-9);
+        assertEquals(1100.0, exposure.getMarketValue(), 1e-9);
+
+        marketDataService.updatePrice("GOOGL", 300.0);
+        assertEquals(1100.0, exposureService.getExposure("alice").getMarketValue(), 1e-9);
+    }
+
+    @Test
+    void testUnknownUserHasNoExposure() {
+        UserExposure exposure = exposureService.getExposure("nobody");
+
+        assertEquals(0, exposure.getPortfolios());
+        assertTrue(exposure.getSymbols().isEmpty());
+        assertEquals(0.0, exposure.getMarketValue());
+    }
+
+    private void insertPortfolio(Long id, String userId) {
+        jdbcTemplate.update("INSERT INTO portfolios (id, name, user_id, total_value) VALUES (?, ?, ?, 0)",
+                id, "Portfolio " + id, userId);
+    }
+
+    private void insertHolding(Long id, Long portfolioId, String symbol, int quantity, double averagePrice) {
+        jdbcTemplate.update("INSERT INTO stock_holdings (id, portfolio_id, symbol, quantity, average_price, current_value) "
+                + "VALUES (?, ?, ?, ?, ?, 0)", id, portfolioId, symbol, quantity, averagePrice);
+    }
+
+    private Portfolio portfolio(Long id, String userId, StockHolding... holdings) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setId(id);
+        portfolio.setUserId(userId);
+        for (StockHolding holding : holdings) {
+            holding.setPortfolio(portfolio);
+            portfolio.getHoldings().add(holding);
+        }
+        return portfolio;
+    }
+
+    private StockHolding holding(String symbol, int quantity, double averagePrice) {
+        StockHolding holding = new StockHolding();
+        holding.setSymbol(symbol);
+        holding.setQuantity(quantity);
+        holding.setAveragePrice(averagePrice);
+        return holding;
+    }
+}
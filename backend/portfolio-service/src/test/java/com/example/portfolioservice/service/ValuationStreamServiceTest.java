@@ -0,0 +1,140 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.config.TaskExecutors;
+import com.example.portfolioservice.model.HoldingValue;
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.ValuationDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValuationStreamServiceTest {
+    // Windows are flushed by the tests, never by the coalescer
+    private static final long WINDOW_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private ValuationStreamService streamService;
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    void testChangesWithinWindowAreCoalescedAndOlderValuesIgnored() throws InterruptedException {
+        streamService = streamService(64);
+        RecordingEmitter emitter = new RecordingEmitter(null, null);
+        streamService.subscribe(portfolio(1L, 0.0), emitter);
+        assertEquals(0.0, emitter.next().getTotalValue());
+
+        streamService.onValuationChange(change(1L, 1, 1000.0, "AAPL", 1000.0));
+        streamService.onValuationChange(change(1L, 3, 1600.0, "AAPL", 1100.0));
+        // Delivered late: its total is stale, but it is the latest value of GOOGL
+        streamService.onValuationChange(change(1L, 2, 1500.0, "GOOGL", 500.0));
+        streamService.onValuationChange(change(2L, 4, 9999.0, "AAPL", 9999.0));
+        streamService.flushWindow();
+
+        ValuationDelta delta = emitter.next();
+        assertEquals(1600.0, delta.getTotalValue());
+        assertEquals(2, delta.getHoldings().size());
+        assertEquals(1100.0, delta.getHoldings().get(0).getCurrentValue());
+        assertEquals(500.0, delta.getHoldings().get(1).getCurrentValue());
+
+        streamService.flushWindow();
+        assertNull(emitter.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testFullQueueMergesOldestDeltasIntoTheirSuccessors() throws InterruptedException {
+        streamService = streamService(2);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(sending, release);
+        streamService.subscribe(portfolio(1L, 0.0), emitter);
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // The sender is stuck on the snapshot while four windows are flushed
+        streamService.onValuationChange(change(1L, 1, 100.0, "AAPL", 100.0));
+        streamService.flushWindow();
+        streamService.onValuationChange(change(1L, 2, 300.0, "GOOGL", 200.0));
+        streamService.flushWindow();
+        streamService.onValuationChange(change(1L, 3, 400.0, "AAPL", 200.0));
+        streamService.flushWindow();
+        streamService.onValuationChange(change(1L, 4, 500.0, "MSFT", 100.0));
+        streamService.flushWindow();
+        release.countDown();
+
+        assertEquals(0.0, emitter.next().getTotalValue());
+        ValuationDelta merged = emitter.next();
+        assertEquals(400.0, merged.getTotalValue());
+        assertEquals(2, merged.getDroppedEvents());
+        assertEquals(2, merged.getHoldings().size());
+        assertEquals("AAPL", merged.getHoldings().get(0).getSymbol());
+        assertEquals(200.0, merged.getHoldings().get(0).getCurrentValue());
+        assertEquals("GOOGL", merged.getHoldings().get(1).getSymbol());
+        ValuationDelta last = emitter.next();
+        assertEquals(500.0, last.getTotalValue());
+        assertEquals(0, last.getDroppedEvents());
+        assertEquals("MSFT", last.getHoldings().get(0).getSymbol());
+    }
+
+    private ValuationStreamService streamService(int queueCapacity) {
+        return new ValuationStreamService(new PortfolioValuationEngine(new MarketDataService()),
+                new TaskExecutors(false), WINDOW_MILLIS, queueCapacity, 60_000, 1);
+    }
+
+    private static ValuationChange change(Long portfolioId, long sequence, double totalValue, String symbol,
+                                          double currentValue) {
+        return new ValuationChange(portfolioId, sequence, totalValue,
+                List.of(new HoldingValue(symbol, 10, currentValue)));
+    }
+
+    private static Portfolio portfolio(Long id, double totalValue) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setId(id);
+        portfolio.setTotalValue(totalValue);
+        return portfolio;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<ValuationDelta> events = new LinkedBlockingQueue<>();
+        final CountDownLatch sending;
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch sending, CountDownLatch release) {
+            this.sending = sending;
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (sending != null && sending.getCount() > 0) {
+                sending.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof ValuationDelta delta) {
+                    events.add(delta);
+                }
+            }
+        }
+
+        ValuationDelta next() throws InterruptedException {
+            ValuationDelta delta = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delta, "no event sent");
+            return delta;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.portfolioservice.service;
+
+import com.example.portfolioservice.model.Portfolio;
+import com.example.portfolioservice.model.StockHolding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValuationWriteBehindTest {
+
+    private MarketDataService marketDataService;
+    private PortfolioValuationEngine valuationEngine;
+    private RecordingJdbcTemplate jdbcTemplate;
+    private ValuationWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        marketDataService = new MarketDataService();
+        valuationEngine = new PortfolioValuationEngine(marketDataService);
+        jdbcTemplate = new RecordingJdbcTemplate();
+        writeBehind = new ValuationWriteBehind(valuationEngine, jdbcTemplate, 2);
+        marketDataService.updatePrice("AAPL", 100.0);
+        marketDataService.updatePrice("GOOGL", 200.0);
+        for (long id = 1; id <= 3; id++) {
+            valuationEngine.refresh(portfolio(id, holding(id * 10, "AAPL", 10), holding(id * 10 + 1, "GOOGL", 5)));
+        }
+    }
+
+    @Test
+    void testFlushWritesDirtyValuationsInBatches() {
+        assertEquals(3, writeBehind.flush());
+
+        // 6 holdings and 3 portfolios in batches of at most 2 rows
+        assertEquals(List.of(2, 2, 2), jdbcTemplate.batchSizes("stock_holdings"));
+        assertEquals(List.of(2, 1), jdbcTemplate.batchSizes("portfolios"));
+        assertEquals(0, writeBehind.flush());
+
+        marketDataService.updatePrice("AAPL", 110.0);
+        jdbcTemplate.clear();
+        assertEquals(3, writeBehind.flush());
+        for (Object[] row : jdbcTemplate.rows("portfolios")) {
+            assertEquals(2100.0, row[0]);
+        }
+    }
+
+    @Test
+    void testFailedWriteIsRetriedOnNextFlush() {
+        jdbcTemplate.failures = 1;
+        assertThrows(DataAccessResourceFailureException.class, () -> writeBehind.flush());
+
+        assertEquals(3, writeBehind.flush());
+        assertEquals(3, jdbcTemplate.rows("portfolios").size());
+    }
+
+    @Test
+    void testDrainFlushesOnShutdown() {
+        writeBehind.drain();
+
+        assertEquals(3, jdbcTemplate.rows("portfolios").size());
+        assertEquals(0, writeBehind.flush());
+    }
+
+    private Portfolio portfolio(Long id, StockHolding... holdings) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setId(id);
+        for (StockHolding holding : holdings) {
+            holding.setPortfolio(portfolio);
+            portfolio.getHoldings().add(holding);
+        }
+        return portfolio;
+    }
+
+    private StockHolding holding(Long id, String symbol, int quantity) {
+        StockHolding holding = new StockHolding();
+        holding.setId(id);
+        holding.setSymbol(symbol);
+        holding.setQuantity(quantity);
+        holding.setAveragePrice(100.0);
+        return holding;
+    }
+
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<String> sql = new ArrayList<>();
+        final List<List<Object[]>> batches = new ArrayList<>();
+        int failures;
+
+        @Override
+        public int[] batchUpdate(String statement, List<Object[]> batchArgs) {
+            if (failures > 0) {
+                failures--;
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+            sql.add(statement);
+            batches.add(new ArrayList<>(batchArgs));
+            return new int[batchArgs.size()];
+        }
+
+        void clear() {
+            sql.clear();
+            batches.clear();
+        }
+
+        List<Integer> batchSizes(String table) {
+            List<Integer> sizes = new ArrayList<>();
+            for (int i = 0; i < batches.size(); i++) {
+                if (sql.get(i).contains("UPDATE " + table + " ")) {
+                    sizes.add(batches.get(i).size());
+                }
+            }
+            return sizes;
+        }
+
+        List<Object[]> rows(String table) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < batches.size(); i++) {
+                if (sql.get(i).contains("UPDATE " + table + " ")) {
+                    rows.addAll(batches.get(i));
+                }
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+#!/bin/bash
+# Measures the startup time of the jar built with: mvn -Pfast-startup package
+#
+# usage: ./startup-time.sh [fast|baseline] [runs]
+#   fast      AOT bean definitions, the AppCDS archive and the fast-startup profile (default)
+#   baseline  the same jar with the default profile, without AOT and CDS
+#
+# Each run starts the application on a random port with fresh ledger and tick directories and
+# reads the JVM time to a started context from the "Started ... (process running for X)" log
+# line. Prints every run and the median. With MAX_STARTUP_SECONDS set, exits with 1 when the
+# median is slower, so the script can guard against startup regressions in CI.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+MODE=${1:-fast}
+RUNS=${2:-5}
+JAR=target/portfolio-service-0.0.1-SNAPSHOT.jar
+ARCHIVE=target/app.jsa
+
+if [ ! -f "$JAR" ] || [ ! -d target/lib ]; then
+    echo "Build the jar first: mvn -Pfast-startup package" >&2
+    exit 2
+fi
+
+case "$MODE" in
+    fast)
+        JVM_ARGS=(-XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -Dspring.aot.enabled=true)
+        APP_ARGS=(--spring.profiles.active=fast-startup)
+        ;;
+    baseline)
+        JVM_ARGS=()
+        APP_ARGS=()
+        ;;
+    *)
+        echo "Unknown mode $MODE, expected fast or baseline" >&2
+        exit 2
+        ;;
+esac
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+TIMES=()
+for run in $(seq 1 "$RUNS"); do
+    LOG="$WORK/run-$run.log"
+    java ${JVM_ARGS[@]+"${JVM_ARGS[@]}"} -jar "$JAR" ${APP_ARGS[@]+"${APP_ARGS[@]}"} \
+        --server.port=0 \
+        --portfolio.ledger.dir="$WORK/ledger-$run" \
+        --portfolio.history.dir="$WORK/ticks-$run" > "$LOG" 2>&1 &
+    PID=$!
+    for _ in $(seq 1 1200); do
+        if grep -q "Started PortfolioServiceApplication" "$LOG" || ! kill -0 "$PID" 2>/dev/null; then
+            break
+        fi
+        sleep 0.1
+    done
+    kill "$PID" 2>/dev/null || true
+    wait "$PID" 2>/dev/null || true
+
+    SECONDS_TO_START=$(sed -n 's/.*Started PortfolioServiceApplication.*process running for \([0-9.]*\)).*/\1/p' "$LOG")
+    if [ -z "$SECONDS_TO_START" ]; then
+        echo "Run $run did not start, log follows" >&2
+        cat "$LOG" >&2
+        exit 1
+    fi
+    echo "run $run: ${SECONDS_TO_START}s"
+    TIMES+=("$SECONDS_TO_START")
+done
+
+MEDIAN=$(printf '%s\n' "${TIMES[@]}" | sort -n | awk '{ t[NR] = $1 } END { print (NR % 2) ? t[(NR + 1) / 2] : (t[NR / 2] + t[NR / 2 + 1]) / 2 }')
+echo "$MODE median over $RUNS runs: ${MEDIAN}s ($(java -version 2>&1 | head -1))"
+
+if [ -n "${MAX_STARTUP_SECONDS:-}" ] && awk -v m="$MEDIAN" -v max="$MAX_STARTUP_SECONDS" 'BEGIN { exit !(m > max) }'; then
+    echo "Startup regression: median ${MEDIAN}s exceeds MAX_STARTUP_SECONDS=${MAX_STARTUP_SECONDS}s" >&2
+    exit 1
+fi
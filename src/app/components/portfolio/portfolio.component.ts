@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { ReactiveFormsModule } from '@angular/forms';
@@ -6,6 +6,8 @@ import { StockFormComponent } from '../stock-form/stock-form.component';
 import { PortfolioService } from '../../services/portfolio.service';
 import { Portfolio } from '../../models/portfolio';
 import { StockHolding } from '../../models/stock-holding';
+import { ValuationDelta } from '../../models/valuation-delta';
+import { Subscription } from 'rxjs';
 
 @Component({
   selector: 'app-portfolio',
@@ -14,7 +16,7 @@ import { StockHolding } from '../../models/stock-holding';
   templateUrl: './portfolio.component.html',
   styleUrls: ['./portfolio.component.css']
 })
-export class PortfolioComponent implements OnInit {
+export class PortfolioComponent implements OnInit, OnDestroy {
   portfolio: Portfolio | null = null;
   holdings: StockHolding[] = [];
   portfolioId: number = 1;
@@ -30,6 +32,7 @@ export class PortfolioComponent implements OnInit {
   sortDirection: 'asc' | 'desc' = 'asc';
   searchTerm: string = '';
   isLoading: boolean = false;
+  private valuationStream: Subscription | null = null;
 
   constructor(private portfolioService: PortfolioService) {}
 
@@ -37,6 +40,41 @@ export class PortfolioComponent implements OnInit {
     this.loadPortfolio();
   }
 
+  ngOnDestroy(): void {
+    this.valuationStream?.unsubscribe();
+  }
+
+  // Live values are pushed by the backend instead of polling getPortfolio
+  private watchValuation(portfolioId: number): void {
+    if (this.valuationStream) {
+      return;
+    }
+    this.valuationStream = this.portfolioService.streamValuation(portfolioId).subscribe(delta => {
+      this.applyValuationDelta(delta);
+    });
+  }
+
+  private applyValuationDelta(delta: ValuationDelta): void {
+    if (!this.portfolio || this.portfolio.id !== delta.portfolioId) return;
+
+    // Merged events or a holding we have never seen mean the local state may be stale
+    const unknownHolding = delta.holdings.some(change =>
+      change.quantity > 0 && !this.holdings.some(h => h.symbol === change.symbol));
+    if (delta.droppedEvents > 0 || unknownHolding) {
+      this.loadPortfolio();
+      return;
+    }
+
+    this.portfolio.totalValue = delta.totalValue;
+    delta.holdings.forEach(change => {
+      const holding = this.holdings.find(h => h.symbol === change.symbol);
+      if (!holding) return;
+      holding.quantity = change.quantity;
+      holding.currentValue = change.currentValue;
+    });
+    this.holdings = this.holdings.filter(h => h.quantity > 0);
+  }
+
   loadPortfolio(): void {
     this.isLoading = true;
     this.error = null;
@@ -46,6 +84,7 @@ export class PortfolioComponent implements OnInit {
         this.portfolio = data;
         this.holdings = data.holdings || [];
         this.isLoading = false;
+        this.watchValuation(data.id);
       },
       error: (error) => {
         if (error.status === 404) {
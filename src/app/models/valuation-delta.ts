@@ -0,0 +1,13 @@
+export interface HoldingValue {
+  symbol: string;
+  quantity: number;
+  currentValue: number;
+}
+
+export interface ValuationDelta {
+  portfolioId: number;
+  totalValue: number;
+  holdings: HoldingValue[];
+  droppedEvents: number;
+  timestamp: number;
+}
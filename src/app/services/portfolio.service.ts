@@ -3,6 +3,7 @@ import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { Portfolio } from '../models/portfolio';
 import { StockHolding } from '../models/stock-holding';
+import { ValuationDelta } from '../models/valuation-delta';
 import { environment } from '../../environments/environment';
 import { catchError } from 'rxjs/operators';
 import { throwError } from 'rxjs';
@@ -73,6 +74,17 @@ export class PortfolioService {
     return this.http.get<StockHolding[]>(`${this.apiUrl}/${portfolioId}/holdings`);
   }
 
+  streamValuation(portfolioId: number): Observable<ValuationDelta> {
+    return new Observable<ValuationDelta>(subscriber => {
+      const source = new EventSource(`${this.apiUrl}/${portfolioId}/stream`);
+      source.addEventListener('valuation', event => {
+        subscriber.next(JSON.parse((event as MessageEvent).data));
+      });
+      source.onerror = error => console.error('Valuation stream error:', error);
+      return () => source.close();
+    });
+  }
+
   private handleError(error: any) {
     console.error('An error occurred:', error);
     return throwError('Something bad happened; please try again later.');
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable, throwError } from 'rxjs';
+import { Observable, of, throwError } from 'rxjs';
 import { catchError, map, tap } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
 
@@ -10,7 +10,9 @@ export interface StockPrice {
   highPrice: number;
   lowPrice: number;
   openPrice: number;
-  previousClose: number;
+  previousClose: number | null;
+  change?: number | null;
+  changePercent?: number | null;
   timestamp: number;
 }
 
@@ -18,6 +20,7 @@ export interface StockSearchResult {
   symbol: string;
   name: string;
   type: string;
+  exchange?: string;
 }
 
 export interface StockDetails {
@@ -36,47 +39,36 @@ export interface StockDetails {
 export class StockService {
   private apiUrl = environment.finnhubApiUrl;
   private apiKey = environment.finnhubApiKey;
+  private symbolsUrl = `${environment.apiUrl}/symbols`;
+  private quotesUrl = `${environment.apiUrl}/quotes`;
 
   constructor(private http: HttpClient) {}
 
   getStockPrice(symbol: string): Observable<number> {
-    const url = `${this.apiUrl}/quote?symbol=${encodeURIComponent(symbol)}&token=${this.apiKey}`;
-    console.log('Fetching stock price with URL:', url);
+    return this.getFullStockPrice(symbol).pipe(
+      map(quote => quote.currentPrice)
+    );
+  }
 
-    return this.http.get<any>(url).pipe(
-      map(response => {
-        console.log('Price response:', response);
-        if (!response.c || !response.d || !response.h || !response.l) {
+  getFullStockPrice(symbol: string): Observable<StockPrice> {
+    return this.getQuotes([symbol]).pipe(
+      map(quotes => {
+        if (quotes.length === 0) {
           throw new Error('Invalid price data received from API');
         }
-        return response.c; // Current price
-      }),
-      catchError(this.handleError)
+        return quotes[0];
+      })
     );
   }
 
-  getFullStockPrice(symbol: string): Observable<StockPrice> {
-    const url = `${this.apiUrl}/quote?symbol=${encodeURIComponent(symbol)}&token=${this.apiKey}`;
-    console.log('Fetching full stock price with URL:', url);
+  // Fetches the quotes of many symbols in one backend call
+  getQuotes(symbols: string[]): Observable<StockPrice[]> {
+    if (symbols.length === 0) {
+      return of([]);
+    }
+    const url = `${this.quotesUrl}?symbols=${symbols.map(s => encodeURIComponent(s)).join(',')}`;
 
-    return this.http.get<any>(url).pipe(
-      map(response => {
-        console.log('Full price response:', response);
-        if (!response.c || !response.d || !response.h || !response.l) {
-          throw new Error('Invalid price data received from API');
-        }
-        return {
-          symbol: response.symbol,
-          currentPrice: response.c,
-          change: response.d,
-          changePercent: response.dp,
-          highPrice: response.h,
-          lowPrice: response.l,
-          openPrice: response.o,
-          previousClose: response.pc,
-          timestamp: response.t
-        };
-      }),
+    return this.http.get<StockPrice[]>(url).pipe(
       catchError(this.handleError)
     );
   }
@@ -89,24 +81,15 @@ export class StockService {
       });
     }
 
-    const url = `${this.apiUrl}/search?q=${encodeURIComponent(query)}&token=${this.apiKey}`;
-    console.log('Searching stocks with URL:', url);
+    const url = `${this.symbolsUrl}/search?q=${encodeURIComponent(query)}&limit=10`;
 
-    return this.http.get<any>(url).pipe(
-      map(response => {
-        console.log('Search response:', response);
-        if (!response.result || !Array.isArray(response.result)) {
-          console.warn('Invalid search response format:', response);
-          return [];
-        }
-        return response.result.map((item: any) => ({
-          symbol: item.symbol,
-          name: item.description,
-          exchange: item.exchange,
-          type: item.type,
-          price: item.price
-        }));
-      }),
+    return this.http.get<StockSearchResult[]>(url).pipe(
+      map(results => results.map(item => ({
+        symbol: item.symbol,
+        name: item.name,
+        exchange: item.exchange,
+        type: item.type
+      }))),
       catchError(this.handleError)
     );
   }